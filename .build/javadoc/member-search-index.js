@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"ADAPTIVE"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"ApplicationArtwork()","u":"%3Cinit%3E()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"ArtworkAnalyzer()","u":"%3Cinit%3E()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"ArtworkAnalyzer(ArtworkExecutionStrategy)","u":"%3Cinit%3E(com.revetkn.ios.analyzer.ArtworkExecutionStrategy)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"artworkExtractionMetricsListener()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"ArtworkFinding(ArtworkFindingType, File, ImageMetrics)","u":"%3Cinit%3E(com.revetkn.ios.analyzer.ArtworkFindingType,java.io.File,com.revetkn.ios.analyzer.ImageMetrics)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"artworkFindingsBatchSize()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"artworkFindingsBufferCapacity()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkProcessingException","l":"ArtworkProcessingException(Throwable)","u":"%3Cinit%3E(java.lang.Throwable)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskLimits","l":"ArtworkTaskLimits(long, long)","u":"%3Cinit%3E(long,long)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWatcher","l":"ArtworkWatcher(ArtworkAnalyzer, File, ApplicationArtworkUpdateCallback)","u":"%3Cinit%3E(com.revetkn.ios.analyzer.ArtworkAnalyzer,java.io.File,com.revetkn.ios.analyzer.ApplicationArtworkUpdateCallback)"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"AVERAGE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"awaitTermination(long, TimeUnit)","u":"awaitTermination(long,java.util.concurrent.TimeUnit)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"bandedScalingThresholdInPixels()"},{"p":"com.revetkn.ios.analyzer","c":"ResamplingKernel","l":"BICUBIC"},{"p":"com.revetkn.ios.analyzer","c":"ResamplingKernel","l":"BILINEAR"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"cancel(boolean)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"compact()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"compactApplicationArtwork()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"compareRetinaImageSourceContentHashes()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWorkload","l":"CPU"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"cpuTaskConcurrency()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWatcher","l":"debounceIntervalInMilliseconds()"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"DECODE"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"DEFAULT"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"DETECT_IMAGE_METRICS"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"DETECT_IMAGE_REFERENCES"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"DETECT_RETINA_AND_NONRETINA_IMAGES"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"DETECT_STANDARD_APPLICATION_IMAGES"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"directoryTraversalParallelism()"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"ENCODE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"equals(Object)","u":"equals(java.lang.Object)"},{"p":"com.revetkn.ios.analyzer","c":"ExecutorServiceArtworkExecutionStrategy","l":"ExecutorServiceArtworkExecutionStrategy(ExecutorService)","u":"%3Cinit%3E(java.util.concurrent.ExecutorService)"},{"p":"com.revetkn.ios.analyzer","c":"ExecutorServiceArtworkExecutionStrategy","l":"ExecutorServiceArtworkExecutionStrategy(ExecutorService, ExecutorService)","u":"%3Cinit%3E(java.util.concurrent.ExecutorService,java.util.concurrent.ExecutorService)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"EXTRACT_ALL_IMAGE_FILES"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"extractApplicationArtwork(File)","u":"extractApplicationArtwork(java.io.File)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"extractApplicationArtwork(File, ArtworkExtractionProgressCallback)","u":"extractApplicationArtwork(java.io.File,com.revetkn.ios.analyzer.ArtworkExtractionProgressCallback)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"extractApplicationArtworkAsync(File, ArtworkExtractionProgressCallback, ArtworkTaskLimits)","u":"extractApplicationArtworkAsync(java.io.File,com.revetkn.ios.analyzer.ArtworkExtractionProgressCallback,com.revetkn.ios.analyzer.ArtworkTaskLimits)"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationProgressCallback","l":"generatedRetinaImage(File, File, int, int)","u":"generatedRetinaImage(java.io.File,java.io.File,int,int)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"generateRetinaImages(File, File, Set<File>)","u":"generateRetinaImages(java.io.File,java.io.File,java.util.Set)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"generateRetinaImages(File, File, Set<File>, RetinaImageGenerationProgressCallback)","u":"generateRetinaImages(java.io.File,java.io.File,java.util.Set,com.revetkn.ios.analyzer.RetinaImageGenerationProgressCallback)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"generateRetinaImagesAsync(File, File, Set<File>, RetinaImageGenerationProgressCallback, ArtworkTaskLimits)","u":"generateRetinaImagesAsync(java.io.File,java.io.File,java.util.Set,com.revetkn.ios.analyzer.RetinaImageGenerationProgressCallback,com.revetkn.ios.analyzer.ArtworkTaskLimits)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"get()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"get(long, TimeUnit)","u":"get(long,java.util.concurrent.TimeUnit)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getAllImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getAllImageFilesAndReferencingFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getAllImageFilesWithMetrics()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionMetrics","l":"getAllPhaseMetrics()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWatcher","l":"getApplicationArtwork()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"getBytesRead()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"getContentType()"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"getDeflateLevel()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExecutionStrategy","l":"getExecutorService(ArtworkWorkload)","u":"getExecutorService(com.revetkn.ios.analyzer.ArtworkWorkload)"},{"p":"com.revetkn.ios.analyzer","c":"ExecutorServiceArtworkExecutionStrategy","l":"getExecutorService(ArtworkWorkload)","u":"getExecutorService(com.revetkn.ios.analyzer.ArtworkWorkload)"},{"p":"com.revetkn.ios.analyzer","c":"ThreadPoolArtworkExecutionStrategy","l":"getExecutorService(ArtworkWorkload)","u":"getExecutorService(com.revetkn.ios.analyzer.ArtworkWorkload)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getExtractionMetrics()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"getFilesTouched()"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"getFilterStrategy()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"getHeight()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"getImageFile()"},{"p":"com.revetkn.ios.analyzer","c":"ProjectFiles","l":"getImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getImageFilesWithIncorrectDeviceSuffix()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"getImageMetrics()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getImageReferenceIndex()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getIncorrectlySizedRetinaImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getMissingStandardApplicationImageFilenames()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getNonretinaImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getNonretinaImageFilesMissingRetinaImages()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getOnlyProjectFileReferencedImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"getPhase()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionMetrics","l":"getPhaseMetrics(ArtworkExtractionPhase)","u":"getPhaseMetrics(com.revetkn.ios.analyzer.ArtworkExtractionPhase)"},{"p":"com.revetkn.ios.analyzer","c":"ImageReferenceIndex","l":"getReferencedImageNames()"},{"p":"com.revetkn.ios.analyzer","c":"ImageReferenceIndex","l":"getReferencedImageNames(File)","u":"getReferencedImageNames(java.io.File)"},{"p":"com.revetkn.ios.analyzer","c":"ProjectFiles","l":"getReferencingFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ImageReferenceIndex","l":"getReferencingFiles(String)","u":"getReferencingFiles(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getRetinaImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getRetinaImageFilesMissingNonretinaImages()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"getSize()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getSizeOfAllImagesFilesInBytes()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getStandardApplicationImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"getTaskQueueWaitTimeInNanoseconds()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"getTasksExecuted()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskLimits","l":"getTaskTimeoutInMillis()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskLimits","l":"getTimeoutInMillis()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"getType()"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"getUnreferencedImageFiles()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionMetrics","l":"getWallTimeInNanoseconds()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"getWallTimeInNanoseconds()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"getWidth()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"hashCode()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"hashCode()"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"hashCode()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"ignoredDirectoryNames()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"IMAGE_WITH_INCORRECT_DEVICE_SUFFIX"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"imageFileSuffixes()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"ImageMetrics(int, int, int, String)","u":"%3Cinit%3E(int,int,int,java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"imageMetricsCacheDirectory()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"imageMetricsCacheMaximumEntries()"},{"p":"com.revetkn.ios.analyzer","c":"ImageReferenceIndex","l":"ImageReferenceIndex()","u":"%3Cinit%3E()"},{"p":"com.revetkn.ios.analyzer","c":"ImageReferenceIndex","l":"ImageReferenceIndex(ImageReferenceIndex)","u":"%3Cinit%3E(com.revetkn.ios.analyzer.ImageReferenceIndex)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"INCORRECTLY_SIZED_RETINA_IMAGE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWorkload","l":"IO"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"ioTaskConcurrency()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"isCancelled()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"isDeadlineExceeded()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskHandle","l":"isDone()"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"isPaletteReduction()"},{"p":"com.revetkn.ios.analyzer","c":"ThreadPoolArtworkExecutionStrategy","l":"isUsingVirtualThreadsForIo()"},{"p":"com.revetkn.ios.analyzer","c":"ThreadPoolArtworkExecutionStrategy","l":"isVirtualThreadSupported()"},{"p":"com.revetkn.ios.analyzer","c":"ResamplingKernel","l":"LANCZOS3"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"maximumScalingBandSizeInPixels()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"MISSING_STANDARD_APPLICATION_IMAGE"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"NONE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskLimits","l":"NONE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"NONRETINA_IMAGE_MISSING_RETINA_IMAGE"},{"p":"com.revetkn.ios.analyzer","c":"ImageReferenceIndex","l":"normalizeImageName(String)","u":"normalizeImageName(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtworkUpdateCallback","l":"onApplicationArtworkUpdated(ApplicationArtwork, ApplicationArtwork, SortedSet<File>, SortedSet<File>, SortedSet<File>)","u":"onApplicationArtworkUpdated(com.revetkn.ios.analyzer.ApplicationArtwork,com.revetkn.ios.analyzer.ApplicationArtwork,java.util.SortedSet,java.util.SortedSet,java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionMetricsListener","l":"onExtractionCompleted(ArtworkExtractionMetrics)","u":"onExtractionCompleted(com.revetkn.ios.analyzer.ArtworkExtractionMetrics)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingsListener","l":"onFinding(ArtworkFinding)","u":"onFinding(com.revetkn.ios.analyzer.ArtworkFinding)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"ONLY_PROJECT_FILE_REFERENCED_IMAGE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingsListener","l":"onPhaseCompleted(ArtworkExtractionPhase)","u":"onPhaseCompleted(com.revetkn.ios.analyzer.ArtworkExtractionPhase)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionMetricsListener","l":"onPhaseCompleted(ArtworkExtractionPhaseMetrics)","u":"onPhaseCompleted(com.revetkn.ios.analyzer.ArtworkExtractionPhaseMetrics)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionProgressCallback","l":"onProcessedImageReferences(File, SortedSet<File>, int, int)","u":"onProcessedImageReferences(java.io.File,java.util.SortedSet,int,int)"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"PAETH"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"PngEncodingOptions(int, PngFilterStrategy, boolean)","u":"%3Cinit%3E(int,com.revetkn.ios.analyzer.PngFilterStrategy,boolean)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"progressiveRetinaImageResampling()"},{"p":"com.revetkn.ios.analyzer","c":"ProjectFiles","l":"ProjectFiles(SortedSet<File>, SortedSet<File>)","u":"%3Cinit%3E(java.util.SortedSet,java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"prunedDirectoryNames()"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"READ"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"referencingFileSuffixes()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"RETINA_IMAGE_MISSING_NONRETINA_IMAGE"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"retinaImageGenerationConcurrency(RetinaImageGenerationStage)","u":"retinaImageGenerationConcurrency(com.revetkn.ios.analyzer.RetinaImageGenerationStage)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"retinaImageGenerationMemoryBudgetInBytes()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"retinaImageGenerationQueueCapacity()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"retinaImagePngEncodingOptions(File, ImageMetrics)","u":"retinaImagePngEncodingOptions(java.io.File,com.revetkn.ios.analyzer.ImageMetrics)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"retinaImageResamplingKernel()"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"SCALE"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setAllImageFiles(SortedSet<File>)","u":"setAllImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setAllImageFilesAndReferencingFiles(SortedMap<File, SortedSet<File>>)","u":"setAllImageFilesAndReferencingFiles(java.util.SortedMap)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setAllImageFilesWithMetrics(SortedMap<File, ImageMetrics>)","u":"setAllImageFilesWithMetrics(java.util.SortedMap)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setExtractionMetrics(ArtworkExtractionMetrics)","u":"setExtractionMetrics(com.revetkn.ios.analyzer.ArtworkExtractionMetrics)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setImageFilesWithIncorrectDeviceSuffix(SortedSet<File>)","u":"setImageFilesWithIncorrectDeviceSuffix(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setImageReferenceIndex(ImageReferenceIndex)","u":"setImageReferenceIndex(com.revetkn.ios.analyzer.ImageReferenceIndex)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setIncorrectlySizedRetinaImageFiles(SortedSet<File>)","u":"setIncorrectlySizedRetinaImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setMissingStandardApplicationImageFilenames(SortedSet<String>)","u":"setMissingStandardApplicationImageFilenames(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setNonretinaImageFiles(SortedSet<File>)","u":"setNonretinaImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setNonretinaImageFilesMissingRetinaImages(SortedSet<File>)","u":"setNonretinaImageFilesMissingRetinaImages(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setOnlyProjectFileReferencedImageFiles(SortedSet<File>)","u":"setOnlyProjectFileReferencedImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setRetinaImageFiles(SortedSet<File>)","u":"setRetinaImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setRetinaImageFilesMissingNonretinaImages(SortedSet<File>)","u":"setRetinaImageFilesMissingNonretinaImages(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setSizeOfAllImagesFilesInBytes(double)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setStandardApplicationImageFiles(SortedSet<File>)","u":"setStandardApplicationImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ApplicationArtwork","l":"setUnreferencedImageFiles(SortedSet<File>)","u":"setUnreferencedImageFiles(java.util.SortedSet)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"shutdown()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExecutionStrategy","l":"shutdown()"},{"p":"com.revetkn.ios.analyzer","c":"ExecutorServiceArtworkExecutionStrategy","l":"shutdown()"},{"p":"com.revetkn.ios.analyzer","c":"ThreadPoolArtworkExecutionStrategy","l":"shutdown()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"skipUpToDateRetinaImages()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"standardApplicationImageFilenames()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWatcher","l":"start()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWatcher","l":"stop()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"streamArtworkFindings(File, ArtworkFindingsListener)","u":"streamArtworkFindings(java.io.File,com.revetkn.ios.analyzer.ArtworkFindingsListener)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"streamReferencingFiles()"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"SUB"},{"p":"com.revetkn.ios.analyzer","c":"ThreadPoolArtworkExecutionStrategy","l":"ThreadPoolArtworkExecutionStrategy(int, int, boolean)","u":"%3Cinit%3E(int,int,boolean)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionMetrics","l":"toString()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhaseMetrics","l":"toString()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFinding","l":"toString()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkTaskLimits","l":"toString()"},{"p":"com.revetkn.ios.analyzer","c":"ImageMetrics","l":"toString()"},{"p":"com.revetkn.ios.analyzer","c":"PngEncodingOptions","l":"toString()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"UNREFERENCED_IMAGE"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"UP"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"updateApplicationArtwork(File, ApplicationArtwork, Set<File>, Set<File>, Set<File>)","u":"updateApplicationArtwork(java.io.File,com.revetkn.ios.analyzer.ApplicationArtwork,java.util.Set,java.util.Set,java.util.Set)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"updateApplicationArtwork(File, ApplicationArtwork, Set<File>, Set<File>, Set<File>, ArtworkExtractionProgressCallback)","u":"updateApplicationArtwork(java.io.File,com.revetkn.ios.analyzer.ApplicationArtwork,java.util.Set,java.util.Set,java.util.Set,com.revetkn.ios.analyzer.ArtworkExtractionProgressCallback)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkAnalyzer","l":"useVirtualThreadsForIoTasks()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWorkload","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ResamplingKernel","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkExtractionPhase","l":"values()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkFindingType","l":"values()"},{"p":"com.revetkn.ios.analyzer","c":"ArtworkWorkload","l":"values()"},{"p":"com.revetkn.ios.analyzer","c":"PngFilterStrategy","l":"values()"},{"p":"com.revetkn.ios.analyzer","c":"ResamplingKernel","l":"values()"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"values()"},{"p":"com.revetkn.ios.analyzer","c":"RetinaImageGenerationStage","l":"WRITE"}];updateSearchResults();
\ No newline at end of file
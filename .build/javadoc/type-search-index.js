@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"com.revetkn.ios.analyzer","l":"ApplicationArtwork"},{"p":"com.revetkn.ios.analyzer","l":"ApplicationArtworkUpdateCallback"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkAnalyzer"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkExecutionStrategy"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkExtractionMetrics"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkExtractionMetricsListener"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkExtractionPhase"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkExtractionPhaseMetrics"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkExtractionProgressCallback"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkFinding"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkFindingsListener"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkFindingType"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkProcessingException"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkTaskHandle"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkTaskLimits"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkWatcher"},{"p":"com.revetkn.ios.analyzer","l":"ArtworkWorkload"},{"p":"com.revetkn.ios.analyzer","l":"ExecutorServiceArtworkExecutionStrategy"},{"p":"com.revetkn.ios.analyzer","l":"ImageMetrics"},{"p":"com.revetkn.ios.analyzer","l":"ImageReferenceIndex"},{"p":"com.revetkn.ios.analyzer","l":"PngEncodingOptions"},{"p":"com.revetkn.ios.analyzer","l":"PngFilterStrategy"},{"p":"com.revetkn.ios.analyzer","l":"ProjectFiles"},{"p":"com.revetkn.ios.analyzer","l":"ResamplingKernel"},{"p":"com.revetkn.ios.analyzer","l":"RetinaImageGenerationProgressCallback"},{"p":"com.revetkn.ios.analyzer","l":"RetinaImageGenerationStage"},{"p":"com.revetkn.ios.analyzer","l":"ThreadPoolArtworkExecutionStrategy"}];updateSearchResults();
\ No newline at end of file
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.SortedSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks each phase of {@link ArtworkAnalyzer#extractApplicationArtwork(File)} in isolation, plus the whole thing
+ * end-to-end, against a {@link SyntheticProjectGenerator synthetic project}.
+ * <p>
+ * Each phase is handed the output of the phases before it, computed once during setup, so only the phase itself is
+ * measured. Run with {@code -prof gc} (the {@code benchmark} Ant target does) to get allocation rates alongside
+ * throughput.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtworkAnalyzerBenchmark {
+  @Param({ "1000" })
+  public int imageCount;
+
+  @Param({ "2000" })
+  public int referencingFileCount;
+
+  @Param({ "8192" })
+  public int referencingFileSizeInBytes;
+
+  @Param({ "32" })
+  public int imageDimension;
+
+  private File projectRootDirectory;
+  private ArtworkAnalyzer artworkAnalyzer;
+  private ApplicationArtwork applicationArtwork;
+  private ArtworkExtractionProgressCallback progressCallback;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    projectRootDirectory = Files.createTempDirectory("artwork-analyzer-benchmark").toFile();
+    new SyntheticProjectGenerator(imageCount, referencingFileCount, referencingFileSizeInBytes, imageDimension)
+      .generate(projectRootDirectory);
+
+    artworkAnalyzer = new ArtworkAnalyzer();
+    applicationArtwork = artworkAnalyzer.extractApplicationArtwork(projectRootDirectory);
+    progressCallback = new ArtworkExtractionProgressCallback() {
+      @Override
+      public void onProcessedImageReferences(File imageFile, SortedSet<File> filesWhereImageIsReferenced,
+          int currentImageFileNumber, int totalImageFiles) {}
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    artworkAnalyzer.shutdown();
+    deleteDirectory(projectRootDirectory);
+  }
+
+  @Benchmark
+  public SortedSet<File> extractAllImageFiles() throws Exception {
+    return artworkAnalyzer.extractAllImageFiles(projectRootDirectory);
+  }
+
+  @Benchmark
+  public ApplicationArtwork detectImageMetrics() throws Exception {
+    ApplicationArtwork applicationArtwork = createApplicationArtworkWithImageFiles();
+    artworkAnalyzer.detectImageMetrics(applicationArtwork);
+    return applicationArtwork;
+  }
+
+  @Benchmark
+  public ApplicationArtwork detectImageReferences() throws Exception {
+    ApplicationArtwork applicationArtwork = createApplicationArtworkWithImageFiles();
+    applicationArtwork.setAllImageFilesWithMetrics(this.applicationArtwork.getAllImageFilesWithMetrics());
+    artworkAnalyzer.detectImageReferences(projectRootDirectory, applicationArtwork, progressCallback);
+    return applicationArtwork;
+  }
+
+  @Benchmark
+  public ApplicationArtwork detectRetinaAndNonretinaImages() {
+    ApplicationArtwork applicationArtwork = createApplicationArtworkWithImageFiles();
+    artworkAnalyzer.detectRetinaAndNonretinaImages(applicationArtwork);
+    return applicationArtwork;
+  }
+
+  @Benchmark
+  public ApplicationArtwork extractApplicationArtwork() {
+    return artworkAnalyzer.extractApplicationArtwork(projectRootDirectory);
+  }
+
+  protected ApplicationArtwork createApplicationArtworkWithImageFiles() {
+    ApplicationArtwork applicationArtwork = new ApplicationArtwork();
+    applicationArtwork.setAllImageFiles(this.applicationArtwork.getAllImageFiles());
+    return applicationArtwork;
+  }
+}
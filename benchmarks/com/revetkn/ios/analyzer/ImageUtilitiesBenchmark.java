@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static com.revetkn.ios.analyzer.ImageType.IMAGE_TYPE_PNG;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the single-image operations in {@link ImageUtilities} which dominate metrics detection and retina image
+ * generation.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageUtilitiesBenchmark {
+  @Param({ "32", "256", "1024" })
+  public int imageDimension;
+
+  @Param({ "BILINEAR", "BICUBIC", "LANCZOS3" })
+  public ResamplingKernel resamplingKernel;
+
+  private File imageFile;
+  private BufferedImage image;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    image =
+        new SyntheticProjectGenerator(0, 0, 0, imageDimension).createImage(imageDimension, imageDimension, new Random(
+          imageDimension));
+    imageFile = Files.createTempFile("image-utilities-benchmark", ".png").toFile();
+    ImageIO.write(image, "png", imageFile);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    imageFile.delete();
+  }
+
+  @Benchmark
+  public ImageMetrics extractImageMetrics() throws Exception {
+    return ImageUtilities.extractImageMetrics(imageFile);
+  }
+
+  @Benchmark
+  public byte[] scaleImageInternal() throws Exception {
+    return ImageUtilities.scaleImageInternal(image, imageDimension * 2, imageDimension * 2, IMAGE_TYPE_PNG,
+      resamplingKernel);
+  }
+}
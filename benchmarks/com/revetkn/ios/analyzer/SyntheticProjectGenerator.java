@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Lays out a synthetic iOS project on disk for benchmarking: a tree of PNG images (some with retina counterparts) and a
+ * tree of source files which reference a subset of them. Output is deterministic for a given set of parameters so runs
+ * are comparable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class SyntheticProjectGenerator {
+  /** Number of files to put in each generated directory. */
+  private static final int FILES_PER_DIRECTORY = 50;
+
+  /** Source file suffixes to cycle through. */
+  private static final String[] REFERENCING_FILE_SUFFIXES = { ".m", ".h", ".xib", ".plist", ".strings" };
+
+  private final int imageCount;
+  private final int referencingFileCount;
+  private final int referencingFileSizeInBytes;
+  private final int imageDimension;
+
+  /**
+   * @param imageCount
+   *          Number of nonretina images to generate. Every other image also gets an {@code @2x} counterpart.
+   * @param referencingFileCount
+   *          Number of source files to generate.
+   * @param referencingFileSizeInBytes
+   *          Approximate size of each generated source file.
+   * @param imageDimension
+   *          Width and height of each nonretina image, in pixels.
+   */
+  SyntheticProjectGenerator(int imageCount, int referencingFileCount, int referencingFileSizeInBytes,
+      int imageDimension) {
+    this.imageCount = imageCount;
+    this.referencingFileCount = referencingFileCount;
+    this.referencingFileSizeInBytes = referencingFileSizeInBytes;
+    this.imageDimension = imageDimension;
+  }
+
+  /**
+   * Generates the project, replacing anything already in {@code projectRootDirectory}.
+   * 
+   * @throws IOException
+   *           If an error occurs while writing files.
+   */
+  void generate(File projectRootDirectory) throws IOException {
+    if (projectRootDirectory == null)
+      throw new NullPointerException("The 'projectRootDirectory' parameter cannot be null.");
+
+    deleteDirectory(projectRootDirectory);
+
+    Random random = new Random(imageCount * 31L + referencingFileCount);
+    BufferedImage image = createImage(imageDimension, imageDimension, random);
+    BufferedImage retinaImage = createImage(imageDimension * 2, imageDimension * 2, random);
+
+    for (int i = 0; i < imageCount; i++) {
+      File directory = new File(projectRootDirectory, format("Images/Group%d", i / FILES_PER_DIRECTORY));
+      directory.mkdirs();
+
+      ImageIO.write(image, "png", new File(directory, imageName(i) + ".png"));
+
+      if (i % 2 == 0)
+        ImageIO.write(retinaImage, "png", new File(directory, imageName(i) + "@2x.png"));
+    }
+
+    for (int i = 0; i < referencingFileCount; i++) {
+      String suffix = REFERENCING_FILE_SUFFIXES[i % REFERENCING_FILE_SUFFIXES.length];
+      File file =
+          new File(projectRootDirectory, format("Classes/Module%d/Source%d%s", i / FILES_PER_DIRECTORY, i, suffix));
+      writeStringToFile(file, createReferencingFileContents(random), "UTF-8");
+    }
+
+    // The project file references every fourth image
+    StringBuilder projectFileContents = new StringBuilder();
+    for (int i = 0; i < imageCount; i += 4)
+      projectFileContents.append(format("\t\tpath = \"%s.png\"; sourceTree = \"<group>\";\n", imageName(i)));
+
+    writeStringToFile(new File(projectRootDirectory, "Synthetic.xcodeproj/project.pbxproj"),
+      projectFileContents.toString(), "UTF-8");
+  }
+
+  /**
+   * Filler source code sprinkled with references to roughly a third of the images, so some are left unreferenced.
+   */
+  protected String createReferencingFileContents(Random random) {
+    StringBuilder contents = new StringBuilder(referencingFileSizeInBytes + 128);
+
+    while (contents.length() < referencingFileSizeInBytes) {
+      if (imageCount > 0 && random.nextInt(8) == 0) {
+        int imageNumber = random.nextInt(imageCount);
+        if (imageNumber % 3 == 0)
+          contents.append(format("  [UIImage imageNamed:@\"%s\"];\n", imageName(imageNumber)));
+      } else {
+        contents.append(format("  self.value%d = [self computeValue:%d withOptions:nil];\n", random.nextInt(1000),
+          random.nextInt()));
+      }
+    }
+
+    return contents.toString();
+  }
+
+  protected String imageName(int imageNumber) {
+    return format("image%d", imageNumber);
+  }
+
+  /**
+   * Gradient with some noise, so PNG encoding and decoding do a realistic amount of work.
+   */
+  protected BufferedImage createImage(int width, int height, Random random) {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+    for (int y = 0; y < height; y++)
+      for (int x = 0; x < width; x++) {
+        int alpha = 0xFF - (x * 0x7F / width);
+        int red = (x * 0xFF / width) ^ random.nextInt(16);
+        int green = (y * 0xFF / height) ^ random.nextInt(16);
+        int blue = ((x + y) * 0xFF / (width + height)) ^ random.nextInt(16);
+        image.setRGB(x, y, alpha << 24 | red << 16 | green << 8 | blue);
+      }
+
+    return image;
+  }
+}
@@ -22,36 +22,127 @@
 
 package com.revetkn.ios.analyzer;
 
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.INCORRECTLY_SIZED_RETINA;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.INCORRECT_DEVICE_SUFFIX;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.NONRETINA;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.NONRETINA_MISSING_RETINA;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.ONLY_PROJECT_FILE_REFERENCED;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.RETINA;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.RETINA_MISSING_NONRETINA;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.STANDARD_APPLICATION;
+import static com.revetkn.ios.analyzer.CompactApplicationArtwork.Category.UNREFERENCED;
+
 import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import com.revetkn.ios.analyzer.CompactApplicationArtwork.Category;
+
 /**
+ * Results of analyzing an iOS project's artwork.
+ * <p>
+ * Results for large projects can be shrunk via {@link #compact()}, which swaps the file collections and the
+ * {@link ImageReferenceIndex} for a compact array-backed form. Getters rebuild a collection from the compact form the
+ * first time it's asked for.
+ * <p>
+ * This class is not threadsafe to populate, but once populated it can be read from any number of threads - rebuilding
+ * a collection after {@link #compact()} happens at most once and is safely published to every reader.
+ * 
  * @author <a href="http://revetkn.com">Mark Allen</a>
  */
 public class ApplicationArtwork {
-  private SortedSet<File> allImageFiles = new TreeSet<File>();
-  private SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles = new TreeMap<File, SortedSet<File>>();
-  private SortedMap<File, ImageMetrics> allImageFilesWithMetrics = new TreeMap<File, ImageMetrics>();
-  private SortedSet<File> unreferencedImageFiles = new TreeSet<File>();
-  private SortedSet<File> onlyProjectFileReferencedImageFiles = new TreeSet<File>();
-  private SortedSet<File> retinaImageFiles = new TreeSet<File>();
-  private SortedSet<File> nonretinaImageFiles = new TreeSet<File>();
-  private SortedSet<File> nonretinaImageFilesMissingRetinaImages = new TreeSet<File>();
-  private SortedSet<File> retinaImageFilesMissingNonretinaImages = new TreeSet<File>();
-  private SortedSet<File> standardApplicationImageFiles = new TreeSet<File>();
+  private volatile SortedSet<File> allImageFiles = new TreeSet<File>();
+  private volatile SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles =
+      new TreeMap<File, SortedSet<File>>();
+  private volatile SortedMap<File, ImageMetrics> allImageFilesWithMetrics = new TreeMap<File, ImageMetrics>();
+  private volatile SortedSet<File> unreferencedImageFiles = new TreeSet<File>();
+  private volatile SortedSet<File> onlyProjectFileReferencedImageFiles = new TreeSet<File>();
+  private volatile SortedSet<File> retinaImageFiles = new TreeSet<File>();
+  private volatile SortedSet<File> nonretinaImageFiles = new TreeSet<File>();
+  private volatile SortedSet<File> nonretinaImageFilesMissingRetinaImages = new TreeSet<File>();
+  private volatile SortedSet<File> retinaImageFilesMissingNonretinaImages = new TreeSet<File>();
+  private volatile SortedSet<File> standardApplicationImageFiles = new TreeSet<File>();
   private SortedSet<String> missingStandardApplicationImageFilenames = new TreeSet<String>();
 
   /** Example: background~iphone.png */
-  private SortedSet<File> imageFilesWithIncorrectDeviceSuffix = new TreeSet<File>();
+  private volatile SortedSet<File> imageFilesWithIncorrectDeviceSuffix = new TreeSet<File>();
 
-  private SortedSet<File> incorrectlySizedRetinaImageFiles = new TreeSet<File>();
+  private volatile SortedSet<File> incorrectlySizedRetinaImageFiles = new TreeSet<File>();
 
   private double sizeOfAllImagesFilesInBytes;
 
+  private volatile ImageReferenceIndex imageReferenceIndex = new ImageReferenceIndex();
+
+  /** Only present for artwork produced by a full extraction. */
+  private ArtworkExtractionMetrics extractionMetrics;
+
+  /**
+   * Backs any file collection that's {@code null} because it hasn't been rebuilt since {@link #compact()}. Only read
+   * or written while holding this object's lock.
+   */
+  private CompactApplicationArtwork compactApplicationArtwork;
+
+  /**
+   * Replaces this artwork's file collections with a compact representation that stores each file once, keeps
+   * categories like {@link #getRetinaImageFiles()} as bitsets and keeps metrics and the {@link ImageReferenceIndex} in
+   * primitive arrays. Each getter
+   * rebuilds its collection on first use and hangs on to it from then on, so callers which only look at a few
+   * collections never pay for the rest.
+   * <p>
+   * Collections rebuilt from the compact representation are equal to, but not the same instances as, the ones they
+   * replace. {@link #getMissingStandardApplicationImageFilenames()}, which only ever holds a handful of names, is left
+   * as-is.
+   * 
+   * @throws NullPointerException
+   *           If any file collection has been set to {@code null}.
+   */
+  public synchronized void compact() {
+    Map<Category, SortedSet<File>> categories = new EnumMap<Category, SortedSet<File>>(Category.class);
+    categories.put(UNREFERENCED, getUnreferencedImageFiles());
+    categories.put(ONLY_PROJECT_FILE_REFERENCED, getOnlyProjectFileReferencedImageFiles());
+    categories.put(RETINA, getRetinaImageFiles());
+    categories.put(NONRETINA, getNonretinaImageFiles());
+    categories.put(NONRETINA_MISSING_RETINA, getNonretinaImageFilesMissingRetinaImages());
+    categories.put(RETINA_MISSING_NONRETINA, getRetinaImageFilesMissingNonretinaImages());
+    categories.put(STANDARD_APPLICATION, getStandardApplicationImageFiles());
+    categories.put(INCORRECT_DEVICE_SUFFIX, getImageFilesWithIncorrectDeviceSuffix());
+    categories.put(INCORRECTLY_SIZED_RETINA, getIncorrectlySizedRetinaImageFiles());
+
+    compactApplicationArtwork =
+        new CompactApplicationArtwork(getAllImageFiles(), getAllImageFilesAndReferencingFiles(),
+          getAllImageFilesWithMetrics(), categories, getImageReferenceIndex());
+
+    allImageFiles = null;
+    allImageFilesAndReferencingFiles = null;
+    allImageFilesWithMetrics = null;
+    unreferencedImageFiles = null;
+    onlyProjectFileReferencedImageFiles = null;
+    retinaImageFiles = null;
+    nonretinaImageFiles = null;
+    nonretinaImageFilesMissingRetinaImages = null;
+    retinaImageFilesMissingNonretinaImages = null;
+    standardApplicationImageFiles = null;
+    imageFilesWithIncorrectDeviceSuffix = null;
+    incorrectlySizedRetinaImageFiles = null;
+    imageReferenceIndex = null;
+  }
+
   public SortedSet<File> getAllImageFiles() {
+    SortedSet<File> allImageFiles = this.allImageFiles;
+
+    if (allImageFiles == null) {
+      synchronized (this) {
+        if (this.allImageFiles == null && compactApplicationArtwork != null)
+          this.allImageFiles = compactApplicationArtwork.getAllImageFiles();
+
+        allImageFiles = this.allImageFiles;
+      }
+    }
+
     return allImageFiles;
   }
 
@@ -60,6 +151,17 @@ public class ApplicationArtwork {
   }
 
   public SortedMap<File, SortedSet<File>> getAllImageFilesAndReferencingFiles() {
+    SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles = this.allImageFilesAndReferencingFiles;
+
+    if (allImageFilesAndReferencingFiles == null) {
+      synchronized (this) {
+        if (this.allImageFilesAndReferencingFiles == null && compactApplicationArtwork != null)
+          this.allImageFilesAndReferencingFiles = compactApplicationArtwork.getAllImageFilesAndReferencingFiles();
+
+        allImageFilesAndReferencingFiles = this.allImageFilesAndReferencingFiles;
+      }
+    }
+
     return allImageFilesAndReferencingFiles;
   }
 
@@ -68,6 +170,17 @@ public class ApplicationArtwork {
   }
 
   public SortedMap<File, ImageMetrics> getAllImageFilesWithMetrics() {
+    SortedMap<File, ImageMetrics> allImageFilesWithMetrics = this.allImageFilesWithMetrics;
+
+    if (allImageFilesWithMetrics == null) {
+      synchronized (this) {
+        if (this.allImageFilesWithMetrics == null && compactApplicationArtwork != null)
+          this.allImageFilesWithMetrics = compactApplicationArtwork.getAllImageFilesWithMetrics();
+
+        allImageFilesWithMetrics = this.allImageFilesWithMetrics;
+      }
+    }
+
     return allImageFilesWithMetrics;
   }
 
@@ -76,6 +189,17 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getUnreferencedImageFiles() {
+    SortedSet<File> unreferencedImageFiles = this.unreferencedImageFiles;
+
+    if (unreferencedImageFiles == null) {
+      synchronized (this) {
+        if (this.unreferencedImageFiles == null && compactApplicationArtwork != null)
+          this.unreferencedImageFiles = compactApplicationArtwork.getImageFiles(UNREFERENCED);
+
+        unreferencedImageFiles = this.unreferencedImageFiles;
+      }
+    }
+
     return unreferencedImageFiles;
   }
 
@@ -84,6 +208,18 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getOnlyProjectFileReferencedImageFiles() {
+    SortedSet<File> onlyProjectFileReferencedImageFiles = this.onlyProjectFileReferencedImageFiles;
+
+    if (onlyProjectFileReferencedImageFiles == null) {
+      synchronized (this) {
+        if (this.onlyProjectFileReferencedImageFiles == null && compactApplicationArtwork != null)
+          this.onlyProjectFileReferencedImageFiles =
+              compactApplicationArtwork.getImageFiles(ONLY_PROJECT_FILE_REFERENCED);
+
+        onlyProjectFileReferencedImageFiles = this.onlyProjectFileReferencedImageFiles;
+      }
+    }
+
     return onlyProjectFileReferencedImageFiles;
   }
 
@@ -92,6 +228,17 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getRetinaImageFiles() {
+    SortedSet<File> retinaImageFiles = this.retinaImageFiles;
+
+    if (retinaImageFiles == null) {
+      synchronized (this) {
+        if (this.retinaImageFiles == null && compactApplicationArtwork != null)
+          this.retinaImageFiles = compactApplicationArtwork.getImageFiles(RETINA);
+
+        retinaImageFiles = this.retinaImageFiles;
+      }
+    }
+
     return retinaImageFiles;
   }
 
@@ -100,6 +247,17 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getNonretinaImageFiles() {
+    SortedSet<File> nonretinaImageFiles = this.nonretinaImageFiles;
+
+    if (nonretinaImageFiles == null) {
+      synchronized (this) {
+        if (this.nonretinaImageFiles == null && compactApplicationArtwork != null)
+          this.nonretinaImageFiles = compactApplicationArtwork.getImageFiles(NONRETINA);
+
+        nonretinaImageFiles = this.nonretinaImageFiles;
+      }
+    }
+
     return nonretinaImageFiles;
   }
 
@@ -108,6 +266,18 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getNonretinaImageFilesMissingRetinaImages() {
+    SortedSet<File> nonretinaImageFilesMissingRetinaImages = this.nonretinaImageFilesMissingRetinaImages;
+
+    if (nonretinaImageFilesMissingRetinaImages == null) {
+      synchronized (this) {
+        if (this.nonretinaImageFilesMissingRetinaImages == null && compactApplicationArtwork != null)
+          this.nonretinaImageFilesMissingRetinaImages =
+              compactApplicationArtwork.getImageFiles(NONRETINA_MISSING_RETINA);
+
+        nonretinaImageFilesMissingRetinaImages = this.nonretinaImageFilesMissingRetinaImages;
+      }
+    }
+
     return nonretinaImageFilesMissingRetinaImages;
   }
 
@@ -116,6 +286,18 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getRetinaImageFilesMissingNonretinaImages() {
+    SortedSet<File> retinaImageFilesMissingNonretinaImages = this.retinaImageFilesMissingNonretinaImages;
+
+    if (retinaImageFilesMissingNonretinaImages == null) {
+      synchronized (this) {
+        if (this.retinaImageFilesMissingNonretinaImages == null && compactApplicationArtwork != null)
+          this.retinaImageFilesMissingNonretinaImages =
+              compactApplicationArtwork.getImageFiles(RETINA_MISSING_NONRETINA);
+
+        retinaImageFilesMissingNonretinaImages = this.retinaImageFilesMissingNonretinaImages;
+      }
+    }
+
     return retinaImageFilesMissingNonretinaImages;
   }
 
@@ -124,6 +306,17 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getStandardApplicationImageFiles() {
+    SortedSet<File> standardApplicationImageFiles = this.standardApplicationImageFiles;
+
+    if (standardApplicationImageFiles == null) {
+      synchronized (this) {
+        if (this.standardApplicationImageFiles == null && compactApplicationArtwork != null)
+          this.standardApplicationImageFiles = compactApplicationArtwork.getImageFiles(STANDARD_APPLICATION);
+
+        standardApplicationImageFiles = this.standardApplicationImageFiles;
+      }
+    }
+
     return standardApplicationImageFiles;
   }
 
@@ -140,6 +333,17 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getImageFilesWithIncorrectDeviceSuffix() {
+    SortedSet<File> imageFilesWithIncorrectDeviceSuffix = this.imageFilesWithIncorrectDeviceSuffix;
+
+    if (imageFilesWithIncorrectDeviceSuffix == null) {
+      synchronized (this) {
+        if (this.imageFilesWithIncorrectDeviceSuffix == null && compactApplicationArtwork != null)
+          this.imageFilesWithIncorrectDeviceSuffix = compactApplicationArtwork.getImageFiles(INCORRECT_DEVICE_SUFFIX);
+
+        imageFilesWithIncorrectDeviceSuffix = this.imageFilesWithIncorrectDeviceSuffix;
+      }
+    }
+
     return imageFilesWithIncorrectDeviceSuffix;
   }
 
@@ -148,6 +352,17 @@ public class ApplicationArtwork {
   }
 
   public SortedSet<File> getIncorrectlySizedRetinaImageFiles() {
+    SortedSet<File> incorrectlySizedRetinaImageFiles = this.incorrectlySizedRetinaImageFiles;
+
+    if (incorrectlySizedRetinaImageFiles == null) {
+      synchronized (this) {
+        if (this.incorrectlySizedRetinaImageFiles == null && compactApplicationArtwork != null)
+          this.incorrectlySizedRetinaImageFiles = compactApplicationArtwork.getImageFiles(INCORRECTLY_SIZED_RETINA);
+
+        incorrectlySizedRetinaImageFiles = this.incorrectlySizedRetinaImageFiles;
+      }
+    }
+
     return incorrectlySizedRetinaImageFiles;
   }
 
@@ -162,4 +377,31 @@ public class ApplicationArtwork {
   public void setSizeOfAllImagesFilesInBytes(double sizeOfAllImagesFilesInBytes) {
     this.sizeOfAllImagesFilesInBytes = sizeOfAllImagesFilesInBytes;
   }
-}
\ No newline at end of file
+
+  public ImageReferenceIndex getImageReferenceIndex() {
+    ImageReferenceIndex imageReferenceIndex = this.imageReferenceIndex;
+
+    if (imageReferenceIndex == null) {
+      synchronized (this) {
+        if (this.imageReferenceIndex == null && compactApplicationArtwork != null)
+          this.imageReferenceIndex = compactApplicationArtwork.getImageReferenceIndex();
+
+        imageReferenceIndex = this.imageReferenceIndex;
+      }
+    }
+
+    return imageReferenceIndex;
+  }
+
+  public void setImageReferenceIndex(ImageReferenceIndex imageReferenceIndex) {
+    this.imageReferenceIndex = imageReferenceIndex;
+  }
+
+  public ArtworkExtractionMetrics getExtractionMetrics() {
+    return extractionMetrics;
+  }
+
+  public void setExtractionMetrics(ArtworkExtractionMetrics extractionMetrics) {
+    this.extractionMetrics = extractionMetrics;
+  }
+}
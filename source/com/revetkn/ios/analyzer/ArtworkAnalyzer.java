@@ -22,25 +22,70 @@
 
 package com.revetkn.ios.analyzer;
 
-import static com.revetkn.ios.analyzer.ImageType.IMAGE_TYPE_PNG;
+import static com.revetkn.ios.analyzer.ArtworkExtractionPhase.DETECT_IMAGE_METRICS;
+import static com.revetkn.ios.analyzer.ArtworkExtractionPhase.DETECT_IMAGE_REFERENCES;
+import static com.revetkn.ios.analyzer.ArtworkExtractionPhase.DETECT_RETINA_AND_NONRETINA_IMAGES;
+import static com.revetkn.ios.analyzer.ArtworkExtractionPhase.DETECT_STANDARD_APPLICATION_IMAGES;
+import static com.revetkn.ios.analyzer.ArtworkExtractionPhase.EXTRACT_ALL_IMAGE_FILES;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.IMAGE_WITH_INCORRECT_DEVICE_SUFFIX;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.INCORRECTLY_SIZED_RETINA_IMAGE;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.MISSING_STANDARD_APPLICATION_IMAGE;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.NONRETINA_IMAGE_MISSING_RETINA_IMAGE;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.ONLY_PROJECT_FILE_REFERENCED_IMAGE;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.RETINA_IMAGE_MISSING_NONRETINA_IMAGE;
+import static com.revetkn.ios.analyzer.ArtworkFindingType.UNREFERENCED_IMAGE;
+import static com.revetkn.ios.analyzer.ArtworkWorkload.CPU;
+import static com.revetkn.ios.analyzer.ArtworkWorkload.IO;
+import static com.revetkn.ios.analyzer.ImageUtilities.IMAGE_MEMORY_MAPPING_THRESHOLD_IN_BYTES;
+import static com.revetkn.ios.analyzer.ImageUtilities.decodeImage;
+import static com.revetkn.ios.analyzer.ImageUtilities.readImageFile;
 import static com.revetkn.ios.analyzer.ImageUtilities.scaleImageUpToFit;
+import static com.revetkn.ios.analyzer.ImageUtilities.scaleImageUpToFitInBands;
+import static com.revetkn.ios.analyzer.ImageUtilities.writeImageFile;
+import static com.revetkn.ios.analyzer.ImageUtilities.writePng;
+import static com.revetkn.ios.analyzer.RetinaImageGenerationStage.DECODE;
+import static com.revetkn.ios.analyzer.RetinaImageGenerationStage.ENCODE;
+import static com.revetkn.ios.analyzer.RetinaImageGenerationStage.READ;
+import static com.revetkn.ios.analyzer.RetinaImageGenerationStage.SCALE;
+import static com.revetkn.ios.analyzer.RetinaImageGenerationStage.WRITE;
 import static java.io.File.separator;
+import static java.lang.Math.min;
 import static java.lang.Runtime.getRuntime;
 import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.Files.walkFileTree;
 import static java.util.Collections.emptySet;
-import static java.util.Collections.synchronizedSortedMap;
-import static java.util.Collections.synchronizedSortedSet;
-import static java.util.concurrent.TimeUnit.SECONDS;
-import static org.apache.commons.io.FileUtils.listFiles;
-import static org.apache.commons.io.FileUtils.readFileToByteArray;
 import static org.apache.commons.io.FileUtils.readFileToString;
-import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
+import static org.apache.commons.io.IOUtils.closeQuietly;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -51,14 +96,10 @@ import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.apache.commons.io.filefilter.NameFileFilter;
-import org.apache.commons.io.filefilter.NotFileFilter;
-import org.apache.commons.io.filefilter.SuffixFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.commons.io.input.CountingInputStream;
 
 /**
  * Performs artwork analysis and retina image generation for an iOS project.
@@ -66,6 +107,10 @@ import org.apache.commons.io.filefilter.TrueFileFilter;
  * <ul>
  * <li>Use {@link #extractApplicationArtwork(File)} to analyze and return data for all artwork in the supplied iOS
  * project directory.</li>
+ * <li>Use {@link #updateApplicationArtwork(File, ApplicationArtwork, Set, Set, Set)} to bring a previous analysis up to
+ * date after some files have changed.</li>
+ * <li>Use {@link #streamArtworkFindings(File, ArtworkFindingsListener)} to report just the problems with the supplied
+ * iOS project's artwork as they're found, without holding on to everything else.</li>
  * <li>Use {@link #generateRetinaImages(Iterable, File)} to create retina images given a set of nonretina images.</li>
  * </ul>
  * <p>
@@ -74,8 +119,19 @@ import org.apache.commons.io.filefilter.TrueFileFilter;
  * @author <a href="http://revetkn.com">Mark Allen</a>
  */
 public class ArtworkAnalyzer {
-  /** Backing thread pool used for concurrent execution of image processing tasks. */
-  private ExecutorService executorService;
+  /** Decides which executors concurrent image processing tasks run on. */
+  private final ArtworkExecutionStrategy executionStrategy;
+
+  /** Metrics for the extraction running on the current thread, if any. */
+  private final ThreadLocal<ArtworkExtractionMetrics> currentExtractionMetrics =
+      new ThreadLocal<ArtworkExtractionMetrics>();
+
+  /** Metrics for the extraction phase running on the current thread, if any. Carried over to the phase's tasks. */
+  private final ThreadLocal<ArtworkExtractionPhaseMetrics> currentPhaseMetrics =
+      new ThreadLocal<ArtworkExtractionPhaseMetrics>();
+
+  /** Timeouts for the tasks handed out by the asynchronous run on the current thread, if any. */
+  private final ThreadLocal<TaskTimeouts> currentTaskTimeouts = new ThreadLocal<TaskTimeouts>();
 
   /** Suffixes for files which may reference images. */
   private static final Set<String> REFERENCING_FILE_SUFFIXES = new HashSet<String>() {
@@ -120,18 +176,74 @@ public class ArtworkAnalyzer {
     }
   };
 
+  /** How many image files the image metrics cache remembers by default. */
+  private static final int DEFAULT_IMAGE_METRICS_CACHE_MAXIMUM_ENTRIES = 100000;
+
+  /** How many I/O-bound tasks to run at once per available processor by default. */
+  private static final int DEFAULT_IO_TASK_CONCURRENCY_PER_PROCESSOR = 4;
+
+  /** How many images the disk-bound retina image generation stages work on at once by default. */
+  private static final int DEFAULT_RETINA_IMAGE_GENERATION_IO_CONCURRENCY = 2;
+
+  /** Retina images with more pixels than this are generated in bands by default. */
+  private static final long DEFAULT_BANDED_SCALING_THRESHOLD_IN_PIXELS = 2048 * 2048;
+
+  /** How many pixels a banded scaling task holds in memory at once by default. */
+  private static final long DEFAULT_MAXIMUM_SCALING_BAND_SIZE_IN_PIXELS = 1024 * 1024;
+
+  /** How many findings may wait for a slow findings listener by default. */
+  private static final int DEFAULT_ARTWORK_FINDINGS_BUFFER_CAPACITY = 1024;
+
+  /** How many files are worked on at a time by default when streaming findings. */
+  private static final int DEFAULT_ARTWORK_FINDINGS_BATCH_SIZE = 1024;
+
   /** Directories to skip over when detecting images */
   private static final Set<String> IGNORED_DIRECTORY_NAMES = emptySet();
 
+  /** Referencing files at least this big are memory-mapped for scanning rather than read onto the heap. */
+  private static final int MEMORY_MAPPING_THRESHOLD_IN_BYTES = 256 * 1024;
+
+  /** How much of a referencing file to look at when deciding whether it's UTF-16. */
+  private static final int UTF16_DETECTION_SAMPLE_SIZE_IN_BYTES = 512;
+
+  /** Directories which are never worth looking inside. */
+  private static final Set<String> PRUNED_DIRECTORY_NAMES = new HashSet<String>() {
+    {
+      add(".git");
+      add(".svn");
+      add(".hg");
+      add("Pods");
+      add("DerivedData");
+    }
+  };
+
   /**
-   * Creates a new artwork analyzer.
+   * Creates a new artwork analyzer, which runs concurrent tasks on executors of its own - see
+   * {@link #createExecutionStrategy()}.
    */
   public ArtworkAnalyzer() {
-    this.executorService = createExecutorService();
+    this.executionStrategy = createExecutionStrategy();
+  }
+
+  /**
+   * Creates a new artwork analyzer which runs concurrent tasks on the executors chosen by {@code executionStrategy}.
+   * 
+   * @throws NullPointerException
+   *           If {@code executionStrategy} is {@code null}.
+   */
+  public ArtworkAnalyzer(ArtworkExecutionStrategy executionStrategy) {
+    if (executionStrategy == null)
+      throw new NullPointerException("The 'executionStrategy' parameter cannot be null.");
+
+    this.executionStrategy = executionStrategy;
   }
 
+  /**
+   * Shuts down the executors this analyzer created. Executors handed to it through an
+   * {@link ExecutorServiceArtworkExecutionStrategy} are left running.
+   */
   public void shutdown() {
-    getExecutorService().shutdown();
+    getExecutionStrategy().shutdown();
   }
 
   /**
@@ -168,20 +280,522 @@ public class ArtworkAnalyzer {
     if (progressCallback == null)
       throw new NullPointerException("The 'progressCallback' parameter cannot be null.");
 
+    ArtworkExtractionMetrics extractionMetrics = new ArtworkExtractionMetrics();
+    currentExtractionMetrics.set(extractionMetrics);
+
     try {
       ApplicationArtwork applicationArtwork = new ApplicationArtwork();
-      applicationArtwork.setAllImageFiles(extractAllImageFiles(projectRootDirectory));
 
+      // One walk finds both the images and the files that might reference them
+      beginPhase(EXTRACT_ALL_IMAGE_FILES);
+      ProjectFiles projectFiles = extractProjectFiles(projectRootDirectory);
+      applicationArtwork.setAllImageFiles(projectFiles.getImageFiles());
+      endPhase();
+
+      beginPhase(DETECT_IMAGE_METRICS);
       detectImageMetrics(applicationArtwork);
-      detectImageReferences(projectRootDirectory, applicationArtwork, progressCallback);
-      detectRetinaAndNonretinaImages(applicationArtwork);
-      detectStandardApplicationImages(applicationArtwork);
+      endPhase();
+
+      beginPhase(DETECT_IMAGE_REFERENCES);
+      detectImageReferences(projectFiles.getReferencingFiles(), applicationArtwork, progressCallback);
+      endPhase();
+
+      detectImageFileNamingAndSizingIssues(applicationArtwork);
+
+      if (compactApplicationArtwork())
+        applicationArtwork.compact();
+
+      extractionMetrics.stop();
+      applicationArtwork.setExtractionMetrics(extractionMetrics);
+
+      ArtworkExtractionMetricsListener extractionMetricsListener = artworkExtractionMetricsListener();
+      if (extractionMetricsListener != null)
+        extractionMetricsListener.onExtractionCompleted(extractionMetrics);
+
+      return applicationArtwork;
+    } catch (Throwable throwable) {
+      throw new ArtworkProcessingException(throwable);
+    } finally {
+      currentExtractionMetrics.remove();
+      currentPhaseMetrics.remove();
+    }
+  }
+
+  /**
+   * Starts {@link #extractApplicationArtwork(File, ArtworkExtractionProgressCallback)} on a thread of its own and
+   * returns straight away. The returned handle can cancel the run, and {@code artworkTaskLimits} can put a deadline on
+   * it and a timeout on each of its tasks. Progress callbacks happen on the run's thread.
+   * 
+   * @return Handle on the run, which completes with the analysis.
+   * @throws NullPointerException
+   *           If {@code progressCallback} or {@code artworkTaskLimits} is {@code null}. Other problems with the
+   *           arguments are reported through the returned handle.
+   */
+  public ArtworkTaskHandle<ApplicationArtwork> extractApplicationArtworkAsync(final File projectRootDirectory,
+      final ArtworkExtractionProgressCallback progressCallback, ArtworkTaskLimits artworkTaskLimits) {
+    if (progressCallback == null)
+      throw new NullPointerException("The 'progressCallback' parameter cannot be null.");
+    if (artworkTaskLimits == null)
+      throw new NullPointerException("The 'artworkTaskLimits' parameter cannot be null.");
+
+    ArtworkTaskHandle<ApplicationArtwork> artworkTaskHandle =
+        new ArtworkTaskHandle<ApplicationArtwork>("artwork-extraction",
+          new ArtworkTaskHandle.Work<ApplicationArtwork>() {
+            @Override
+            public ApplicationArtwork run(TaskTimeouts taskTimeouts) {
+              currentTaskTimeouts.set(taskTimeouts);
+
+              try {
+                return extractApplicationArtwork(projectRootDirectory, progressCallback);
+              } finally {
+                currentTaskTimeouts.remove();
+              }
+            }
+          }, artworkTaskLimits);
+
+    artworkTaskHandle.start();
+
+    return artworkTaskHandle;
+  }
+
+  /**
+   * Scans the given iOS project root directory for problems with its artwork, passing each one to
+   * {@code findingsListener} as soon as it's found rather than building up an {@link ApplicationArtwork}. Problems
+   * which only depend on filenames - missing retina or nonretina counterparts, incorrect device suffixes and missing
+   * standard application images - are reported straight after the project is walked, incorrectly sized retina images
+   * as their metrics are read, and unreferenced images once every referencing file has been scanned.
+   * <p>
+   * Memory use depends on how many files the project has, not on how much there is to say about them. Metrics are
+   * only read for retina images and are dropped once they've been checked, files are worked on
+   * {@link #artworkFindingsBatchSize()} at a time, and all that's kept of the references is whether each image has
+   * any. The image files themselves are still held throughout, since an image can't be known to be unreferenced until
+   * the last referencing file has been scanned.
+   * 
+   * @return Timing and counters for each phase of the scan.
+   * @throws ArtworkProcessingException
+   *           If an error occurs during analysis, or {@code findingsListener} throws. Findings not yet delivered are
+   *           discarded.
+   */
+  public ArtworkExtractionMetrics streamArtworkFindings(File projectRootDirectory,
+      ArtworkFindingsListener findingsListener) {
+    if (projectRootDirectory == null)
+      throw new NullPointerException("The 'projectRootDirectory' parameter cannot be null.");
+    if (!projectRootDirectory.exists())
+      throw new IllegalArgumentException(format("Directory '%s' does not exist.", projectRootDirectory));
+    if (!projectRootDirectory.isDirectory())
+      throw new IllegalArgumentException(format("'%s' is a regular file - it must be a directory.",
+        projectRootDirectory));
+    if (findingsListener == null)
+      throw new NullPointerException("The 'findingsListener' parameter cannot be null.");
+
+    ArtworkExtractionMetrics extractionMetrics = new ArtworkExtractionMetrics();
+    currentExtractionMetrics.set(extractionMetrics);
+
+    ArtworkFindingsPublisher findingsPublisher =
+        new ArtworkFindingsPublisher(findingsListener, artworkFindingsBufferCapacity());
+    findingsPublisher.start();
+    boolean finished = false;
+
+    try {
+      beginPhase(EXTRACT_ALL_IMAGE_FILES);
+      ProjectFiles projectFiles = extractProjectFiles(projectRootDirectory);
+      endPhase();
+      findingsPublisher.publishPhaseCompleted(EXTRACT_ALL_IMAGE_FILES);
+
+      SortedSet<File> imageFiles = projectFiles.getImageFiles();
+
+      // Filenames alone are enough for these, so get them out before any images or referencing files are read
+      beginPhase(DETECT_RETINA_AND_NONRETINA_IMAGES);
+      publishRetinaAndNonretinaImageFindings(imageFiles, findingsPublisher);
+      endPhase();
+      findingsPublisher.publishPhaseCompleted(DETECT_RETINA_AND_NONRETINA_IMAGES);
+
+      beginPhase(DETECT_STANDARD_APPLICATION_IMAGES);
+      publishStandardApplicationImageFindings(imageFiles, findingsPublisher);
+      endPhase();
+      findingsPublisher.publishPhaseCompleted(DETECT_STANDARD_APPLICATION_IMAGES);
+
+      beginPhase(DETECT_IMAGE_METRICS);
+      publishImageMetricsFindings(imageFiles, findingsPublisher);
+      endPhase();
+      findingsPublisher.publishPhaseCompleted(DETECT_IMAGE_METRICS);
+
+      beginPhase(DETECT_IMAGE_REFERENCES);
+      publishImageReferenceFindings(imageFiles, projectFiles.getReferencingFiles(), findingsPublisher);
+      endPhase();
+      findingsPublisher.publishPhaseCompleted(DETECT_IMAGE_REFERENCES);
+
+      findingsPublisher.finish();
+      finished = true;
+
+      extractionMetrics.stop();
+
+      ArtworkExtractionMetricsListener extractionMetricsListener = artworkExtractionMetricsListener();
+      if (extractionMetricsListener != null)
+        extractionMetricsListener.onExtractionCompleted(extractionMetrics);
+
+      return extractionMetrics;
+    } catch (Throwable throwable) {
+      throw new ArtworkProcessingException(throwable);
+    } finally {
+      if (!finished)
+        findingsPublisher.abort();
+
+      currentExtractionMetrics.remove();
+      currentPhaseMetrics.remove();
+    }
+  }
+
+  /**
+   * Publishes images without a retina or nonretina counterpart, pairing images the same way as
+   * {@link #detectRetinaAndNonretinaImages(ApplicationArtwork)}.
+   */
+  private void publishRetinaAndNonretinaImageFindings(SortedSet<File> imageFiles,
+      ArtworkFindingsPublisher findingsPublisher) throws InterruptedException {
+    Set<String> allImageFilenames = new HashSet<String>(extractFilenames(imageFiles));
+
+    for (File imageFile : imageFiles) {
+      String imageFilename = imageFile.getAbsolutePath();
+
+      if (imageFilename.lastIndexOf("@2x") == -1) {
+        if (!allImageFilenames.contains(retinaImageFilename(imageFilename)))
+          findingsPublisher.publish(new ArtworkFinding(NONRETINA_IMAGE_MISSING_RETINA_IMAGE, imageFile, null));
+      } else if (!allImageFilenames.contains(imageFilename.replace("@2x", ""))) {
+        findingsPublisher.publish(new ArtworkFinding(RETINA_IMAGE_MISSING_NONRETINA_IMAGE, imageFile, null));
+      }
+    }
+  }
+
+  /** Publishes images with an incorrect device suffix and standard application images the project doesn't have. */
+  private void publishStandardApplicationImageFindings(SortedSet<File> imageFiles,
+      ArtworkFindingsPublisher findingsPublisher) throws InterruptedException {
+    Set<String> standardApplicationImageFilenames = standardApplicationImageFilenames();
+    SortedSet<String> missingStandardApplicationImageFilenames =
+        new TreeSet<String>(standardApplicationImageFilenames);
+
+    for (File imageFile : imageFiles) {
+      if (standardApplicationImageFilenames.contains(imageFile.getName()))
+        missingStandardApplicationImageFilenames.remove(imageFile.getName());
+      if (imageFile.getName().contains("~iphone"))
+        findingsPublisher.publish(new ArtworkFinding(IMAGE_WITH_INCORRECT_DEVICE_SUFFIX, imageFile, null));
+    }
+
+    for (String missingStandardApplicationImageFilename : missingStandardApplicationImageFilenames)
+      findingsPublisher.publish(new ArtworkFinding(MISSING_STANDARD_APPLICATION_IMAGE, new File(
+        missingStandardApplicationImageFilename), null));
+  }
+
+  /**
+   * Publishes retina images with an odd width or height. Only retina images' metrics are read, a batch at a time, and
+   * none are kept.
+   */
+  private void publishImageMetricsFindings(SortedSet<File> imageFiles, ArtworkFindingsPublisher findingsPublisher)
+      throws Exception {
+    List<File> retinaImageFiles = new ArrayList<File>();
+
+    for (File imageFile : imageFiles)
+      if (imageFile.getAbsolutePath().lastIndexOf("@2x") != -1)
+        retinaImageFiles.add(imageFile);
+
+    ImageMetricsCache imageMetricsCache = loadImageMetricsCache();
+    LongAdder sizeOfImageFilesInBytes = new LongAdder();
+    int batchSize = artworkFindingsBatchSize();
+
+    for (int i = 0; i < retinaImageFiles.size(); i += batchSize) {
+      List<File> batch = retinaImageFiles.subList(i, min(retinaImageFiles.size(), i + batchSize));
+
+      for (Entry<File, ImageMetrics> entry : extractImageMetrics(batch, imageMetricsCache, sizeOfImageFilesInBytes)
+        .entrySet()) {
+        ImageMetrics imageMetrics = entry.getValue();
+
+        if (imageMetrics != null && (imageMetrics.getWidth() % 2 != 0 || imageMetrics.getHeight() % 2 != 0))
+          findingsPublisher.publish(new ArtworkFinding(INCORRECTLY_SIZED_RETINA_IMAGE, entry.getKey(), imageMetrics));
+      }
+    }
+
+    if (imageMetricsCache != null)
+      imageMetricsCache.save();
+  }
+
+  /**
+   * Publishes images which aren't referenced, or are only referenced by the project file, classifying them the same
+   * way as {@link #applyImageReferences(ApplicationArtwork, Map, ArtworkExtractionProgressCallback)}. Referencing
+   * files are scanned a batch at a time, and only whether each image's sole reference so far is from a project file
+   * is kept.
+   */
+  private void publishImageReferenceFindings(SortedSet<File> imageFiles, Collection<File> referencingFiles,
+      ArtworkFindingsPublisher findingsPublisher) throws Exception {
+    ReferenceTokenizer<File> imageReferenceTokenizer = createImageReferenceTokenizer(imageFiles);
+    Map<File, Boolean> referencedImageFilesToOnlyProjectFileReferenced = new HashMap<File, Boolean>();
+    List<File> referencingFilesToScan = new ArrayList<File>(referencingFiles);
+    int batchSize = artworkFindingsBatchSize();
+
+    for (int i = 0; i < referencingFilesToScan.size(); i += batchSize) {
+      List<File> batch = referencingFilesToScan.subList(i, min(referencingFilesToScan.size(), i + batchSize));
+
+      for (Entry<File, Set<File>> entry : scanReferencingFiles(batch, imageReferenceTokenizer).entrySet()) {
+        boolean projectFile = "project.pbxproj".equals(entry.getKey().getName().toLowerCase());
+
+        for (File imageFile : entry.getValue())
+          referencedImageFilesToOnlyProjectFileReferenced.put(imageFile,
+            projectFile && !referencedImageFilesToOnlyProjectFileReferenced.containsKey(imageFile));
+      }
+    }
+
+    for (File imageFile : imageFiles) {
+      Boolean onlyProjectFileReferenced = referencedImageFilesToOnlyProjectFileReferenced.get(imageFile);
+
+      if (onlyProjectFileReferenced == null)
+        findingsPublisher.publish(new ArtworkFinding(UNREFERENCED_IMAGE, imageFile, null));
+      else if (onlyProjectFileReferenced)
+        findingsPublisher.publish(new ArtworkFinding(ONLY_PROJECT_FILE_REFERENCED_IMAGE, imageFile, null));
+    }
+  }
+
+  /**
+   * Brings a previous analysis of the given iOS project root directory up to date, given the files that changed since
+   * it was performed. Only the affected parts of the analysis are recomputed - metrics for changed images, references
+   * in changed referencing files and references to newly-added images - so this is much faster than
+   * {@link #extractApplicationArtwork(File)} for small changes.
+   * 
+   * @see #updateApplicationArtwork(File, ApplicationArtwork, Set, Set, Set, ArtworkExtractionProgressCallback)
+   */
+  public ApplicationArtwork updateApplicationArtwork(File projectRootDirectory,
+      ApplicationArtwork previousApplicationArtwork, Set<File> addedFiles, Set<File> modifiedFiles,
+      Set<File> deletedFiles) {
+    return updateApplicationArtwork(projectRootDirectory, previousApplicationArtwork, addedFiles, modifiedFiles,
+      deletedFiles, new ArtworkExtractionProgressCallback() {
+        @Override
+        public void onProcessedImageReferences(File imageFile, SortedSet<File> filesWhereImageIsReferenced,
+            int currentImageFileNumber, int totalImageFiles) {}
+      });
+  }
+
+  /**
+   * Brings a previous analysis of the given iOS project root directory up to date, given the files that changed since
+   * it was performed. Only the affected parts of the analysis are recomputed - metrics for changed images, references
+   * in changed referencing files and references to newly-added images - so this is much faster than
+   * {@link #extractApplicationArtwork(File, ArtworkExtractionProgressCallback)} for small changes.
+   * <p>
+   * Changed files must be specified the same way as the files in {@code previousApplicationArtwork}, i.e. resolved
+   * against {@code projectRootDirectory}. Relative files are resolved against {@code projectRootDirectory} for you.
+   * Changed files which are neither images nor referencing files are ignored.
+   * <p>
+   * Unchanged referencing files are only read again for newly-added images whose names they might contain, judging by
+   * the tokens recorded in {@code previousApplicationArtwork}'s {@link ImageReferenceIndex}. The project is not walked.
+   * <p>
+   * {@code previousApplicationArtwork} is not modified.
+   * 
+   * @return The updated analysis.
+   * @throws ArtworkProcessingException
+   *           If an error occurs during extraction/analysis.
+   */
+  public ApplicationArtwork updateApplicationArtwork(File projectRootDirectory,
+      ApplicationArtwork previousApplicationArtwork, Set<File> addedFiles, Set<File> modifiedFiles,
+      Set<File> deletedFiles, ArtworkExtractionProgressCallback progressCallback) {
+    if (projectRootDirectory == null)
+      throw new NullPointerException("The 'projectRootDirectory' parameter cannot be null.");
+    if (!projectRootDirectory.exists())
+      throw new IllegalArgumentException(format("Directory '%s' does not exist.", projectRootDirectory));
+    if (!projectRootDirectory.isDirectory())
+      throw new IllegalArgumentException(format("'%s' is a regular file - it must be a directory.",
+        projectRootDirectory));
+    if (previousApplicationArtwork == null)
+      throw new NullPointerException("The 'previousApplicationArtwork' parameter cannot be null.");
+    if (addedFiles == null)
+      throw new NullPointerException("The 'addedFiles' parameter cannot be null.");
+    if (modifiedFiles == null)
+      throw new NullPointerException("The 'modifiedFiles' parameter cannot be null.");
+    if (deletedFiles == null)
+      throw new NullPointerException("The 'deletedFiles' parameter cannot be null.");
+    if (progressCallback == null)
+      throw new NullPointerException("The 'progressCallback' parameter cannot be null.");
+
+    try {
+      SortedSet<File> removedFiles = new TreeSet<File>();
+      SortedSet<File> changedFiles = new TreeSet<File>();
+
+      for (File deletedFile : deletedFiles)
+        removedFiles.add(resolveProjectFile(projectRootDirectory, deletedFile));
+
+      for (File changedFile : addedFiles)
+        changedFiles.add(resolveProjectFile(projectRootDirectory, changedFile));
+
+      for (File changedFile : modifiedFiles)
+        changedFiles.add(resolveProjectFile(projectRootDirectory, changedFile));
+
+      // A file that changed and then went away is simply gone
+      for (File changedFile : new ArrayList<File>(changedFiles))
+        if (!changedFile.isFile())
+          removedFiles.add(changedFile);
+
+      changedFiles.removeAll(removedFiles);
+
+      SortedSet<File> changedImageFiles = new TreeSet<File>();
+      SortedSet<File> changedReferencingFiles = new TreeSet<File>();
+
+      for (File changedFile : changedFiles) {
+        if (isImageFile(projectRootDirectory, changedFile))
+          changedImageFiles.add(changedFile);
+        if (isReferencingFile(projectRootDirectory, changedFile))
+          changedReferencingFiles.add(changedFile);
+      }
+
+      SortedSet<File> addedImageFiles = new TreeSet<File>(changedImageFiles);
+      addedImageFiles.removeAll(previousApplicationArtwork.getAllImageFiles());
+
+      ApplicationArtwork applicationArtwork = new ApplicationArtwork();
+
+      // Image files
+      SortedSet<File> allImageFiles = new TreeSet<File>(previousApplicationArtwork.getAllImageFiles());
+      allImageFiles.removeAll(removedFiles);
+      allImageFiles.addAll(changedImageFiles);
+      applicationArtwork.setAllImageFiles(allImageFiles);
+
+      // Metrics - only changed images need to be looked at
+      SortedMap<File, ImageMetrics> allImageFilesWithMetrics =
+          new TreeMap<File, ImageMetrics>(previousApplicationArtwork.getAllImageFilesWithMetrics());
+      allImageFilesWithMetrics.keySet().removeAll(removedFiles);
+
+      // We know these changed, so don't trust cached metrics for them even if their length and timestamp match
+      ImageMetricsCache imageMetricsCache = loadImageMetricsCache();
+
+      if (imageMetricsCache != null) {
+        for (File removedFile : removedFiles)
+          imageMetricsCache.invalidate(removedFile);
+
+        for (File changedImageFile : changedImageFiles)
+          imageMetricsCache.invalidate(changedImageFile);
+      }
+
+      allImageFilesWithMetrics.putAll(extractImageMetrics(changedImageFiles, imageMetricsCache, new LongAdder()));
+
+      if (imageMetricsCache != null)
+        imageMetricsCache.save();
+
+      applicationArtwork.setAllImageFilesWithMetrics(allImageFilesWithMetrics);
+
+      long sizeOfAllImagesFilesInBytes = 0;
+
+      for (File imageFile : allImageFiles) {
+        ImageMetrics imageMetrics = allImageFilesWithMetrics.get(imageFile);
+        sizeOfAllImagesFilesInBytes += imageMetrics == null ? imageFile.length() : imageMetrics.getSize();
+      }
+
+      applicationArtwork.setSizeOfAllImagesFilesInBytes(sizeOfAllImagesFilesInBytes);
+
+      // References - rescan changed referencing files for all images, and unchanged ones for newly-added images only
+      Map<File, Set<File>> referencingFilesToImageFiles = new HashMap<File, Set<File>>();
+
+      for (Entry<File, SortedSet<File>> entry : previousApplicationArtwork.getAllImageFilesAndReferencingFiles()
+        .entrySet()) {
+        if (removedFiles.contains(entry.getKey()))
+          continue;
+
+        for (File referencingFile : entry.getValue()) {
+          if (removedFiles.contains(referencingFile) || changedReferencingFiles.contains(referencingFile))
+            continue;
+
+          Set<File> imageFiles = referencingFilesToImageFiles.get(referencingFile);
+
+          if (imageFiles == null) {
+            imageFiles = new HashSet<File>();
+            referencingFilesToImageFiles.put(referencingFile, imageFiles);
+          }
+
+          imageFiles.add(entry.getKey());
+        }
+      }
+
+      // The reference index only needs changed and deleted referencing files reindexed
+      ImageReferenceIndex imageReferenceIndex =
+          new ImageReferenceIndex(previousApplicationArtwork.getImageReferenceIndex());
+
+      for (File removedFile : removedFiles)
+        imageReferenceIndex.remove(removedFile);
+
+      for (File changedReferencingFile : changedReferencingFiles)
+        imageReferenceIndex.remove(changedReferencingFile);
+
+      // Anything that was referencing before and isn't changed or gone is still referencing
+      SortedSet<File> unchangedReferencingFiles = imageReferenceIndex.getScannedReferencingFiles();
+      Map<File, TokenFilter> tokenFilters = new HashMap<File, TokenFilter>();
+      Map<File, Set<File>> changedReferencingFilesToImageFiles =
+          scanReferencingFiles(changedReferencingFiles, createImageReferenceTokenizer(allImageFiles), tokenFilters);
+
+      for (Entry<File, Set<File>> entry : changedReferencingFilesToImageFiles.entrySet())
+        imageReferenceIndex.add(entry.getKey(), entry.getValue(), tokenFilters.get(entry.getKey()));
+
+      referencingFilesToImageFiles.putAll(changedReferencingFilesToImageFiles);
+
+      if (addedImageFiles.size() > 0) {
+        SortedSet<File> candidateReferencingFiles;
+
+        if (unchangedReferencingFiles.isEmpty() && previousApplicationArtwork.getAllImageFiles().size() > 0) {
+          // The previous analysis didn't record which files it scanned, so we have to go find them
+          candidateReferencingFiles = extractReferencingFiles(projectRootDirectory);
+          candidateReferencingFiles.removeAll(changedReferencingFiles);
+        } else {
+          // Only files that contain a token spelled like one of the new images can possibly reference it
+          Set<String> addedImageTokens = new HashSet<String>();
+
+          for (File addedImageFile : addedImageFiles) {
+            for (String imageFilenameVariant : imageFilenameVariants(addedImageFile.getName())) {
+              addedImageTokens.add(imageFilenameVariant);
+              addedImageTokens.add(ReferenceTokenizer.encodeName(imageFilenameVariant, Charset.defaultCharset()));
+            }
+          }
+
+          candidateReferencingFiles = imageReferenceIndex.getScannedReferencingFilesWhichMightContain(addedImageTokens);
+          candidateReferencingFiles.retainAll(unchangedReferencingFiles);
+
+          // A file can go away without us being told, e.g. along with its directory - forget it rather than fail
+          for (File candidateReferencingFile : new ArrayList<File>(candidateReferencingFiles)) {
+            if (candidateReferencingFile.isFile())
+              continue;
+
+            candidateReferencingFiles.remove(candidateReferencingFile);
+            imageReferenceIndex.remove(candidateReferencingFile);
+            referencingFilesToImageFiles.remove(candidateReferencingFile);
+          }
+        }
+
+        tokenFilters.clear();
+
+        for (Entry<File, Set<File>> entry : scanReferencingFiles(candidateReferencingFiles,
+          createImageReferenceTokenizer(addedImageFiles), tokenFilters).entrySet()) {
+          imageReferenceIndex.add(entry.getKey(), entry.getValue(), tokenFilters.get(entry.getKey()));
+
+          if (entry.getValue().isEmpty())
+            continue;
+
+          Set<File> imageFiles = referencingFilesToImageFiles.get(entry.getKey());
+
+          if (imageFiles == null) {
+            imageFiles = new HashSet<File>();
+            referencingFilesToImageFiles.put(entry.getKey(), imageFiles);
+          }
+
+          imageFiles.addAll(entry.getValue());
+        }
+      }
+
+      // Images that are gone entirely can't be referenced any more
+      SortedSet<String> imageNames = new TreeSet<String>();
+
+      for (File imageFile : allImageFiles)
+        imageNames.add(ImageReferenceIndex.normalizeImageName(imageFile.getName()));
 
-      applicationArtwork
-        .setIncorrectlySizedRetinaImageFiles(extractIncorrectlySizedRetinaImageFiles(applicationArtwork));
-      applicationArtwork
-        .setImageFilesWithIncorrectDeviceSuffix(extractImageFilesWithIncorrectDeviceSuffix(applicationArtwork
-          .getAllImageFiles()));
+      imageReferenceIndex.retainImageNames(imageNames);
+      applicationArtwork.setImageReferenceIndex(imageReferenceIndex);
+
+      applyImageReferences(applicationArtwork, invertImageReferences(referencingFilesToImageFiles), progressCallback);
+
+      // Everything else is derived from filenames and metrics we already have in memory
+      detectImageFileNamingAndSizingIssues(applicationArtwork);
+
+      if (compactApplicationArtwork())
+        applicationArtwork.compact();
 
       return applicationArtwork;
     } catch (Throwable throwable) {
@@ -198,6 +812,14 @@ public class ArtworkAnalyzer {
       });
   }
 
+  /**
+   * Generates a retina image in {@code outputDirectory} for each of the given nonretina images, mirroring their
+   * locations relative to {@code projectRootDirectory}. Retina images which are already up to date are skipped - see
+   * {@link #skipUpToDateRetinaImages()} - and progress is only reported for images that are actually generated.
+   * 
+   * @throws ArtworkProcessingException
+   *           If an error occurs during generation.
+   */
   public void generateRetinaImages(final File projectRootDirectory, final File outputDirectory,
       final Set<File> nonretinaImageFiles, final RetinaImageGenerationProgressCallback progressCallback) {
     if (projectRootDirectory == null)
@@ -216,44 +838,411 @@ public class ArtworkAnalyzer {
     if (progressCallback == null)
       throw new NullPointerException("The 'progressCallback' parameter cannot be null.");
 
-    Set<Callable<Object>> retinaScalingTasks = new HashSet<Callable<Object>>();
+    try {
+      // Settings that apply to every image - a change to any of these regenerates everything
+      String retinaImageGenerationSettings =
+          format("%s%s", retinaImageResamplingKernel().name(), progressiveRetinaImageResampling() ? "/progressive"
+              : "");
+      RetinaImageManifest retinaImageManifest =
+          skipUpToDateRetinaImages() ? RetinaImageManifest.load(outputDirectory, retinaImageGenerationSettings) : null;
+      boolean compareContentHashes = compareRetinaImageSourceContentHashes();
+      SortedMap<File, File> retinaImageFilesToGenerate = new TreeMap<File, File>();
+      int rootDirectoryPathLength = projectRootDirectory.getAbsolutePath().length();
+
+      for (File nonretinaImageFile : nonretinaImageFiles) {
+        String absoluteRetinaImageFilename = retinaImageFilename(nonretinaImageFile.getAbsolutePath());
+        String relativeRetinaImageFilename = absoluteRetinaImageFilename.substring(rootDirectoryPathLength + 1);
+        File retinaImageFile = new File(outputDirectory.getAbsolutePath() + separator + relativeRetinaImageFilename);
+
+        if (retinaImageManifest == null
+            || !isRetinaImageUpToDate(retinaImageManifest, nonretinaImageFile, retinaImageFile, compareContentHashes))
+          retinaImageFilesToGenerate.put(nonretinaImageFile, retinaImageFile);
+      }
+
+      // Metrics are needed up front so we know how much memory each image is going to need
+      SortedMap<File, ImageMetrics> nonretinaImageFilesWithMetrics =
+          extractImageMetrics(retinaImageFilesToGenerate.keySet(), new LongAdder());
+
+      List<RetinaImageGenerationJob> retinaImageGenerationJobs = new ArrayList<RetinaImageGenerationJob>();
+
+      for (Entry<File, ImageMetrics> entry : nonretinaImageFilesWithMetrics.entrySet()) {
+        if (entry.getValue() == null)
+          throw new IOException(format("Unsupported image file format: %s", entry.getKey()));
+
+        retinaImageGenerationJobs.add(new RetinaImageGenerationJob(entry.getKey(), retinaImageFilesToGenerate
+          .get(entry.getKey()), entry.getValue(), estimateRetinaScalingFootprintInBytes(entry.getValue()),
+          retinaImagePngEncodingOptions(entry.getKey(), entry.getValue())));
+      }
+
+      // Largest first, so big images don't end up running alongside each other at the end
+      Collections.sort(retinaImageGenerationJobs, new Comparator<RetinaImageGenerationJob>() {
+        @Override
+        public int compare(RetinaImageGenerationJob job1, RetinaImageGenerationJob job2) {
+          return Long.valueOf(job2.footprintInBytes).compareTo(job1.footprintInBytes);
+        }
+      });
+
+      try {
+        createRetinaImageGenerationPipeline(retinaImageGenerationJobs.size(), retinaImageManifest,
+          compareContentHashes, progressCallback).process(retinaImageGenerationJobs);
+      } finally {
+        // Images finished before a failure or cancellation are recorded too, so they aren't generated again
+        if (retinaImageManifest != null)
+          retinaImageManifest.save();
+      }
+    } catch (Throwable throwable) {
+      throw new ArtworkProcessingException(throwable);
+    }
+  }
+
+  /**
+   * Starts {@link #generateRetinaImages(File, File, Set, RetinaImageGenerationProgressCallback)} on a thread of its own
+   * and returns straight away. The returned handle can cancel the run, and {@code artworkTaskLimits} can put a deadline
+   * on it and a timeout on each stage of generating each image. Images finished before the run was stopped are
+   * recorded in the manifest as usual. Ones still being written may be left incomplete, but they aren't recorded, so
+   * they'll be generated again next time.
+   * 
+   * @return Handle on the run, which completes with {@code null} once every image has been generated.
+   * @throws NullPointerException
+   *           If {@code progressCallback} or {@code artworkTaskLimits} is {@code null}. Other problems with the
+   *           arguments are reported through the returned handle.
+   */
+  public ArtworkTaskHandle<Void> generateRetinaImagesAsync(final File projectRootDirectory,
+      final File outputDirectory, final Set<File> nonretinaImageFiles,
+      final RetinaImageGenerationProgressCallback progressCallback, ArtworkTaskLimits artworkTaskLimits) {
+    if (progressCallback == null)
+      throw new NullPointerException("The 'progressCallback' parameter cannot be null.");
+    if (artworkTaskLimits == null)
+      throw new NullPointerException("The 'artworkTaskLimits' parameter cannot be null.");
+
+    ArtworkTaskHandle<Void> artworkTaskHandle =
+        new ArtworkTaskHandle<Void>("retina-image-generation", new ArtworkTaskHandle.Work<Void>() {
+          @Override
+          public Void run(TaskTimeouts taskTimeouts) {
+            currentTaskTimeouts.set(taskTimeouts);
+
+            try {
+              generateRetinaImages(projectRootDirectory, outputDirectory, nonretinaImageFiles, progressCallback);
+              return null;
+            } finally {
+              currentTaskTimeouts.remove();
+            }
+          }
+        }, artworkTaskLimits);
+
+    artworkTaskHandle.start();
+
+    return artworkTaskHandle;
+  }
+
+  /**
+   * @return A pipeline which takes retina image generation jobs from reading the nonretina image through to writing
+   *         the retina image and reporting progress to {@code progressCallback}, reserving each job's estimated memory
+   *         footprint from {@link #retinaImageGenerationMemoryBudgetInBytes()} for as long as it's in flight. Generated
+   *         images are recorded in {@code retinaImageManifest}, if there is one. If the current thread is running
+   *         with task timeouts, each stage of each job is timed separately.
+   */
+  private StagedPipeline<RetinaImageGenerationJob> createRetinaImageGenerationPipeline(
+      final int totalRetinaImageFilesToGenerate, final RetinaImageManifest retinaImageManifest,
+      final boolean compareContentHashes, final RetinaImageGenerationProgressCallback progressCallback) {
+    final MemoryBudget memoryBudget = new MemoryBudget(retinaImageGenerationMemoryBudgetInBytes());
+    final ResamplingKernel resamplingKernel = retinaImageResamplingKernel();
+    final boolean progressiveResampling = progressiveRetinaImageResampling();
+    final long bandedScalingThresholdInPixels = bandedScalingThresholdInPixels();
+    final long maximumScalingBandSizeInPixels = maximumScalingBandSizeInPixels();
     final AtomicInteger imageFilesProcessed = new AtomicInteger(0);
+    final TaskTimeouts taskTimeouts = currentTaskTimeouts.get();
 
-    for (final File nonretinaImageFile : nonretinaImageFiles) {
-      retinaScalingTasks.add(new Callable<Object>() {
+    return new StagedPipeline<RetinaImageGenerationJob>(retinaImageGenerationQueueCapacity())
+      .addStage(retinaImageGenerationConcurrency(READ), new StagedPipeline.Stage<RetinaImageGenerationJob>() {
         @Override
-        public Object call() throws Exception {
-          byte[] imageFileData = readFileToByteArray(nonretinaImageFile);
-          ImageMetrics imageMetrics = ImageUtilities.extractImageMetrics(imageFileData);
-          int retinaWidth = imageMetrics.getWidth() * 2;
-          int retinaHeight = imageMetrics.getHeight() * 2;
+        public void process(RetinaImageGenerationJob job) throws Exception {
+          job.memoryCharge = memoryBudget.reserve(job.footprintInBytes);
 
-          byte[] retinaImageData = scaleImageUpToFit(imageFileData, retinaWidth, retinaHeight, IMAGE_TYPE_PNG);
+          // Waiting for memory isn't the job's fault, so the clock only starts once it has some
+          TaskTimeouts.Timer timer = taskTimeouts == null ? null : taskTimeouts.start();
 
-          String absoluteRetinaImageFilename = retinaImageFilename(nonretinaImageFile.getAbsolutePath());
+          try {
+            read(job);
+          } finally {
+            if (timer != null)
+              timer.stop();
+          }
+        }
 
-          int rootDirectoryPathLength = projectRootDirectory.getAbsolutePath().length();
-          String relativeRetinaImageFilename = absoluteRetinaImageFilename.substring(rootDirectoryPathLength + 1);
+        private void read(RetinaImageGenerationJob job) throws IOException {
+          job.banded = (long) job.retinaWidth() * job.retinaHeight() > bandedScalingThresholdInPixels;
 
-          String retinaImageFilename = outputDirectory.getAbsolutePath() + separator + relativeRetinaImageFilename;
+          // Noted before reading, so a change made while we're working isn't mistaken for what we generated from
+          job.sourceLength = job.nonretinaImageFile.length();
+          job.sourceLastModified = job.nonretinaImageFile.lastModified();
 
-          File retinaImageFile = new File(retinaImageFilename);
-          writeByteArrayToFile(retinaImageFile, retinaImageData);
+          // Large images are memory-mapped and decoded in place rather than copied onto the heap
+          if (!job.banded)
+            job.imageData = readImageFile(job.nonretinaImageFile);
 
-          progressCallback.generatedRetinaImage(nonretinaImageFile, retinaImageFile,
-            imageFilesProcessed.incrementAndGet(), nonretinaImageFiles.size());
+          if (retinaImageManifest != null && compareContentHashes)
+            job.sourceContentHash =
+                job.banded ? RetinaImageManifest.hashContents(job.nonretinaImageFile) : RetinaImageManifest
+                  .hashContents(job.imageData);
+        }
+      }).addStage(retinaImageGenerationConcurrency(DECODE),
+        withTaskTimeouts(taskTimeouts, new StagedPipeline.Stage<RetinaImageGenerationJob>() {
+          @Override
+          public void process(RetinaImageGenerationJob job) throws Exception {
+            if (!job.banded)
+              job.image = decodeImage(job.imageData);
+          }
+        })).addStage(retinaImageGenerationConcurrency(SCALE),
+        withTaskTimeouts(taskTimeouts, new StagedPipeline.Stage<RetinaImageGenerationJob>() {
+          @Override
+          public void process(RetinaImageGenerationJob job) throws Exception {
+            // Huge images are processed a band at a time so we don't need the whole thing in memory
+            if (job.banded) {
+              scaleImageUpToFitInBands(job.nonretinaImageFile, job.retinaImageFile, job.retinaWidth(),
+                job.retinaHeight(), resamplingKernel, maximumScalingBandSizeInPixels, job.pngEncodingOptions);
+            } else {
+              job.scaledImage =
+                  scaleImageUpToFit(job.image, job.retinaWidth(), job.retinaHeight(), resamplingKernel,
+                    progressiveResampling);
+
+              // Already retina-sized, so the original bytes can be written as-is
+              if (job.scaledImage == job.image)
+                job.retinaImageData = job.imageData;
+
+              job.image = null;
+            }
+          }
+        })).addStage(retinaImageGenerationConcurrency(ENCODE),
+        withTaskTimeouts(taskTimeouts, new StagedPipeline.Stage<RetinaImageGenerationJob>() {
+          @Override
+          public void process(RetinaImageGenerationJob job) throws Exception {
+            // Encoded straight into the destination file - there's no point holding the encoded image in memory
+            if (!job.banded && job.retinaImageData == null)
+              writePng(job.scaledImage, job.retinaImageFile, job.pngEncodingOptions);
+
+            job.imageData = null;
+            job.scaledImage = null;
+          }
+        })).addStage(retinaImageGenerationConcurrency(WRITE),
+        withTaskTimeouts(taskTimeouts, new StagedPipeline.Stage<RetinaImageGenerationJob>() {
+          @Override
+          public void process(RetinaImageGenerationJob job) throws Exception {
+            // Only images that were already retina-sized are left to write
+            if (job.retinaImageData != null)
+              writeImageFile(job.retinaImageData, job.retinaImageFile);
+
+            job.retinaImageData = null;
+            memoryBudget.release(job.memoryCharge);
+
+            if (retinaImageManifest != null)
+              retinaImageManifest.put(job.nonretinaImageFile, job.sourceLength, job.sourceLastModified,
+                job.sourceContentHash, job.imageMetrics, job.pngEncodingOptions, job.retinaImageFile);
+
+            progressCallback.generatedRetinaImage(job.nonretinaImageFile, job.retinaImageFile,
+              imageFilesProcessed.incrementAndGet(), totalRetinaImageFilesToGenerate);
+          }
+        }));
+  }
 
-          return null;
+  /**
+   * @return {@code true} if {@code retinaImageFile} was generated from {@code nonretinaImageFile} as it is now and
+   *         would be encoded the same way today.
+   */
+  private boolean isRetinaImageUpToDate(RetinaImageManifest retinaImageManifest, File nonretinaImageFile,
+      File retinaImageFile, boolean compareContentHashes) throws IOException {
+    // Recorded metrics still describe the source if it's unchanged - and if it isn't, it's out of date regardless of
+    // encoding options - so there's no need to read the source just to ask how it should be encoded
+    ImageMetrics nonretinaImageMetrics = retinaImageManifest.getSourceImageMetrics(retinaImageFile);
+
+    return nonretinaImageMetrics != null
+        && retinaImageManifest.isUpToDate(nonretinaImageFile, retinaImageFile,
+          retinaImagePngEncodingOptions(nonretinaImageFile, nonretinaImageMetrics), compareContentHashes);
+  }
+
+  /**
+   * @return {@code stage}, with each call timed by {@code taskTimeouts} if there are any.
+   */
+  private static <T> StagedPipeline.Stage<T> withTaskTimeouts(final TaskTimeouts taskTimeouts,
+      final StagedPipeline.Stage<T> stage) {
+    if (taskTimeouts == null)
+      return stage;
+
+    return new StagedPipeline.Stage<T>() {
+      @Override
+      public void process(T item) throws Exception {
+        TaskTimeouts.Timer timer = taskTimeouts.start();
+
+        try {
+          stage.process(item);
+        } finally {
+          timer.stop();
         }
-      });
+      }
+    };
+  }
+
+  /** State of a single retina image as it moves through the retina image generation pipeline. */
+  private static class RetinaImageGenerationJob {
+    private final File nonretinaImageFile;
+    private final File retinaImageFile;
+    private final ImageMetrics imageMetrics;
+    private final long footprintInBytes;
+    private final PngEncodingOptions pngEncodingOptions;
+    private long memoryCharge;
+    private boolean banded;
+    private long sourceLength;
+    private long sourceLastModified;
+    private byte[] sourceContentHash;
+    private ByteBuffer imageData;
+    private BufferedImage image;
+    private BufferedImage scaledImage;
+    private ByteBuffer retinaImageData;
+
+    private RetinaImageGenerationJob(File nonretinaImageFile, File retinaImageFile, ImageMetrics imageMetrics,
+        long footprintInBytes, PngEncodingOptions pngEncodingOptions) {
+      this.nonretinaImageFile = nonretinaImageFile;
+      this.retinaImageFile = retinaImageFile;
+      this.imageMetrics = imageMetrics;
+      this.footprintInBytes = footprintInBytes;
+      this.pngEncodingOptions = pngEncodingOptions;
     }
 
-    try {
-      for (Future<Object> future : getExecutorService().invokeAll(retinaScalingTasks))
-        future.get();
-    } catch (Throwable throwable) {
-      throw new ArtworkProcessingException(throwable);
+    private int retinaWidth() {
+      return imageMetrics.getWidth() * 2;
+    }
+
+    private int retinaHeight() {
+      return imageMetrics.getHeight() * 2;
+    }
+  }
+
+  /**
+   * Estimates how much memory generating a retina image for an image with the given metrics needs - the decoded source
+   * image, the scaled image and the intermediate buffers in between, as 4-byte ARGB pixels, plus the encoded source if
+   * it's small enough to be read onto the heap rather than memory-mapped. Images which are scaled in bands only need
+   * enough memory for a band at a time.
+   * 
+   * @return Estimated memory footprint in bytes.
+   */
+  protected long estimateRetinaScalingFootprintInBytes(ImageMetrics imageMetrics) {
+    long pixels = (long) imageMetrics.getWidth() * imageMetrics.getHeight();
+    long retinaPixels = pixels * 4;
+
+    if (retinaPixels > bandedScalingThresholdInPixels())
+      return 4 * 4 * maximumScalingBandSizeInPixels();
+
+    long encodedSourceSize =
+        imageMetrics.getSize() < IMAGE_MEMORY_MAPPING_THRESHOLD_IN_BYTES ? imageMetrics.getSize() : 0;
+
+    // Encoded and decoded source, premultiplied copy, horizontal pass, scaled pixels, scaled image, encoded result
+    return encodedSourceSize + 4 * (pixels + pixels + 2 * retinaPixels + retinaPixels + retinaPixels);
+  }
+
+  /**
+   * Modifies the passed-in {@code applicationArtwork} instance to include retina/nonretina pairing, standard
+   * application images and naming/sizing problems. Relies only on image filenames and metrics, so no I/O is performed.
+   */
+  protected void detectImageFileNamingAndSizingIssues(ApplicationArtwork applicationArtwork) {
+    beginPhase(DETECT_RETINA_AND_NONRETINA_IMAGES);
+    detectRetinaAndNonretinaImages(applicationArtwork);
+    applicationArtwork
+      .setIncorrectlySizedRetinaImageFiles(extractIncorrectlySizedRetinaImageFiles(applicationArtwork));
+    endPhase();
+
+    beginPhase(DETECT_STANDARD_APPLICATION_IMAGES);
+    detectStandardApplicationImages(applicationArtwork);
+    applicationArtwork
+      .setImageFilesWithIncorrectDeviceSuffix(extractImageFilesWithIncorrectDeviceSuffix(applicationArtwork
+        .getAllImageFiles()));
+    endPhase();
+  }
+
+  /** Starts recording metrics for {@code phase}, if there's an extraction running on the current thread. */
+  private void beginPhase(ArtworkExtractionPhase phase) {
+    ArtworkExtractionMetrics extractionMetrics = currentExtractionMetrics.get();
+
+    if (extractionMetrics == null)
+      return;
+
+    ArtworkExtractionPhaseMetrics phaseMetrics = extractionMetrics.getPhaseMetrics(phase);
+    phaseMetrics.start();
+    currentPhaseMetrics.set(phaseMetrics);
+  }
+
+  /** Finishes recording metrics for the phase started by {@link #beginPhase(ArtworkExtractionPhase)}. */
+  private void endPhase() {
+    ArtworkExtractionPhaseMetrics phaseMetrics = currentPhaseMetrics.get();
+
+    if (phaseMetrics == null)
+      return;
+
+    currentPhaseMetrics.remove();
+    phaseMetrics.stop();
+
+    ArtworkExtractionMetricsListener extractionMetricsListener = artworkExtractionMetricsListener();
+    if (extractionMetricsListener != null)
+      extractionMetricsListener.onPhaseCompleted(phaseMetrics);
+  }
+
+  private void recordBytesRead(long bytes) {
+    ArtworkExtractionPhaseMetrics phaseMetrics = currentPhaseMetrics.get();
+    if (phaseMetrics != null)
+      phaseMetrics.addBytesRead(bytes);
+  }
+
+  private void recordFilesTouched(long files) {
+    ArtworkExtractionPhaseMetrics phaseMetrics = currentPhaseMetrics.get();
+    if (phaseMetrics != null)
+      phaseMetrics.addFilesTouched(files);
+  }
+
+  /**
+   * Runs {@code tasks} on the executor service for {@code workload}. If an extraction phase is running, the time each
+   * task spends queued is recorded against it, and the tasks can record their own metrics for it. If the current
+   * thread is running with task timeouts, each task is timed from when it starts.
+   * <p>
+   * If interrupted while waiting, tasks which haven't finished are cancelled - running ones are interrupted.
+   * 
+   * @return Futures for {@code tasks}, in the same order.
+   */
+  protected <T> List<Future<T>> invokeAll(ArtworkWorkload workload, List<? extends Callable<T>> tasks)
+      throws InterruptedException {
+    final ArtworkExtractionPhaseMetrics phaseMetrics = currentPhaseMetrics.get();
+    final TaskTimeouts taskTimeouts = currentTaskTimeouts.get();
+
+    if (phaseMetrics == null && taskTimeouts == null)
+      return getExecutorService(workload).invokeAll(tasks);
+
+    final long submissionTime = System.nanoTime();
+    List<Callable<T>> instrumentedTasks = new ArrayList<Callable<T>>(tasks.size());
+
+    for (final Callable<T> task : tasks) {
+      instrumentedTasks.add(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          if (phaseMetrics != null)
+            phaseMetrics.addTaskExecution(System.nanoTime() - submissionTime);
+
+          // The task might run on the submitting thread, so put back whatever was there
+          ArtworkExtractionPhaseMetrics previousPhaseMetrics = currentPhaseMetrics.get();
+          currentPhaseMetrics.set(phaseMetrics);
+
+          TaskTimeouts.Timer timer = taskTimeouts == null ? null : taskTimeouts.start();
+
+          try {
+            return task.call();
+          } finally {
+            currentPhaseMetrics.set(previousPhaseMetrics);
+
+            if (timer != null)
+              timer.stop();
+          }
+        }
+      });
     }
+
+    return getExecutorService(workload).invokeAll(instrumentedTasks);
   }
 
   protected void detectRetinaAndNonretinaImages(ApplicationArtwork applicationArtwork) {
@@ -263,97 +1252,247 @@ public class ArtworkAnalyzer {
     SortedSet<File> nonretinaImageFilesMissingRetinaImages = new TreeSet<File>();
     SortedSet<File> retinaImageFilesMissingNonretinaImages = new TreeSet<File>();
 
-    for (String imageFilename : allImageFilenames) {
-      int lastIndexOf2x = imageFilename.lastIndexOf("@2x");
+    for (String imageFilename : allImageFilenames) {
+      int lastIndexOf2x = imageFilename.lastIndexOf("@2x");
+
+      // Nonretina; search for a retina version
+      if (lastIndexOf2x == -1) {
+        nonretinaImageFiles.add(new File(imageFilename));
+
+        if (!allImageFilenames.contains(retinaImageFilename(imageFilename)))
+          nonretinaImageFilesMissingRetinaImages.add(new File(imageFilename));
+      } else {
+        retinaImageFiles.add(new File(imageFilename));
+
+        String nonretinaImageFilename = imageFilename.replace("@2x", "");
+
+        if (!allImageFilenames.contains(nonretinaImageFilename))
+          retinaImageFilesMissingNonretinaImages.add(new File(imageFilename));
+      }
+    }
+
+    applicationArtwork.setRetinaImageFiles(retinaImageFiles);
+    applicationArtwork.setNonretinaImageFiles(nonretinaImageFiles);
+    applicationArtwork.setNonretinaImageFilesMissingRetinaImages(nonretinaImageFilesMissingRetinaImages);
+    applicationArtwork.setRetinaImageFilesMissingNonretinaImages(retinaImageFilesMissingNonretinaImages);
+  }
+
+  /** Modifies the passed-in {@code applicationArtwork} instance to include image reference data. */
+  protected void detectImageReferences(File projectRootDirectory, ApplicationArtwork applicationArtwork,
+      ArtworkExtractionProgressCallback progressCallback) throws Exception {
+    detectImageReferences(extractReferencingFiles(projectRootDirectory), applicationArtwork, progressCallback);
+  }
+
+  /**
+   * Modifies the passed-in {@code applicationArtwork} instance to include image reference data found in
+   * {@code referencingFiles}.
+   */
+  protected void detectImageReferences(Collection<File> referencingFiles, final ApplicationArtwork applicationArtwork,
+      final ArtworkExtractionProgressCallback progressCallback) throws Exception {
+    final ReferenceTokenizer<File> imageReferenceTokenizer =
+        createImageReferenceTokenizer(applicationArtwork.getAllImageFiles());
+    Map<File, Set<File>> referencingFilesToImageFiles;
+
+    // Tokens are kept so that incremental updates can tell which files could mention a newly-added image
+    Map<File, TokenFilter> tokenFilters = new HashMap<File, TokenFilter>();
+
+    // Scan each referencing file exactly once, picking up every image it mentions along the way
+    if (streamReferencingFiles()) {
+      referencingFilesToImageFiles = scanReferencingFiles(referencingFiles, imageReferenceTokenizer, tokenFilters);
+    } else {
+      List<File> referencingFilesToScan = new ArrayList<File>();
+      List<Callable<Set<File>>> referencingFileProcessingTasks = new ArrayList<Callable<Set<File>>>();
+      List<TokenFilter.Builder> tokenFilterBuilders = new ArrayList<TokenFilter.Builder>();
+
+      for (final Entry<File, String> entry : extractContentsOfReferencingFiles(referencingFiles).entrySet()) {
+        final TokenFilter.Builder tokenFilterBuilder = new TokenFilter.Builder();
+
+        referencingFilesToScan.add(entry.getKey());
+        tokenFilterBuilders.add(tokenFilterBuilder);
+        referencingFileProcessingTasks.add(new Callable<Set<File>>() {
+          @Override
+          public Set<File> call() throws Exception {
+            return imageReferenceTokenizer.findReferences(entry.getValue(), tokenFilterBuilder);
+          }
+        });
+      }
+
+      // Contents are already in memory, so this is all CPU
+      List<Future<Set<File>>> futures = invokeAll(CPU, referencingFileProcessingTasks);
+      referencingFilesToImageFiles = new HashMap<File, Set<File>>();
+
+      for (int i = 0; i < referencingFilesToScan.size(); i++) {
+        referencingFilesToImageFiles.put(referencingFilesToScan.get(i), futures.get(i).get());
+        tokenFilters.put(referencingFilesToScan.get(i), tokenFilterBuilders.get(i).build());
+      }
+    }
+
+    applicationArtwork.setImageReferenceIndex(createImageReferenceIndex(referencingFilesToImageFiles, tokenFilters));
+    applyImageReferences(applicationArtwork, invertImageReferences(referencingFilesToImageFiles), progressCallback);
+  }
+
+  /**
+   * @return Index of image names -> the files that reference them, given a mapping of referencing files -> the image
+   *         files they reference.
+   */
+  protected ImageReferenceIndex createImageReferenceIndex(Map<File, ? extends Set<File>> referencingFilesToImageFiles) {
+    return createImageReferenceIndex(referencingFilesToImageFiles, new HashMap<File, TokenFilter>());
+  }
+
+  /**
+   * @return Index of image names -> the files that reference them, which also remembers the tokens in each referencing
+   *         file that has an entry in {@code tokenFilters}.
+   */
+  ImageReferenceIndex createImageReferenceIndex(Map<File, ? extends Set<File>> referencingFilesToImageFiles,
+      Map<File, TokenFilter> tokenFilters) {
+    ImageReferenceIndex imageReferenceIndex = new ImageReferenceIndex();
+
+    for (Entry<File, ? extends Set<File>> entry : referencingFilesToImageFiles.entrySet())
+      imageReferenceIndex.add(entry.getKey(), entry.getValue(), tokenFilters.get(entry.getKey()));
+
+    return imageReferenceIndex;
+  }
+
+  /**
+   * Scans the given referencing files concurrently.
+   * 
+   * @return Mapping of each referencing file -> the image files it references.
+   */
+  protected Map<File, Set<File>> scanReferencingFiles(Collection<File> referencingFiles,
+      ReferenceTokenizer<File> imageReferenceTokenizer) throws Exception {
+    return scanReferencingFiles(referencingFiles, imageReferenceTokenizer, null);
+  }
+
+  /**
+   * Scans the given referencing files concurrently, putting a filter of the tokens found in each one into
+   * {@code tokenFilters} if it isn't {@code null}.
+   * 
+   * @return Mapping of each referencing file -> the image files it references.
+   */
+  Map<File, Set<File>> scanReferencingFiles(Collection<File> referencingFiles,
+      final ReferenceTokenizer<File> imageReferenceTokenizer, Map<File, TokenFilter> tokenFilters) throws Exception {
+    List<File> referencingFilesToScan = new ArrayList<File>(referencingFiles);
+    List<Callable<Set<File>>> referencingFileProcessingTasks =
+        new ArrayList<Callable<Set<File>>>(referencingFilesToScan.size());
+    List<TokenFilter.Builder> tokenFilterBuilders = new ArrayList<TokenFilter.Builder>(referencingFilesToScan.size());
+
+    for (final File referencingFile : referencingFilesToScan) {
+      final TokenFilter.Builder tokenFilterBuilder = tokenFilters == null ? null : new TokenFilter.Builder();
+      tokenFilterBuilders.add(tokenFilterBuilder);
+
+      referencingFileProcessingTasks.add(new Callable<Set<File>>() {
+        @Override
+        public Set<File> call() throws Exception {
+          return tokenFilterBuilder == null ? scanReferencingFile(referencingFile, imageReferenceTokenizer)
+              : scanReferencingFile(referencingFile, imageReferenceTokenizer, tokenFilterBuilder);
+        }
+      });
+    }
+
+    List<Future<Set<File>>> futures = invokeAll(IO, referencingFileProcessingTasks);
+    Map<File, Set<File>> referencingFilesToImageFiles = new HashMap<File, Set<File>>();
+
+    for (int i = 0; i < referencingFilesToScan.size(); i++) {
+      referencingFilesToImageFiles.put(referencingFilesToScan.get(i), futures.get(i).get());
+
+      // Builders were filled in by the tasks, which get() has waited for
+      if (tokenFilters != null)
+        tokenFilters.put(referencingFilesToScan.get(i), tokenFilterBuilders.get(i).build());
+    }
+
+    return referencingFilesToImageFiles;
+  }
 
-      // Nonretina; search for a retina version
-      if (lastIndexOf2x == -1) {
-        nonretinaImageFiles.add(new File(imageFilename));
+  /**
+   * @return Mapping of image files -> the files that reference them, given a mapping of referencing files -> the image
+   *         files they reference.
+   */
+  protected Map<File, SortedSet<File>> invertImageReferences(
+      Map<File, ? extends Set<File>> referencingFilesToImageFiles) {
+    Map<File, SortedSet<File>> imageFilesToReferencingFiles = new HashMap<File, SortedSet<File>>();
 
-        if (!allImageFilenames.contains(retinaImageFilename(imageFilename)))
-          nonretinaImageFilesMissingRetinaImages.add(new File(imageFilename));
-      } else {
-        retinaImageFiles.add(new File(imageFilename));
+    for (Entry<File, ? extends Set<File>> entry : referencingFilesToImageFiles.entrySet()) {
+      for (File imageFile : entry.getValue()) {
+        SortedSet<File> filesWhereImageIsReferenced = imageFilesToReferencingFiles.get(imageFile);
 
-        String nonretinaImageFilename = imageFilename.replace("@2x", "");
+        if (filesWhereImageIsReferenced == null) {
+          filesWhereImageIsReferenced = new TreeSet<File>();
+          imageFilesToReferencingFiles.put(imageFile, filesWhereImageIsReferenced);
+        }
 
-        if (!allImageFilenames.contains(nonretinaImageFilename))
-          retinaImageFilesMissingNonretinaImages.add(new File(imageFilename));
+        filesWhereImageIsReferenced.add(entry.getKey());
       }
     }
 
-    applicationArtwork.setRetinaImageFiles(retinaImageFiles);
-    applicationArtwork.setNonretinaImageFiles(nonretinaImageFiles);
-    applicationArtwork.setNonretinaImageFilesMissingRetinaImages(nonretinaImageFilesMissingRetinaImages);
-    applicationArtwork.setRetinaImageFilesMissingNonretinaImages(retinaImageFilesMissingNonretinaImages);
+    return imageFilesToReferencingFiles;
   }
 
-  /** Modifies the passed-in {@code applicationArtwork} instance to include image reference data. */
-  protected void detectImageReferences(File projectRootDirectory, final ApplicationArtwork applicationArtwork,
-      final ArtworkExtractionProgressCallback progressCallback) throws Exception {
-    final Map<File, String> contentsOfReferencingFiles = extractContentsOfReferencingFiles(projectRootDirectory);
-    final SortedSet<File> unreferencedImageFiles = synchronizedSortedSet(new TreeSet<File>());
-    final SortedSet<File> onlyProjectFileReferencedImageFiles = synchronizedSortedSet(new TreeSet<File>());
-    final SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles =
-        synchronizedSortedMap(new TreeMap<File, SortedSet<File>>());
-
-    final AtomicInteger imageFilesProcessed = new AtomicInteger(0);
-
-    Set<Callable<Object>> imageReferenceProcessingTasks = new HashSet<Callable<Object>>();
+  /**
+   * Modifies the passed-in {@code applicationArtwork} instance to include the given image reference data, notifying
+   * {@code progressCallback} for each image file.
+   */
+  protected void applyImageReferences(ApplicationArtwork applicationArtwork,
+      Map<File, SortedSet<File>> imageFilesToReferencingFiles, ArtworkExtractionProgressCallback progressCallback) {
+    SortedSet<File> unreferencedImageFiles = new TreeSet<File>();
+    SortedSet<File> onlyProjectFileReferencedImageFiles = new TreeSet<File>();
+    SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles = new TreeMap<File, SortedSet<File>>();
+    int imageFilesProcessed = 0;
 
-    for (final File imageFile : applicationArtwork.getAllImageFiles()) {
-      imageReferenceProcessingTasks.add(new Callable<Object>() {
-        @Override
-        public Object call() throws Exception {
-          String imageFilename = imageFile.getName();
-          SortedSet<File> filesWhereImageIsReferenced = new TreeSet<File>();
-          Set<String> imageFilenameVariants = imageFilenameVariants(imageFilename);
-
-          for (Entry<File, String> entry : contentsOfReferencingFiles.entrySet()) {
-            String fileContents = entry.getValue();
-
-            for (String imageFilenameVariant : imageFilenameVariants) {
-              // Quoted references, e.g. "aboutBackground"
-              if (fileContents.indexOf(format("\"%s\"", imageFilenameVariant)) != -1)
-                filesWhereImageIsReferenced.add(entry.getKey());
-
-              // Nib files, e.g. <string key="NSResourceName">aboutBackground~ipad.png</string>
-              else if (fileContents.indexOf(format(">%s<", imageFilenameVariant)) != -1)
-                filesWhereImageIsReferenced.add(entry.getKey());
-            }
-          }
+    for (File imageFile : applicationArtwork.getAllImageFiles()) {
+      SortedSet<File> filesWhereImageIsReferenced = imageFilesToReferencingFiles.get(imageFile);
 
-          if (filesWhereImageIsReferenced.size() == 1
-              && "project.pbxproj".equals(filesWhereImageIsReferenced.first().getName().toLowerCase()))
-            onlyProjectFileReferencedImageFiles.add(imageFile);
+      if (filesWhereImageIsReferenced == null)
+        filesWhereImageIsReferenced = new TreeSet<File>();
 
-          if (filesWhereImageIsReferenced.size() == 0) {
-            unreferencedImageFiles.add(imageFile);
-          } else {
-            allImageFilesAndReferencingFiles.put(imageFile, filesWhereImageIsReferenced);
-          }
+      if (filesWhereImageIsReferenced.size() == 1
+          && "project.pbxproj".equals(filesWhereImageIsReferenced.first().getName().toLowerCase()))
+        onlyProjectFileReferencedImageFiles.add(imageFile);
 
-          progressCallback.onProcessedImageReferences(imageFile, filesWhereImageIsReferenced,
-            imageFilesProcessed.incrementAndGet(), applicationArtwork.getAllImageFiles().size());
+      if (filesWhereImageIsReferenced.size() == 0) {
+        unreferencedImageFiles.add(imageFile);
+      } else {
+        allImageFilesAndReferencingFiles.put(imageFile, filesWhereImageIsReferenced);
+      }
 
-          return null;
-        }
-      });
+      progressCallback.onProcessedImageReferences(imageFile, filesWhereImageIsReferenced, ++imageFilesProcessed,
+        applicationArtwork.getAllImageFiles().size());
     }
 
-    for (Future<Object> future : getExecutorService().invokeAll(imageReferenceProcessingTasks))
-      future.get();
-
     applicationArtwork.setAllImageFilesAndReferencingFiles(allImageFilesAndReferencingFiles);
     applicationArtwork.setUnreferencedImageFiles(unreferencedImageFiles);
     applicationArtwork.setOnlyProjectFileReferencedImageFiles(onlyProjectFileReferencedImageFiles);
   }
 
+  /**
+   * @return A tokenizer which recognizes every variant of the given image files, both as quoted strings - e.g.
+   *         {@code "aboutBackground"} - and as XML text nodes - e.g.
+   *         {@code <string key="NSResourceName">aboutBackground~ipad.png</string>} in nib files - and reports the image
+   *         files each reference could point to.
+   */
+  protected ReferenceTokenizer<File> createImageReferenceTokenizer(Iterable<File> imageFiles) {
+    Map<String, Set<File>> imageFilenameVariantsToImageFiles = new HashMap<String, Set<File>>();
+
+    for (File imageFile : imageFiles) {
+      for (String imageFilenameVariant : imageFilenameVariants(imageFile.getName())) {
+        Set<File> imageFilesForVariant = imageFilenameVariantsToImageFiles.get(imageFilenameVariant);
+
+        if (imageFilesForVariant == null) {
+          imageFilesForVariant = new HashSet<File>();
+          imageFilenameVariantsToImageFiles.put(imageFilenameVariant, imageFilesForVariant);
+        }
+
+        imageFilesForVariant.add(imageFile);
+      }
+    }
+
+    return new ReferenceTokenizer<File>(imageFilenameVariantsToImageFiles, Charset.defaultCharset());
+  }
+
   protected void detectStandardApplicationImages(ApplicationArtwork applicationArtwork) {
     SortedSet<File> standardApplicationImageFiles = new TreeSet<File>();
     SortedSet<String> missingStandardApplicationImageFilenames = new TreeSet<String>();
 
-    for (String standardImageFilename : STANDARD_APPLICATION_IMAGE_FILENAMES) {
+    for (String standardImageFilename : standardApplicationImageFilenames()) {
       boolean foundStandardImage = false;
 
       for (File imageFile : applicationArtwork.getAllImageFiles()) {
@@ -372,15 +1511,124 @@ public class ArtworkAnalyzer {
   }
 
   /** @return All image files in the project. */
-  protected SortedSet<File> extractAllImageFiles(File projectRootDirectory) {
-    SortedSet<File> allImageFiles = new TreeSet<File>();
+  protected SortedSet<File> extractAllImageFiles(File projectRootDirectory) throws IOException {
+    return extractProjectFiles(projectRootDirectory).getImageFiles();
+  }
+
+  /**
+   * Walks the project once, picking out image files and non-empty files that could potentially include image
+   * references. Directories named in {@link #ignoredDirectoryNames()} or {@link #prunedDirectoryNames()} are skipped
+   * without looking inside them. Subdirectories are explored concurrently if {@link #directoryTraversalParallelism()}
+   * allows it.
+   * 
+   * @return The project's image files and referencing files.
+   */
+  protected ProjectFiles extractProjectFiles(File projectRootDirectory) throws IOException {
+    int directoryTraversalParallelism = directoryTraversalParallelism();
+
+    if (directoryTraversalParallelism > 1) {
+      LongAdder filesTouched = new LongAdder();
+      ProjectFiles projectFiles =
+          new ParallelDirectoryWalker(this, directoryTraversalParallelism).walk(projectRootDirectory, filesTouched);
+      recordFilesTouched(filesTouched.sum());
+      return projectFiles;
+    }
+
+    final Path rootDirectory = projectRootDirectory.toPath();
+    final Set<String> imageFileSuffixes = imageFileSuffixes();
+    final Set<String> referencingFileSuffixes = referencingFileSuffixes();
+    final SortedSet<File> imageFiles = new TreeSet<File>();
+    final SortedSet<File> referencingFiles = new TreeSet<File>();
+    final AtomicInteger filesTouched = new AtomicInteger();
+
+    // Follow links like listFiles() used to - loops are reported to visitFileFailed() rather than walked forever
+    walkFileTree(rootDirectory, EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+        // Listing directories isn't interruptible, so check in between
+        if (Thread.currentThread().isInterrupted())
+          throw new InterruptedIOException("Interrupted while walking the project.");
+
+        if (!directory.equals(rootDirectory) && isPrunedDirectoryName(directory.getFileName().toString()))
+          return SKIP_SUBTREE;
+
+        return CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        filesTouched.incrementAndGet();
+
+        if (!attributes.isRegularFile())
+          return CONTINUE;
 
-    for (File pngFile : listFiles(projectRootDirectory,
-      new SuffixFileFilter(new ArrayList<String>(imageFileSuffixes())), new NotFileFilter(new NameFileFilter(
-        new ArrayList<String>(ignoredDirectoryNames())))))
-      allImageFiles.add(pngFile);
+        String filename = file.getFileName().toString();
 
-    return allImageFiles;
+        if (hasSuffix(filename, imageFileSuffixes))
+          imageFiles.add(file.toFile());
+        if (attributes.size() > 0 && hasSuffix(filename, referencingFileSuffixes))
+          referencingFiles.add(file.toFile());
+
+        return CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        // Unreadable, vanished mid-walk or a link loop - nothing we can analyze
+        return CONTINUE;
+      }
+    });
+
+    recordFilesTouched(filesTouched.get());
+
+    return new ProjectFiles(imageFiles, referencingFiles);
+  }
+
+  /** @return {@code true} if directories named {@code directoryName} are left out of the analysis. */
+  protected boolean isPrunedDirectoryName(String directoryName) {
+    return ignoredDirectoryNames().contains(directoryName) || prunedDirectoryNames().contains(directoryName);
+  }
+
+  /** @return {@code true} if {@code file} is inside a directory that's left out of the analysis. */
+  protected boolean isInPrunedDirectory(File projectRootDirectory, File file) {
+    File directory = file.getParentFile();
+
+    for (; directory != null && !directory.equals(projectRootDirectory); directory = directory.getParentFile())
+      if (isPrunedDirectoryName(directory.getName()))
+        return true;
+
+    return false;
+  }
+
+  /** @return {@code true} if {@code file} would be picked up by {@link #extractAllImageFiles(File)}. */
+  protected boolean isImageFile(File projectRootDirectory, File file) {
+    return hasSuffix(file.getName(), imageFileSuffixes()) && !isInPrunedDirectory(projectRootDirectory, file);
+  }
+
+  /** @return {@code true} if {@code file} is of a type that could potentially include image references. */
+  protected boolean isReferencingFile(File file) {
+    return hasSuffix(file.getName(), referencingFileSuffixes());
+  }
+
+  /**
+   * @return {@code true} if {@code file} is of a type that could potentially include image references and isn't inside
+   *         a directory that's left out of the analysis.
+   */
+  protected boolean isReferencingFile(File projectRootDirectory, File file) {
+    return isReferencingFile(file) && !isInPrunedDirectory(projectRootDirectory, file);
+  }
+
+  static boolean hasSuffix(String filename, Set<String> suffixes) {
+    for (String suffix : suffixes)
+      if (filename.endsWith(suffix))
+        return true;
+
+    return false;
+  }
+
+  /** @return {@code file}, resolved against {@code projectRootDirectory} if it's relative. */
+  protected File resolveProjectFile(File projectRootDirectory, File file) {
+    return file.isAbsolute() ? file : new File(projectRootDirectory, file.getPath());
   }
 
   protected SortedSet<String> extractFilenames(Iterable<File> files) {
@@ -390,18 +1638,90 @@ public class ArtworkAnalyzer {
     return filenames;
   }
 
-  protected void detectImageMetrics(ApplicationArtwork applicationArtwork) throws IOException {
-    SortedMap<File, ImageMetrics> allImageFilesWithMetrics = new TreeMap<File, ImageMetrics>();
-    double sizeOfAllImagesFilesInBytes = 0;
+  /** Modifies the passed-in {@code applicationArtwork} instance to include image metrics data. */
+  protected void detectImageMetrics(ApplicationArtwork applicationArtwork) throws Exception {
+    LongAdder sizeOfAllImagesFilesInBytes = new LongAdder();
 
-    for (File imageFile : applicationArtwork.getAllImageFiles()) {
-      byte[] imageData = readFileToByteArray(imageFile);
-      sizeOfAllImagesFilesInBytes += imageData.length;
-      allImageFilesWithMetrics.put(imageFile, ImageUtilities.extractImageMetrics(imageData));
+    applicationArtwork.setAllImageFilesWithMetrics(extractImageMetrics(applicationArtwork.getAllImageFiles(),
+      sizeOfAllImagesFilesInBytes));
+    applicationArtwork.setSizeOfAllImagesFilesInBytes(sizeOfAllImagesFilesInBytes.sum());
+  }
+
+  /**
+   * Extracts metrics for the given image files concurrently, consulting the image metrics cache if one is configured.
+   * The size of each image file is added to {@code sizeOfImageFilesInBytes}.
+   * 
+   * @return Mapping of image files -> their metrics.
+   */
+  protected SortedMap<File, ImageMetrics> extractImageMetrics(Collection<File> imageFiles,
+      LongAdder sizeOfImageFilesInBytes) throws Exception {
+    ImageMetricsCache imageMetricsCache = loadImageMetricsCache();
+    SortedMap<File, ImageMetrics> imageFilesWithMetrics =
+        extractImageMetrics(imageFiles, imageMetricsCache, sizeOfImageFilesInBytes);
+
+    if (imageMetricsCache != null)
+      imageMetricsCache.save();
+
+    return imageFilesWithMetrics;
+  }
+
+  /**
+   * Extracts metrics for the given image files concurrently, consulting {@code imageMetricsCache} unless it's
+   * {@code null}. The cache is updated but not saved. The size of each image file is added to
+   * {@code sizeOfImageFilesInBytes}.
+   * 
+   * @return Mapping of image files -> their metrics.
+   */
+  protected SortedMap<File, ImageMetrics> extractImageMetrics(Collection<File> imageFiles,
+      final ImageMetricsCache imageMetricsCache, final LongAdder sizeOfImageFilesInBytes) throws Exception {
+    List<File> imageFilesToProcess = new ArrayList<File>(imageFiles);
+    List<Callable<ImageMetrics>> imageMetricsProcessingTasks =
+        new ArrayList<Callable<ImageMetrics>>(imageFilesToProcess.size());
+
+    for (final File imageFile : imageFilesToProcess) {
+      imageMetricsProcessingTasks.add(new Callable<ImageMetrics>() {
+        @Override
+        public ImageMetrics call() throws Exception {
+          // Sampled before reading, so metrics from an image that changes mid-read aren't cached as current
+          long length = imageFile.length();
+          long lastModified = imageFile.lastModified();
+          ImageMetrics imageMetrics =
+              imageMetricsCache == null ? null : imageMetricsCache.get(imageFile, length, lastModified);
+
+          if (imageMetrics == null) {
+            LongAdder bytesRead = new LongAdder();
+            imageMetrics = ImageUtilities.extractImageMetrics(imageFile, bytesRead);
+            recordBytesRead(bytesRead.sum());
+
+            if (imageMetricsCache != null && imageMetrics != null)
+              imageMetricsCache.put(imageFile, length, lastModified, imageMetrics);
+          }
+
+          sizeOfImageFilesInBytes.add(length);
+          recordFilesTouched(1);
+          return imageMetrics;
+        }
+      });
     }
 
-    applicationArtwork.setAllImageFilesWithMetrics(allImageFilesWithMetrics);
-    applicationArtwork.setSizeOfAllImagesFilesInBytes(sizeOfAllImagesFilesInBytes);
+    // invokeAll() hands back futures in task order, so results line up with imageFilesToProcess
+    List<Future<ImageMetrics>> futures = invokeAll(IO, imageMetricsProcessingTasks);
+    SortedMap<File, ImageMetrics> imageFilesWithMetrics = new TreeMap<File, ImageMetrics>();
+
+    for (int i = 0; i < imageFilesToProcess.size(); i++)
+      imageFilesWithMetrics.put(imageFilesToProcess.get(i), futures.get(i).get());
+
+    return imageFilesWithMetrics;
+  }
+
+  /**
+   * @return The image metrics cache stored in {@link #imageMetricsCacheDirectory()}, or {@code null} if caching is
+   *         disabled.
+   */
+  protected ImageMetricsCache loadImageMetricsCache() {
+    File imageMetricsCacheDirectory = imageMetricsCacheDirectory();
+    return imageMetricsCacheDirectory == null ? null : ImageMetricsCache.load(imageMetricsCacheDirectory,
+      imageMetricsCacheMaximumEntries());
   }
 
   protected SortedSet<File> extractIncorrectlySizedRetinaImageFiles(ApplicationArtwork applicationArtwork) {
@@ -426,13 +1746,24 @@ public class ArtworkAnalyzer {
     return imageFilesWithIncorrectDeviceSuffix;
   }
 
+  /** @return All files that could potentially include image references. */
+  protected SortedSet<File> extractReferencingFiles(File projectRootDirectory) throws IOException {
+    return extractProjectFiles(projectRootDirectory).getReferencingFiles();
+  }
+
   /** @return Mapping of files that could potentially include image references -> their textual contents. */
   protected Map<File, String> extractContentsOfReferencingFiles(File projectRootDirectory) throws IOException {
+    return extractContentsOfReferencingFiles(extractReferencingFiles(projectRootDirectory));
+  }
+
+  /** @return Mapping of the given referencing files -> their textual contents, leaving out empty files. */
+  protected Map<File, String> extractContentsOfReferencingFiles(Collection<File> referencingFiles) throws IOException {
     Map<File, String> referencingFilesToContents = new HashMap<File, String>();
 
-    for (File textFile : listFiles(projectRootDirectory, new SuffixFileFilter(new ArrayList<String>(
-      referencingFileSuffixes())), TrueFileFilter.INSTANCE)) {
+    for (File textFile : referencingFiles) {
       String contents = readFileToString(textFile);
+      recordFilesTouched(1);
+      recordBytesRead(textFile.length());
 
       if (contents.length() > 0)
         referencingFilesToContents.put(textFile, contents);
@@ -441,6 +1772,129 @@ public class ArtworkAnalyzer {
     return referencingFilesToContents;
   }
 
+  /**
+   * Scans the raw bytes of {@code referencingFile} without decoding them - image names are matched in their encoded
+   * form instead. Large files are memory-mapped rather than copied onto the heap.
+   * <p>
+   * Files which look like UTF-16, as {@code .strings} files often are, are decoded first. Files too large to map, or
+   * in a default charset that isn't ASCII-compatible, are read through a {@link Reader} a chunk at a time.
+   * 
+   * @return Image files referenced by {@code referencingFile}.
+   */
+  protected Set<File> scanReferencingFile(File referencingFile, ReferenceTokenizer<File> imageReferenceTokenizer)
+      throws IOException {
+    return scanReferencingFile(referencingFile, imageReferenceTokenizer, null);
+  }
+
+  /**
+   * Like {@link #scanReferencingFile(File, ReferenceTokenizer)}, also recording every token in {@code referencingFile}
+   * in {@code tokenFilterBuilder} if it isn't {@code null}.
+   */
+  Set<File> scanReferencingFile(File referencingFile, ReferenceTokenizer<File> imageReferenceTokenizer,
+      TokenFilter.Builder tokenFilterBuilder) throws IOException {
+    FileInputStream inputStream = new FileInputStream(referencingFile);
+
+    try {
+      FileChannel fileChannel = inputStream.getChannel();
+      long size = fileChannel.size();
+
+      if (size > Integer.MAX_VALUE || !imageReferenceTokenizer.canScanBytes())
+        return scanReferencingFileAsText(referencingFile, imageReferenceTokenizer, tokenFilterBuilder);
+
+      ByteBuffer contents =
+          size >= MEMORY_MAPPING_THRESHOLD_IN_BYTES ? fileChannel.map(READ_ONLY, 0, size) : readFully(fileChannel,
+            (int) size);
+
+      recordFilesTouched(1);
+      recordBytesRead(contents.remaining());
+
+      Charset utf16Charset = detectUtf16Charset(contents);
+
+      return utf16Charset == null ? imageReferenceTokenizer.findReferences(contents, tokenFilterBuilder)
+          : imageReferenceTokenizer.findReferences(utf16Charset.decode(contents), tokenFilterBuilder);
+    } finally {
+      closeQuietly(inputStream);
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel fileChannel, int size) throws IOException {
+    ByteBuffer contents = ByteBuffer.allocate(size);
+
+    while (contents.hasRemaining())
+      if (fileChannel.read(contents) == -1)
+        break;
+
+    contents.flip();
+    return contents;
+  }
+
+  /**
+   * @return The UTF-16 flavor {@code contents} appears to be encoded in - judging by its byte order mark, or failing
+   *         that by the zero bytes ASCII characters get in UTF-16 - or {@code null} if it doesn't look like UTF-16.
+   */
+  static Charset detectUtf16Charset(ByteBuffer contents) {
+    int start = contents.position();
+    int sampleSize = min(contents.remaining(), UTF16_DETECTION_SAMPLE_SIZE_IN_BYTES) & ~1;
+
+    if (sampleSize < 2)
+      return null;
+
+    int firstByte = contents.get(start) & 0xFF;
+    int secondByte = contents.get(start + 1) & 0xFF;
+
+    // The UTF-16 decoder picks byte order from the byte order mark and skips over it
+    if ((firstByte == 0xFE && secondByte == 0xFF) || (firstByte == 0xFF && secondByte == 0xFE))
+      return UTF_16;
+
+    int evenZeroBytes = 0;
+    int oddZeroBytes = 0;
+
+    for (int i = start; i < start + sampleSize; i += 2) {
+      if (contents.get(i) == 0)
+        evenZeroBytes++;
+      if (contents.get(i + 1) == 0)
+        oddZeroBytes++;
+    }
+
+    int characters = sampleSize / 2;
+
+    if (oddZeroBytes * 2 > characters && evenZeroBytes * 4 < characters)
+      return UTF_16LE;
+    if (evenZeroBytes * 2 > characters && oddZeroBytes * 4 < characters)
+      return UTF_16BE;
+
+    return null;
+  }
+
+  /**
+   * Reads through {@code referencingFile} a chunk at a time, decoding it with the default charset, so only a small
+   * window of its contents is ever in memory.
+   * 
+   * @return Image files referenced by {@code referencingFile}.
+   */
+  protected Set<File> scanReferencingFileAsText(File referencingFile, ReferenceTokenizer<File> imageReferenceTokenizer)
+      throws IOException {
+    return scanReferencingFileAsText(referencingFile, imageReferenceTokenizer, null);
+  }
+
+  /**
+   * Like {@link #scanReferencingFileAsText(File, ReferenceTokenizer)}, also recording every token in
+   * {@code referencingFile} in {@code tokenFilterBuilder} if it isn't {@code null}.
+   */
+  Set<File> scanReferencingFileAsText(File referencingFile, ReferenceTokenizer<File> imageReferenceTokenizer,
+      TokenFilter.Builder tokenFilterBuilder) throws IOException {
+    CountingInputStream inputStream = new CountingInputStream(new FileInputStream(referencingFile));
+    Reader reader = new InputStreamReader(inputStream, Charset.defaultCharset());
+
+    try {
+      return imageReferenceTokenizer.findReferences(reader, tokenFilterBuilder);
+    } finally {
+      closeQuietly(reader);
+      recordFilesTouched(1);
+      recordBytesRead(inputStream.getByteCount());
+    }
+  }
+
   /**
    * @return All possible variants of the given image file. For example, an input of {@code background.png} would return
    *         values like {@code background@2x.png}, {@code background~ipad.png}, etc.
@@ -508,25 +1962,23 @@ public class ArtworkAnalyzer {
   }
 
   /**
-   * @return Creates a backing thread pool used for concurrent execution of image processing tasks.
+   * @return Creates the execution strategy used when none is supplied to the constructor - separate I/O and CPU
+   *         executors sized by {@link #ioTaskConcurrency()} and {@link #cpuTaskConcurrency()}, with virtual threads
+   *         for I/O if {@link #useVirtualThreadsForIoTasks()} says so.
    */
-  protected ExecutorService createExecutorService() {
-    int coreThreadCount = getRuntime().availableProcessors();
-    int maximumThreadCount = coreThreadCount;
-    int unusedThreadTerminationTimeoutInSeconds = 5;
-
-    ThreadPoolExecutor threadPoolExecutor =
-        new ThreadPoolExecutor(coreThreadCount, maximumThreadCount, unusedThreadTerminationTimeoutInSeconds, SECONDS,
-          new LinkedBlockingQueue<Runnable>());
-
-    threadPoolExecutor.allowCoreThreadTimeOut(true);
+  protected ArtworkExecutionStrategy createExecutionStrategy() {
+    return new ThreadPoolArtworkExecutionStrategy(ioTaskConcurrency(), cpuTaskConcurrency(),
+      useVirtualThreadsForIoTasks());
+  }
 
-    return threadPoolExecutor;
+  /** @return Decides which executors concurrent image processing tasks run on. */
+  protected ArtworkExecutionStrategy getExecutionStrategy() {
+    return executionStrategy;
   }
 
-  /** @return The backing thread pool used for concurrent execution of image processing tasks. */
-  protected ExecutorService getExecutorService() {
-    return executorService;
+  /** @return The executor for concurrent image processing tasks of the given workload. */
+  protected ExecutorService getExecutorService(ArtworkWorkload workload) {
+    return getExecutionStrategy().getExecutorService(workload);
   }
 
   /**
@@ -550,6 +2002,201 @@ public class ArtworkAnalyzer {
     return STANDARD_APPLICATION_IMAGE_FILENAMES;
   }
 
+  /**
+   * @return {@code true} if referencing files should be scanned in chunks as they're read, {@code false} to load the
+   *         contents of all referencing files into memory up front. Default behavior is to stream.
+   */
+  public boolean streamReferencingFiles() {
+    return true;
+  }
+
+  /**
+   * @return Reconstruction filter used to scale nonretina images up when generating retina images. Default behavior is
+   *         to use {@link ResamplingKernel#BICUBIC}.
+   */
+  public ResamplingKernel retinaImageResamplingKernel() {
+    return ImageUtilities.DEFAULT_RESAMPLING_KERNEL;
+  }
+
+  /**
+   * @return {@code true} if resampling during retina image generation should shrink an image by large factors in
+   *         several halving steps rather than in one, which is faster for wide kernels and avoids aliasing. Retina
+   *         images are scaled up, so this rarely comes into play. Default behavior is to resample progressively.
+   */
+  public boolean progressiveRetinaImageResampling() {
+    return ImageUtilities.DEFAULT_PROGRESSIVE_RESAMPLING;
+  }
+
+  /**
+   * @return {@code true} if extracted {@link ApplicationArtwork} should be compacted before it's returned - see
+   *         {@link ApplicationArtwork#compact()}. This greatly reduces the memory held by results for projects with
+   *         tens of thousands of images, at the cost of rebuilding each collection the first time it's asked for.
+   *         Default behavior is to compact.
+   */
+  public boolean compactApplicationArtwork() {
+    return true;
+  }
+
+  /**
+   * @return How to encode the retina image generated from the given nonretina image, trading encoding time against
+   *         output size. Called per image, so for example small images can be compressed harder than large ones.
+   *         Up-to-date retina images encoded with different options are generated again. Default behavior is
+   *         {@link PngEncodingOptions#DEFAULT}.
+   */
+  public PngEncodingOptions retinaImagePngEncodingOptions(File nonretinaImageFile, ImageMetrics imageMetrics) {
+    return PngEncodingOptions.DEFAULT;
+  }
+
+  /**
+   * @return Retina images with more pixels than this are generated a band at a time, which bounds memory use at the
+   *         cost of some extra decoding work. Default behavior is to band images larger than 2048 x 2048.
+   */
+  public long bandedScalingThresholdInPixels() {
+    return DEFAULT_BANDED_SCALING_THRESHOLD_IN_PIXELS;
+  }
+
+  /**
+   * @return Roughly how many pixels a single banded scaling task holds in memory at once. Default behavior is 1024 x
+   *         1024, i.e. about 4MB of ARGB pixel data per task.
+   */
+  public long maximumScalingBandSizeInPixels() {
+    return DEFAULT_MAXIMUM_SCALING_BAND_SIZE_IN_PIXELS;
+  }
+
+  /**
+   * @return Listener which receives timing and counters for each phase of {@link #extractApplicationArtwork(File)} as
+   *         they're recorded, or {@code null} for none. Metrics are attached to the resulting
+   *         {@link ApplicationArtwork} either way. Default behavior is {@code null}.
+   */
+  public ArtworkExtractionMetricsListener artworkExtractionMetricsListener() {
+    return null;
+  }
+
+  /**
+   * @return Roughly how much memory, in bytes, retina image generation tasks running at the same time may use between
+   *         them. Tasks are held back until enough of the budget is free. Default behavior is half of the JVM's maximum
+   *         heap size.
+   */
+  public long retinaImageGenerationMemoryBudgetInBytes() {
+    return getRuntime().maxMemory() / 2;
+  }
+
+  /**
+   * @return How many images the given retina image generation stage may work on at once. Default behavior is
+   *         {@code 2} for the disk-bound {@link RetinaImageGenerationStage#READ} and
+   *         {@link RetinaImageGenerationStage#WRITE} stages and {@link #cpuTaskConcurrency()} for the others. These
+   *         stages run on threads of their own rather than through the {@link ArtworkExecutionStrategy}.
+   */
+  public int retinaImageGenerationConcurrency(RetinaImageGenerationStage stage) {
+    return stage == READ || stage == WRITE ? DEFAULT_RETINA_IMAGE_GENERATION_IO_CONCURRENCY : cpuTaskConcurrency();
+  }
+
+  /**
+   * @return How many images may wait in front of each retina image generation stage. Waiting images count against
+   *         {@link #retinaImageGenerationMemoryBudgetInBytes()} like any others. Default behavior is one per available
+   *         processor.
+   */
+  public int retinaImageGenerationQueueCapacity() {
+    return getRuntime().availableProcessors();
+  }
+
+  /**
+   * @return {@code true} if retina images which are already up to date should be left alone rather than generated
+   *         again. Generated images are recorded in a manifest file in the output directory, and an image is up to date
+   *         if neither it nor its nonretina source has changed since, and it was generated with the same resampling
+   *         settings and {@link #retinaImagePngEncodingOptions(File, ImageMetrics) encoding options}. Default behavior
+   *         is to skip up-to-date images.
+   */
+  public boolean skipUpToDateRetinaImages() {
+    return true;
+  }
+
+  /**
+   * @return {@code true} if a nonretina source whose last-modified time changed should be hashed to find out whether
+   *         its contents actually changed before its retina image is generated again. Helps when checkouts or build
+   *         tools touch files without changing them, at the cost of hashing every source that's generated from.
+   *         Default behavior is to go by last-modified time alone.
+   */
+  public boolean compareRetinaImageSourceContentHashes() {
+    return false;
+  }
+
+  /**
+   * @return Directory in which image metrics are cached between runs, so unchanged images don't need to be read again.
+   *         Default behavior is to not cache, indicated by {@code null}.
+   */
+  public File imageMetricsCacheDirectory() {
+    return null;
+  }
+
+  /**
+   * @return The most image files the image metrics cache will remember. Least recently used entries are discarded
+   *         first.
+   */
+  public int imageMetricsCacheMaximumEntries() {
+    return DEFAULT_IMAGE_METRICS_CACHE_MAXIMUM_ENTRIES;
+  }
+
+  /**
+   * @return How many findings from {@link #streamArtworkFindings(File, ArtworkFindingsListener)} may wait for the
+   *         listener before the analysis waits for it to catch up. Default behavior is {@code 1024}.
+   */
+  public int artworkFindingsBufferCapacity() {
+    return DEFAULT_ARTWORK_FINDINGS_BUFFER_CAPACITY;
+  }
+
+  /**
+   * @return How many images or referencing files {@link #streamArtworkFindings(File, ArtworkFindingsListener)} reads
+   *         at a time. Each batch's results are held in memory until it's done. Default behavior is {@code 1024}.
+   */
+  public int artworkFindingsBatchSize() {
+    return DEFAULT_ARTWORK_FINDINGS_BATCH_SIZE;
+  }
+
+  /**
+   * @return How many I/O-bound tasks - reading image metrics, scanning referencing files - the default execution
+   *         strategy runs at once. These spend most of their time waiting on the filesystem, so it pays to have more
+   *         in flight than there are cores. Default behavior is four per available processor.
+   */
+  public int ioTaskConcurrency() {
+    return DEFAULT_IO_TASK_CONCURRENCY_PER_PROCESSOR * getRuntime().availableProcessors();
+  }
+
+  /**
+   * @return How many CPU-bound tasks the default execution strategy runs at once. Default behavior is one per
+   *         available processor.
+   */
+  public int cpuTaskConcurrency() {
+    return getRuntime().availableProcessors();
+  }
+
+  /**
+   * @return {@code true} if the default execution strategy should give each I/O-bound task its own virtual thread
+   *         rather than a pool thread. Still no more than {@link #ioTaskConcurrency()} run at once. Ignored on JDKs
+   *         without virtual threads. Default behavior is to use virtual threads where they're available.
+   */
+  public boolean useVirtualThreadsForIoTasks() {
+    return true;
+  }
+
+  /**
+   * @return How many directories may be listed at once when walking a project. Raising this helps when directory
+   *         listings are slow - network mounts, or very wide trees with thousands of asset catalogs. Default behavior
+   *         is {@code 1}, which walks the project one directory at a time.
+   */
+  public int directoryTraversalParallelism() {
+    return 1;
+  }
+
+  /**
+   * @return Directories which never contain anything worth analyzing - version control metadata, build output and
+   *         third-party dependencies - so they're skipped entirely. Default behavior is to skip {@code .git},
+   *         {@code .svn}, {@code .hg}, {@code Pods} and {@code DerivedData}.
+   */
+  public Set<String> prunedDirectoryNames() {
+    return PRUNED_DIRECTORY_NAMES;
+  }
+
   /**
    * @return Directories to skip over when detecting images. For example: FacebookSDK.framework. Default behavior is to
    *         not skip any directories.
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Decides which executors {@link ArtworkAnalyzer} runs its concurrent tasks on.
+ * <p>
+ * Use {@link ThreadPoolArtworkExecutionStrategy} for executors owned by the analyzer, or
+ * {@link ExecutorServiceArtworkExecutionStrategy} to run on executors you manage yourself. Pass either to
+ * {@link ArtworkAnalyzer#ArtworkAnalyzer(ArtworkExecutionStrategy)}.
+ * <p>
+ * Implementations must be threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public interface ArtworkExecutionStrategy {
+  /**
+   * @return The executor to run tasks of the given workload on. Tasks are submitted in batches through
+   *         {@link ExecutorService#invokeAll(java.util.Collection)} and never wait on each other.
+   */
+  ExecutorService getExecutorService(ArtworkWorkload workload);
+
+  /**
+   * Called by {@link ArtworkAnalyzer#shutdown()}. Executors this strategy created should be shut down; executors it
+   * was handed should be left alone.
+   */
+  void shutdown();
+}
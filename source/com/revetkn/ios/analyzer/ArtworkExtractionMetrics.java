@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-phase timing and counters for a single run of {@link ArtworkAnalyzer#extractApplicationArtwork(java.io.File)}.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ArtworkExtractionMetrics {
+  private final Map<ArtworkExtractionPhase, ArtworkExtractionPhaseMetrics> phaseMetrics;
+  private final long startTimeInNanoseconds;
+  private volatile long wallTimeInNanoseconds;
+
+  ArtworkExtractionMetrics() {
+    phaseMetrics = new EnumMap<ArtworkExtractionPhase, ArtworkExtractionPhaseMetrics>(ArtworkExtractionPhase.class);
+
+    for (ArtworkExtractionPhase phase : ArtworkExtractionPhase.values())
+      phaseMetrics.put(phase, new ArtworkExtractionPhaseMetrics(phase));
+
+    startTimeInNanoseconds = System.nanoTime();
+  }
+
+  void stop() {
+    wallTimeInNanoseconds = System.nanoTime() - startTimeInNanoseconds;
+  }
+
+  /**
+   * @return Metrics for the given phase.
+   * @throws NullPointerException
+   *           If {@code phase} is {@code null}.
+   */
+  public ArtworkExtractionPhaseMetrics getPhaseMetrics(ArtworkExtractionPhase phase) {
+    if (phase == null)
+      throw new NullPointerException("The 'phase' parameter cannot be null.");
+
+    return phaseMetrics.get(phase);
+  }
+
+  /**
+   * @return Metrics for every phase, in the order the phases run.
+   */
+  public List<ArtworkExtractionPhaseMetrics> getAllPhaseMetrics() {
+    return Collections.unmodifiableList(new ArrayList<ArtworkExtractionPhaseMetrics>(phaseMetrics.values()));
+  }
+
+  /**
+   * @return How long the whole extraction took from start to finish.
+   */
+  public long getWallTimeInNanoseconds() {
+    return wallTimeInNanoseconds;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return format("%s{wallTimeInNanoseconds=%d, phaseMetrics=%s}", getClass().getSimpleName(),
+      getWallTimeInNanoseconds(), getAllPhaseMetrics());
+  }
+}
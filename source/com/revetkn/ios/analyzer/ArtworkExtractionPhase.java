@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+/**
+ * The phases of {@link ArtworkAnalyzer#extractApplicationArtwork(java.io.File)} for which
+ * {@link ArtworkExtractionMetrics} are recorded.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public enum ArtworkExtractionPhase {
+  /** Walking the project to find image files. */
+  EXTRACT_ALL_IMAGE_FILES,
+
+  /** Reading image dimensions and sizes. */
+  DETECT_IMAGE_METRICS,
+
+  /** Scanning referencing files for references to images. */
+  DETECT_IMAGE_REFERENCES,
+
+  /** Pairing retina and nonretina images and checking retina image dimensions. */
+  DETECT_RETINA_AND_NONRETINA_IMAGES,
+
+  /** Looking for Apple-defined standard application images and misnamed device-specific images. */
+  DETECT_STANDARD_APPLICATION_IMAGES
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing and counters for a single {@link ArtworkExtractionPhase}.
+ * <p>
+ * Counters are updated concurrently by the tasks a phase runs, so values are only final once the phase has completed.
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ArtworkExtractionPhaseMetrics {
+  private final ArtworkExtractionPhase phase;
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder filesTouched = new LongAdder();
+  private final LongAdder tasksExecuted = new LongAdder();
+  private final LongAdder taskQueueWaitTimeInNanoseconds = new LongAdder();
+  private volatile long startTimeInNanoseconds;
+  private volatile long wallTimeInNanoseconds;
+
+  ArtworkExtractionPhaseMetrics(ArtworkExtractionPhase phase) {
+    if (phase == null)
+      throw new NullPointerException("The 'phase' parameter cannot be null.");
+
+    this.phase = phase;
+  }
+
+  void start() {
+    startTimeInNanoseconds = System.nanoTime();
+  }
+
+  void stop() {
+    wallTimeInNanoseconds = System.nanoTime() - startTimeInNanoseconds;
+  }
+
+  void addBytesRead(long bytes) {
+    bytesRead.add(bytes);
+  }
+
+  void addFilesTouched(long files) {
+    filesTouched.add(files);
+  }
+
+  void addTaskExecution(long queueWaitTimeInNanoseconds) {
+    tasksExecuted.increment();
+    taskQueueWaitTimeInNanoseconds.add(queueWaitTimeInNanoseconds);
+  }
+
+  /**
+   * @return The phase these metrics describe.
+   */
+  public ArtworkExtractionPhase getPhase() {
+    return phase;
+  }
+
+  /**
+   * @return How long the phase took from start to finish.
+   */
+  public long getWallTimeInNanoseconds() {
+    return wallTimeInNanoseconds;
+  }
+
+  /**
+   * @return How many bytes the phase read from disk. Image files are counted by the header bytes inspected, so images
+   *         whose metrics came from the cache contribute nothing.
+   */
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  /**
+   * @return How many files the phase picked up or opened.
+   */
+  public long getFilesTouched() {
+    return filesTouched.sum();
+  }
+
+  /**
+   * @return How many tasks the phase handed to the executor.
+   */
+  public long getTasksExecuted() {
+    return tasksExecuted.sum();
+  }
+
+  /**
+   * @return Total time the phase's tasks spent queued before a thread picked them up, summed over all tasks.
+   */
+  public long getTaskQueueWaitTimeInNanoseconds() {
+    return taskQueueWaitTimeInNanoseconds.sum();
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return format("%s{phase=%s, wallTimeInNanoseconds=%d, bytesRead=%d, filesTouched=%d, tasksExecuted=%d, "
+        + "taskQueueWaitTimeInNanoseconds=%d}", getClass().getSimpleName(), getPhase(), getWallTimeInNanoseconds(),
+      getBytesRead(), getFilesTouched(), getTasksExecuted(), getTaskQueueWaitTimeInNanoseconds());
+  }
+}
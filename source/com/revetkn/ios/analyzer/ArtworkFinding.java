@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+
+import java.io.File;
+
+/**
+ * A single problem with a project's artwork, as reported by
+ * {@link ArtworkAnalyzer#streamArtworkFindings(File, ArtworkFindingsListener)}.
+ * <p>
+ * Instances of this class are immutable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ArtworkFinding {
+  private final ArtworkFindingType type;
+  private final File imageFile;
+  private final ImageMetrics imageMetrics;
+
+  /**
+   * Constructs an immutable {@code ArtworkFinding} instance.
+   * 
+   * @param type
+   *          The kind of problem.
+   * @param imageFile
+   *          The image with the problem. For {@link ArtworkFindingType#MISSING_STANDARD_APPLICATION_IMAGE} this is just
+   *          the filename the image should have.
+   * @param imageMetrics
+   *          The image's metrics, or {@code null} if they weren't needed to find the problem.
+   */
+  public ArtworkFinding(ArtworkFindingType type, File imageFile, ImageMetrics imageMetrics) {
+    if (type == null)
+      throw new NullPointerException("The 'type' parameter cannot be null.");
+    if (imageFile == null)
+      throw new NullPointerException("The 'imageFile' parameter cannot be null.");
+
+    this.type = type;
+    this.imageFile = imageFile;
+    this.imageMetrics = imageMetrics;
+  }
+
+  /**
+   * @return The kind of problem.
+   */
+  public ArtworkFindingType getType() {
+    return type;
+  }
+
+  /**
+   * @return The image with the problem. For {@link ArtworkFindingType#MISSING_STANDARD_APPLICATION_IMAGE} this is just
+   *         the filename the image should have.
+   */
+  public File getImageFile() {
+    return imageFile;
+  }
+
+  /**
+   * @return The image's metrics, or {@code null} if they weren't needed to find the problem.
+   */
+  public ImageMetrics getImageMetrics() {
+    return imageMetrics;
+  }
+
+  /**
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other)
+      return true;
+    if (!(other instanceof ArtworkFinding))
+      return false;
+
+    ArtworkFinding otherFinding = (ArtworkFinding) other;
+    return otherFinding.getType() == getType() && otherFinding.getImageFile().equals(getImageFile())
+        && (getImageMetrics() == null ? otherFinding.getImageMetrics() == null : getImageMetrics().equals(
+          otherFinding.getImageMetrics()));
+  }
+
+  /**
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    hash = hash * 31 + getType().hashCode();
+    hash = hash * 29 + getImageFile().hashCode();
+    hash = hash * 17 + (getImageMetrics() == null ? 0 : getImageMetrics().hashCode());
+    return hash;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return format("%s{type=%s, imageFile=%s, imageMetrics=%s}", getClass().getSimpleName(), getType(),
+      getImageFile(), getImageMetrics());
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package com.revetkn.ios.analyzer;
+
+/**
+ * The kinds of problem {@link ArtworkAnalyzer#streamArtworkFindings(java.io.File, ArtworkFindingsListener)} reports.
+ * Each corresponds to one of the problem collections on {@link ApplicationArtwork}.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public enum ArtworkFindingType {
+  /** A nonretina image with no {@code @2x} counterpart. */
+  NONRETINA_IMAGE_MISSING_RETINA_IMAGE,
+
+  /** A {@code @2x} image with no nonretina counterpart. */
+  RETINA_IMAGE_MISSING_NONRETINA_IMAGE,
+
+  /** An image named with {@code ~iphone}, which iOS doesn't recognize as a device suffix. */
+  IMAGE_WITH_INCORRECT_DEVICE_SUFFIX,
+
+  /** An Apple-defined standard application image the project doesn't have. Only the image's filename is known. */
+  MISSING_STANDARD_APPLICATION_IMAGE,
+
+  /** A retina image with an odd width or height, so it can't be exactly twice the size of its nonretina image. */
+  INCORRECTLY_SIZED_RETINA_IMAGE,
+
+  /** An image no referencing file mentions. */
+  UNREFERENCED_IMAGE,
+
+  /** An image mentioned only by the Xcode project file, i.e. bundled with the application but never used. */
+  ONLY_PROJECT_FILE_REFERENCED_IMAGE
+}
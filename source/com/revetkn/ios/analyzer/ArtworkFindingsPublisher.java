@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package com.revetkn.ios.analyzer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands findings over to an {@link ArtworkFindingsListener} on a thread of its own, through a bounded queue. Whoever
+ * publishes findings waits whenever the queue is full, so a slow listener holds up the analysis rather than letting
+ * findings pile up in memory.
+ * <p>
+ * If the listener throws, the rest of the findings are discarded and the exception is rethrown to the publisher the
+ * next time it publishes or calls {@link #finish()}.
+ * <p>
+ * Findings must be published from a single thread.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class ArtworkFindingsPublisher {
+  /** Queued after the last finding to tell the delivery thread to stop. */
+  private static final Object END = new Object();
+
+  private final ArtworkFindingsListener findingsListener;
+  private final BlockingQueue<Object> queue;
+  private final Thread thread;
+  private volatile Throwable failure;
+  private volatile boolean aborted;
+
+  /**
+   * Creates a publisher for the given listener. Nothing is delivered until {@link #start()} is called.
+   * 
+   * @param findingsListener
+   *          Receives the findings.
+   * @param capacity
+   *          How many findings and phase completions may wait for the listener.
+   * @throws NullPointerException
+   *           If {@code findingsListener} is {@code null}.
+   * @throws IllegalArgumentException
+   *           If {@code capacity} is less than 1.
+   */
+  ArtworkFindingsPublisher(ArtworkFindingsListener findingsListener, int capacity) {
+    if (findingsListener == null)
+      throw new NullPointerException("The 'findingsListener' parameter cannot be null.");
+    if (capacity < 1)
+      throw new IllegalArgumentException("The 'capacity' parameter must be >= 1.");
+
+    this.findingsListener = findingsListener;
+    this.queue = new ArrayBlockingQueue<Object>(capacity);
+    this.thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        deliver();
+      }
+    }, "artwork-findings");
+
+    this.thread.setDaemon(true);
+  }
+
+  /** Starts the delivery thread. */
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Queues {@code finding} for the listener, waiting for room if the queue is full.
+   * 
+   * @throws InterruptedException
+   *           If interrupted while waiting for room.
+   */
+  void publish(ArtworkFinding finding) throws InterruptedException {
+    enqueue(finding);
+  }
+
+  /**
+   * Queues notice that {@code phase} has made all of its findings, waiting for room if the queue is full.
+   * 
+   * @throws InterruptedException
+   *           If interrupted while waiting for room.
+   */
+  void publishPhaseCompleted(ArtworkExtractionPhase phase) throws InterruptedException {
+    enqueue(phase);
+  }
+
+  /**
+   * Waits for everything published so far to be delivered, then stops the delivery thread.
+   * 
+   * @throws InterruptedException
+   *           If interrupted while waiting.
+   */
+  void finish() throws InterruptedException {
+    enqueue(END);
+    thread.join();
+    throwIfFailed();
+  }
+
+  /**
+   * Discards anything not yet delivered and stops the delivery thread once the listener returns from its current
+   * callback, without waiting for it.
+   */
+  void abort() {
+    aborted = true;
+    queue.clear();
+
+    // Findings are published from one thread, and it's this one, so there's room now
+    queue.offer(END);
+  }
+
+  private void enqueue(Object item) throws InterruptedException {
+    throwIfFailed();
+    queue.put(item);
+  }
+
+  private void throwIfFailed() {
+    Throwable failure = this.failure;
+
+    if (failure instanceof Error)
+      throw (Error) failure;
+    if (failure instanceof RuntimeException)
+      throw (RuntimeException) failure;
+    if (failure != null)
+      throw new ArtworkProcessingException(failure);
+  }
+
+  private void deliver() {
+    while (true) {
+      Object item;
+
+      try {
+        item = queue.take();
+      } catch (InterruptedException e) {
+        // Only END stops delivery, otherwise the publisher could wait on a full queue forever
+        continue;
+      }
+
+      if (item == END)
+        return;
+
+      // Keep draining after a failure so the publisher never waits on a full queue forever
+      if (failure != null || aborted)
+        continue;
+
+      try {
+        if (item instanceof ArtworkFinding)
+          findingsListener.onFinding((ArtworkFinding) item);
+        else
+          findingsListener.onPhaseCompleted((ArtworkExtractionPhase) item);
+      } catch (Throwable throwable) {
+        failure = throwable;
+      }
+    }
+  }
+}
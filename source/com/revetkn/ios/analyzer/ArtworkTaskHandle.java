@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle on an analysis run started through one of {@link ArtworkAnalyzer}'s asynchronous methods, for example
+ * {@link ArtworkAnalyzer#extractApplicationArtworkAsync(java.io.File, ArtworkExtractionProgressCallback,
+ * ArtworkTaskLimits)}.
+ * <p>
+ * Each run gets a daemon thread of its own, so a run that's stuck can't keep the JVM from exiting. Cancelling with
+ * {@code mayInterruptIfRunning} interrupts that thread, which cancels the tasks it's waiting on in turn - in-flight
+ * file reads are abandoned, queued tasks never start and the run's buffers are let go. Passing the deadline in the
+ * run's {@link ArtworkTaskLimits} does the same. {@link #awaitTermination(long, TimeUnit)} waits for all that to
+ * finish.
+ * <p>
+ * A run that fails completes with an {@link ExecutionException} wrapping whatever the equivalent synchronous method
+ * would have thrown - usually an {@link ArtworkProcessingException}. If a task ran past its timeout, a
+ * {@link TimeoutException} is among its causes.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ArtworkTaskHandle<T> implements Future<T> {
+  private final FutureTask<T> futureTask;
+  private final Thread thread;
+  private final ScheduledThreadPoolExecutor scheduledExecutorService;
+  private final long timeoutInMillis;
+  private volatile boolean deadlineExceeded;
+
+  /**
+   * The work done by a run.
+   */
+  interface Work<T> {
+    /**
+     * @param taskTimeouts
+     *          Timeouts to apply to each task the run hands out, or {@code null} if there are none.
+     */
+    T run(TaskTimeouts taskTimeouts) throws Exception;
+  }
+
+  /**
+   * Prepares a run - call {@link #start()} to get it going.
+   * 
+   * @param name
+   *          Name of the run's thread.
+   * @param work
+   *          The work to do.
+   * @param artworkTaskLimits
+   *          Time limits for the run.
+   */
+  ArtworkTaskHandle(String name, final Work<T> work, ArtworkTaskLimits artworkTaskLimits) {
+    if (name == null)
+      throw new NullPointerException("The 'name' parameter cannot be null.");
+    if (work == null)
+      throw new NullPointerException("The 'work' parameter cannot be null.");
+    if (artworkTaskLimits == null)
+      throw new NullPointerException("The 'artworkTaskLimits' parameter cannot be null.");
+
+    this.timeoutInMillis = artworkTaskLimits.getTimeoutInMillis();
+    this.scheduledExecutorService =
+        timeoutInMillis > 0 || artworkTaskLimits.getTaskTimeoutInMillis() > 0 ? createScheduledExecutorService(name)
+            : null;
+
+    final TaskTimeouts taskTimeouts =
+        artworkTaskLimits.getTaskTimeoutInMillis() > 0 ? new TaskTimeouts(scheduledExecutorService,
+          artworkTaskLimits.getTaskTimeoutInMillis()) : null;
+
+    this.futureTask = new FutureTask<T>(new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        return work.run(taskTimeouts);
+      }
+    });
+
+    this.thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          futureTask.run();
+        } finally {
+          if (scheduledExecutorService != null)
+            scheduledExecutorService.shutdownNow();
+        }
+      }
+    }, name);
+
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Starts the run's thread, and the clock on its deadline.
+   */
+  void start() {
+    if (timeoutInMillis > 0)
+      scheduledExecutorService.schedule(new Runnable() {
+        @Override
+        public void run() {
+          deadlineExceeded = true;
+
+          if (!futureTask.cancel(true))
+            deadlineExceeded = false;
+        }
+      }, timeoutInMillis, MILLISECONDS);
+
+    thread.start();
+  }
+
+  /**
+   * Cancels the run. If {@code mayInterruptIfRunning} is {@code true}, work already under way is abandoned as soon as
+   * it notices; otherwise it's left to finish in the background, although its result is discarded.
+   */
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return futureTask.cancel(mayInterruptIfRunning);
+  }
+
+  /**
+   * @return {@code true} if the run was cancelled, either explicitly or because it passed its deadline.
+   */
+  @Override
+  public boolean isCancelled() {
+    return futureTask.isCancelled();
+  }
+
+  /**
+   * @return {@code true} if the run was cancelled because it passed its deadline.
+   */
+  public boolean isDeadlineExceeded() {
+    return deadlineExceeded;
+  }
+
+  @Override
+  public boolean isDone() {
+    return futureTask.isDone();
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    try {
+      return futureTask.get();
+    } catch (CancellationException e) {
+      throw describeCancellation(e);
+    }
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    try {
+      return futureTask.get(timeout, unit);
+    } catch (CancellationException e) {
+      throw describeCancellation(e);
+    }
+  }
+
+  /**
+   * Waits for the run's thread to stop. A cancelled run counts as done straight away, but work it had under way can
+   * take a little longer to wind down - this waits for that too.
+   * 
+   * @return {@code true} if the run's thread stopped, {@code false} if the timeout passed first.
+   * @throws InterruptedException
+   *           If interrupted while waiting.
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    if (unit == null)
+      throw new NullPointerException("The 'unit' parameter cannot be null.");
+
+    unit.timedJoin(thread, timeout);
+    return !thread.isAlive();
+  }
+
+  private CancellationException describeCancellation(CancellationException e) {
+    return deadlineExceeded ? new CancellationException(format("Deadline of %d ms exceeded.", timeoutInMillis)) : e;
+  }
+
+  private static ScheduledThreadPoolExecutor createScheduledExecutorService(final String name) {
+    ScheduledThreadPoolExecutor scheduledExecutorService = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-timeouts");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+    // Most task timers are cancelled long before they'd fire, so don't let them pile up
+    scheduledExecutorService.setRemoveOnCancelPolicy(true);
+
+    return scheduledExecutorService;
+  }
+}
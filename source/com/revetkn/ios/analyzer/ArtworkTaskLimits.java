@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+
+/**
+ * Time limits for an analysis run started through one of {@link ArtworkAnalyzer}'s asynchronous methods, for example
+ * {@link ArtworkAnalyzer#extractApplicationArtworkAsync(java.io.File, ArtworkExtractionProgressCallback,
+ * ArtworkTaskLimits)}.
+ * <p>
+ * Instances of this class are immutable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ArtworkTaskLimits {
+  /** No deadline and no per-task timeout. */
+  public static final ArtworkTaskLimits NONE = new ArtworkTaskLimits(0, 0);
+
+  private final long timeoutInMillis;
+  private final long taskTimeoutInMillis;
+
+  /**
+   * Constructs an immutable {@code ArtworkTaskLimits} instance.
+   * 
+   * @param timeoutInMillis
+   *          How long the whole run may take before it's cancelled, or {@code 0} for no deadline.
+   * @param taskTimeoutInMillis
+   *          How long any single task - reading one image's metrics, scanning one referencing file, one stage of
+   *          generating one retina image - may take before it's interrupted and the run fails, or {@code 0} for no
+   *          limit.
+   * @throws IllegalArgumentException
+   *           If either timeout is negative.
+   */
+  public ArtworkTaskLimits(long timeoutInMillis, long taskTimeoutInMillis) {
+    if (timeoutInMillis < 0)
+      throw new IllegalArgumentException("The 'timeoutInMillis' parameter must be >= 0.");
+    if (taskTimeoutInMillis < 0)
+      throw new IllegalArgumentException("The 'taskTimeoutInMillis' parameter must be >= 0.");
+
+    this.timeoutInMillis = timeoutInMillis;
+    this.taskTimeoutInMillis = taskTimeoutInMillis;
+  }
+
+  /**
+   * @return How long the whole run may take before it's cancelled, or {@code 0} for no deadline.
+   */
+  public long getTimeoutInMillis() {
+    return timeoutInMillis;
+  }
+
+  /**
+   * @return How long any single task may take before it's interrupted and the run fails, or {@code 0} for no limit.
+   */
+  public long getTaskTimeoutInMillis() {
+    return taskTimeoutInMillis;
+  }
+
+  @Override
+  public String toString() {
+    return format("%s{timeoutInMillis=%d, taskTimeoutInMillis=%d}", getClass().getSimpleName(), timeoutInMillis,
+      taskTimeoutInMillis);
+  }
+}
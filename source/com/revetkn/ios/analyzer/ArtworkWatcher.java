@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.Level.WARNING;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Keeps an {@link ApplicationArtwork} continuously up to date as files in an iOS project change.
+ * <p>
+ * Changes are picked up via a {@link WatchService} and collected until no new ones arrive for
+ * {@link #debounceIntervalInMilliseconds()}, so a burst of changes - a {@code git checkout}, for example - results in a
+ * single update. Updates are performed by
+ * {@link ArtworkAnalyzer#updateApplicationArtwork(File, ApplicationArtwork, Set, Set, Set)} and pushed to an
+ * {@link ApplicationArtworkUpdateCallback}.
+ * <p>
+ * Use {@link #start()} to perform the initial analysis and begin watching, and {@link #stop()} when done.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ArtworkWatcher {
+  private static final Logger LOGGER = Logger.getLogger(ArtworkWatcher.class.getName());
+
+  /** How long to wait for things to settle down after a change before updating, by default. */
+  private static final long DEFAULT_DEBOUNCE_INTERVAL_IN_MILLISECONDS = 500;
+
+  private final ArtworkAnalyzer artworkAnalyzer;
+  private final File projectRootDirectory;
+  private final ApplicationArtworkUpdateCallback updateCallback;
+  private final Map<WatchKey, Path> watchedDirectoriesByWatchKey = new ConcurrentHashMap<WatchKey, Path>();
+
+  private volatile ApplicationArtwork applicationArtwork;
+  private WatchService watchService;
+  private Thread watcherThread;
+
+  /**
+   * Creates a watcher for the given iOS project root directory.
+   * 
+   * @param artworkAnalyzer
+   *          The analyzer used to perform analysis.
+   * @param projectRootDirectory
+   *          The iOS project root directory to watch.
+   * @param updateCallback
+   *          Notified each time the analysis is updated.
+   */
+  public ArtworkWatcher(ArtworkAnalyzer artworkAnalyzer, File projectRootDirectory,
+      ApplicationArtworkUpdateCallback updateCallback) {
+    if (artworkAnalyzer == null)
+      throw new NullPointerException("The 'artworkAnalyzer' parameter cannot be null.");
+    if (projectRootDirectory == null)
+      throw new NullPointerException("The 'projectRootDirectory' parameter cannot be null.");
+    if (!projectRootDirectory.isDirectory())
+      throw new IllegalArgumentException(format("'%s' must be a directory.", projectRootDirectory));
+    if (updateCallback == null)
+      throw new NullPointerException("The 'updateCallback' parameter cannot be null.");
+
+    this.artworkAnalyzer = artworkAnalyzer;
+    this.projectRootDirectory = projectRootDirectory;
+    this.updateCallback = updateCallback;
+  }
+
+  /**
+   * Performs the initial analysis of the project and starts watching it for changes. Returns once the initial analysis
+   * is available via {@link #getApplicationArtwork()}.
+   * 
+   * @throws IllegalStateException
+   *           If this watcher has already been started.
+   * @throws ArtworkProcessingException
+   *           If an error occurs during the initial analysis or while setting up the watch.
+   */
+  public synchronized void start() {
+    if (watcherThread != null)
+      throw new IllegalStateException("This watcher has already been started.");
+
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+    } catch (IOException e) {
+      throw new ArtworkProcessingException(e);
+    }
+
+    try {
+      // Register before analyzing so nothing that happens during the initial analysis slips through
+      registerDirectories(projectRootDirectory.toPath());
+      applicationArtwork = artworkAnalyzer.extractApplicationArtwork(projectRootDirectory);
+    } catch (IOException e) {
+      closeWatchService();
+      throw new ArtworkProcessingException(e);
+    } catch (RuntimeException e) {
+      // Don't leak the watch handles, or leave this service's keys behind for the next start() to trip over
+      closeWatchService();
+      throw e;
+    }
+
+    watcherThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        watch();
+      }
+    }, format("%s-%s", getClass().getSimpleName(), projectRootDirectory.getName()));
+
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+  }
+
+  /**
+   * Stops watching for changes. The most recent analysis remains available via {@link #getApplicationArtwork()}.
+   */
+  public synchronized void stop() {
+    if (watcherThread == null)
+      return;
+
+    closeWatchService();
+    watcherThread.interrupt();
+    watcherThread = null;
+  }
+
+  /**
+   * Closes the watch service and forgets its keys - {@link #start()} registers everything again with a new service.
+   */
+  protected void closeWatchService() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LOGGER.warning(format("Unable to close watch service: %s", e));
+    }
+
+    watchedDirectoriesByWatchKey.clear();
+  }
+
+  /**
+   * @return The most recent analysis of the project, or {@code null} if this watcher hasn't been started yet.
+   */
+  public ApplicationArtwork getApplicationArtwork() {
+    return applicationArtwork;
+  }
+
+  /**
+   * @return How long to wait, in milliseconds, for more changes to arrive after a change before updating the analysis.
+   *         Default behavior is to wait 500 milliseconds.
+   */
+  public long debounceIntervalInMilliseconds() {
+    return DEFAULT_DEBOUNCE_INTERVAL_IN_MILLISECONDS;
+  }
+
+  /** Body of the watcher thread. */
+  protected void watch() {
+    SortedSet<File> createdFiles = new TreeSet<File>();
+    SortedSet<File> touchedFiles = new TreeSet<File>();
+    SortedSet<File> deletedPaths = new TreeSet<File>();
+    boolean rescanNeeded = false;
+
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        // Block until something happens, then keep collecting until things are quiet for the debounce interval
+        WatchKey watchKey = watchService.take();
+
+        try {
+          boolean overflowed = rescanNeeded;
+
+          while (watchKey != null) {
+            overflowed |= processWatchEvents(watchKey, createdFiles, touchedFiles, deletedPaths);
+            watchKey = watchService.poll(debounceIntervalInMilliseconds(), MILLISECONDS);
+          }
+
+          rescanNeeded = false;
+
+          if (overflowed)
+            rescan();
+          else
+            update(createdFiles, touchedFiles, deletedPaths);
+        } catch (ClosedWatchServiceException e) {
+          throw e;
+        } catch (RuntimeException e) {
+          // Don't let one bad batch - or a callback that throws - kill the watcher thread. Some changes may not have
+          // made it into the analysis, so start over from scratch next time.
+          LOGGER.log(WARNING, "Unable to process file changes, will rescan on next change.", e);
+          rescanNeeded = true;
+        } finally {
+          createdFiles.clear();
+          touchedFiles.clear();
+          deletedPaths.clear();
+        }
+      }
+    } catch (InterruptedException e) {
+      // Stop was requested
+    } catch (ClosedWatchServiceException e) {
+      // Stop was requested
+    }
+  }
+
+  /**
+   * Records the events queued for {@code watchKey}.
+   * 
+   * @return {@code true} if events were lost and a full rescan is needed.
+   */
+  protected boolean processWatchEvents(WatchKey watchKey, Set<File> createdFiles, Set<File> touchedFiles,
+      Set<File> deletedPaths) {
+    Path directory = watchedDirectoriesByWatchKey.get(watchKey);
+    boolean overflowed = false;
+
+    for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+      if (watchEvent.kind() == OVERFLOW) {
+        overflowed = true;
+        continue;
+      }
+
+      if (directory == null)
+        continue;
+
+      Path path = directory.resolve((Path) watchEvent.context());
+      File file = path.toFile();
+
+      if (watchEvent.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+        // Watch the new directory and pick up anything that landed in it before we started watching
+        try {
+          for (File createdFile : registerDirectories(path)) {
+            createdFiles.add(createdFile);
+            touchedFiles.add(createdFile);
+          }
+        } catch (IOException e) {
+          LOGGER.log(WARNING, format("Unable to watch new directory '%s', rescanning.", path), e);
+          overflowed = true;
+        }
+      } else if (watchEvent.kind() == ENTRY_CREATE) {
+        createdFiles.add(file);
+      } else if (watchEvent.kind() == ENTRY_DELETE) {
+        // Can't ask a deleted path whether it was a directory, so remember it in case it was
+        deletedPaths.add(file);
+      }
+
+      touchedFiles.add(file);
+    }
+
+    if (!watchKey.reset())
+      watchedDirectoriesByWatchKey.remove(watchKey);
+
+    return overflowed;
+  }
+
+  /**
+   * Brings the analysis up to date given the files touched since the last update.
+   */
+  protected void update(Set<File> createdFiles, Set<File> touchedFiles, Set<File> deletedPaths) {
+    ApplicationArtwork previousApplicationArtwork = applicationArtwork;
+    SortedSet<File> addedFiles = new TreeSet<File>();
+    SortedSet<File> modifiedFiles = new TreeSet<File>();
+    SortedSet<File> deletedFiles = new TreeSet<File>();
+
+    for (File touchedFile : touchedFiles) {
+      // Only images and files that could reference them matter to the analysis
+      if (!artworkAnalyzer.isImageFile(projectRootDirectory, touchedFile)
+          && !artworkAnalyzer.isReferencingFile(projectRootDirectory, touchedFile))
+        continue;
+
+      if (touchedFile.isFile()) {
+        if (createdFiles.contains(touchedFile))
+          addedFiles.add(touchedFile);
+        else
+          modifiedFiles.add(touchedFile);
+      } else if (!touchedFile.exists() && !createdFiles.contains(touchedFile)) {
+        deletedFiles.add(touchedFile);
+      }
+    }
+
+    // A directory that was deleted or moved away takes everything we knew about inside it along with it
+    if (deletedPaths.size() > 0)
+      for (File knownFile : knownFiles(previousApplicationArtwork))
+        for (File deletedPath : deletedPaths)
+          if (knownFile.getPath().startsWith(deletedPath.getPath() + File.separator))
+            deletedFiles.add(knownFile);
+
+    if (addedFiles.isEmpty() && modifiedFiles.isEmpty() && deletedFiles.isEmpty())
+      return;
+
+    try {
+      applicationArtwork =
+          artworkAnalyzer.updateApplicationArtwork(projectRootDirectory, previousApplicationArtwork, addedFiles,
+            modifiedFiles, deletedFiles);
+    } catch (ArtworkProcessingException e) {
+      LOGGER.log(WARNING, "Unable to update artwork analysis incrementally, rescanning.", e);
+      rescan();
+      return;
+    }
+
+    updateCallback.onApplicationArtworkUpdated(previousApplicationArtwork, applicationArtwork, addedFiles,
+      modifiedFiles, deletedFiles);
+  }
+
+  /**
+   * Throws away the current analysis and analyzes the whole project again. Used when we can't be sure exactly what
+   * changed.
+   */
+  protected void rescan() {
+    ApplicationArtwork previousApplicationArtwork = applicationArtwork;
+
+    try {
+      applicationArtwork = artworkAnalyzer.extractApplicationArtwork(projectRootDirectory);
+    } catch (ArtworkProcessingException e) {
+      LOGGER.log(WARNING, "Unable to analyze artwork, will try again on next change.", e);
+      return;
+    }
+
+    SortedSet<File> previousFiles = knownFiles(previousApplicationArtwork);
+    SortedSet<File> currentFiles = knownFiles(applicationArtwork);
+    SortedSet<File> addedFiles = new TreeSet<File>(currentFiles);
+    SortedSet<File> modifiedFiles = new TreeSet<File>(currentFiles);
+    SortedSet<File> deletedFiles = new TreeSet<File>(previousFiles);
+
+    addedFiles.removeAll(previousFiles);
+    modifiedFiles.retainAll(previousFiles);
+    deletedFiles.removeAll(currentFiles);
+
+    updateCallback.onApplicationArtworkUpdated(previousApplicationArtwork, applicationArtwork, addedFiles,
+      modifiedFiles, deletedFiles);
+  }
+
+  /**
+   * @return Every image file and referencing file that {@code applicationArtwork} knows about, including referencing
+   *         files which don't reference any images.
+   */
+  protected SortedSet<File> knownFiles(ApplicationArtwork applicationArtwork) {
+    SortedSet<File> knownFiles = new TreeSet<File>(applicationArtwork.getAllImageFiles());
+
+    for (SortedSet<File> referencingFiles : applicationArtwork.getAllImageFilesAndReferencingFiles().values())
+      knownFiles.addAll(referencingFiles);
+
+    ImageReferenceIndex imageReferenceIndex = applicationArtwork.getImageReferenceIndex();
+
+    if (imageReferenceIndex != null)
+      knownFiles.addAll(imageReferenceIndex.getScannedReferencingFiles());
+
+    return knownFiles;
+  }
+
+  /**
+   * Registers {@code startDirectory} and all directories beneath it with the watch service, skipping over
+   * {@link ArtworkAnalyzer#ignoredDirectoryNames()} and {@link ArtworkAnalyzer#prunedDirectoryNames()}.
+   * 
+   * @return All regular files found along the way.
+   */
+  protected Set<File> registerDirectories(Path startDirectory) throws IOException {
+    final Set<File> files = new TreeSet<File>();
+
+    // Follow links the same way ArtworkAnalyzer's walk does, so we watch every directory it analyzes
+    Files.walkFileTree(startDirectory, EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+        if (!directory.equals(projectRootDirectory.toPath())
+            && artworkAnalyzer.isPrunedDirectoryName(directory.getFileName().toString()))
+          return FileVisitResult.SKIP_SUBTREE;
+
+        watchedDirectoriesByWatchKey.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+          directory);
+
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        if (attributes.isRegularFile())
+          files.add(file.toFile());
+
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        // Most likely deleted out from under us mid-walk, in which case the delete event will take care of it, or a
+        // link loop
+        return FileVisitResult.CONTINUE;
+      }
+    });
+
+    return files;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * {@link javax.imageio.stream.ImageInputStream} over the remaining contents of a {@link ByteBuffer}, typically a
+ * memory-mapped image file.
+ * <p>
+ * Reads come straight out of the buffer. Unlike the streams {@link javax.imageio.ImageIO} wraps around an
+ * {@link java.io.InputStream}, nothing is cached or copied onto the heap first, and seeking backwards is free. Bulk
+ * reads fail with an {@link InterruptedIOException} once the reading thread is interrupted, so decoding a large image
+ * can be abandoned part way through.
+ * <p>
+ * The buffer's position and limit are not modified. This class is not threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class ByteBufferImageInputStream extends ImageInputStreamImpl {
+  private final ByteBuffer contents;
+
+  /**
+   * @param contents
+   *          The bytes to read, from its position up to its limit.
+   * @throws NullPointerException
+   *           If {@code contents} is {@code null}.
+   */
+  ByteBufferImageInputStream(ByteBuffer contents) {
+    if (contents == null)
+      throw new NullPointerException("The 'contents' parameter cannot be null.");
+
+    this.contents = contents.slice();
+  }
+
+  @Override
+  public int read() throws IOException {
+    checkClosed();
+
+    if (streamPos >= contents.limit())
+      return -1;
+
+    bitOffset = 0;
+    return contents.get((int) streamPos++) & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    checkClosed();
+
+    if (b == null)
+      throw new NullPointerException("The 'b' parameter cannot be null.");
+    if (off < 0 || len < 0 || off + len > b.length || off + len < 0)
+      throw new IndexOutOfBoundsException(format("Can't read %d bytes at offset %d into an array of length %d.", len,
+        off, b.length));
+    if (len == 0)
+      return 0;
+    if (streamPos >= contents.limit())
+      return -1;
+    if (Thread.currentThread().isInterrupted())
+      throw new InterruptedIOException("Interrupted while reading image.");
+
+    int bytesRead = (int) min(len, contents.limit() - streamPos);
+
+    contents.position((int) streamPos);
+    contents.get(b, off, bytesRead);
+
+    bitOffset = 0;
+    streamPos += bytesRead;
+
+    return bytesRead;
+  }
+
+  @Override
+  public long length() {
+    return contents.limit();
+  }
+
+  @Override
+  public boolean isCached() {
+    return true;
+  }
+
+  @Override
+  public boolean isCachedMemory() {
+    return true;
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.util.Arrays.binarySearch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compact, array-backed form of the file collections in an {@link ApplicationArtwork}.
+ * <p>
+ * Each file is stored exactly once, in a sorted id table. Image categories are bitsets over image ids, metrics are
+ * parallel {@code int} arrays indexed by image id and references are a flat array of referencing file ids, sliced per
+ * image by an offset array. The {@link ImageReferenceIndex} is laid out the same way, sliced per normalized image name,
+ * with token filters held in an array indexed by referencing file id. For large projects this takes a small fraction
+ * of the heap the equivalent {@link TreeSet}s, {@link TreeMap}s and {@link HashMap}s need, since it has no per-entry
+ * tree nodes and no duplicate entries for a file that appears in several collections.
+ * <p>
+ * Collections are materialized on request, sharing the {@link File} instances in the id tables.
+ * <p>
+ * This class is threadsafe and immutable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+final class CompactApplicationArtwork {
+  /**
+   * Subsets of an artwork's image files, each stored as a bitset.
+   */
+  enum Category {
+    UNREFERENCED,
+    ONLY_PROJECT_FILE_REFERENCED,
+    RETINA,
+    NONRETINA,
+    NONRETINA_MISSING_RETINA,
+    RETINA_MISSING_NONRETINA,
+    STANDARD_APPLICATION,
+    INCORRECT_DEVICE_SUFFIX,
+    INCORRECTLY_SIZED_RETINA
+  }
+
+  /** Every image file mentioned anywhere, sorted. A file's position is its id. */
+  private final File[] imageFiles;
+
+  /** Every file which references an image or was scanned for references, sorted. A file's position is its id. */
+  private final File[] referencingFiles;
+
+  /** Ids of images in {@link ApplicationArtwork#getAllImageFiles()}. */
+  private final BitSet allImageFiles;
+
+  private final Map<Category, BitSet> categories;
+
+  /** Ids of images which have an entry in {@link ApplicationArtwork#getAllImageFilesWithMetrics()}. */
+  private final BitSet imageFilesWithMetrics;
+
+  /**
+   * Ids of images in {@link #imageFilesWithMetrics} whose metrics are non-null. Images whose format we can't read, for
+   * example, have a {@code null} entry.
+   */
+  private final BitSet imageFilesWithNonNullMetrics;
+
+  /** Image width by image id, or {@code 0} if the image has no metrics. */
+  private final int[] widths;
+  private final int[] heights;
+  private final int[] sizes;
+
+  /** Index into {@link #contentTypes} by image id. */
+  private final int[] contentTypeIds;
+
+  /** Distinct content types - there are only ever a handful. */
+  private final String[] contentTypes;
+
+  /** Ids of images which have an entry in {@link ApplicationArtwork#getAllImageFilesAndReferencingFiles()}. */
+  private final BitSet imageFilesWithReferencingFiles;
+
+  /**
+   * Image id {@code i}'s referencing file ids are {@code referencingFileIds[referencingFileOffsets[i]]} up to but not
+   * including {@code referencingFileIds[referencingFileOffsets[i + 1]]}.
+   */
+  private final int[] referencingFileOffsets;
+  private final int[] referencingFileIds;
+
+  /** Whether there was an {@link ImageReferenceIndex} to compact. If not, the fields below are empty. */
+  private final boolean hasImageReferenceIndex;
+
+  /** Normalized image names in the {@link ImageReferenceIndex}, sorted. */
+  private final String[] indexedImageNames;
+
+  /** Sliced like {@link #referencingFileOffsets}, but by position in {@link #indexedImageNames}. */
+  private final int[] indexedImageNameOffsets;
+  private final int[] indexedReferencingFileIds;
+
+  /** Ids of referencing files which were scanned. */
+  private final BitSet scannedReferencingFiles;
+
+  /** Token filter by referencing file id, {@code null} if none was recorded. */
+  private final TokenFilter[] tokenFilters;
+
+  /**
+   * Creates a compact copy of the given collections. None of them are modified or retained.
+   * 
+   * @param imageReferenceIndex
+   *          The index to compact along with the collections, or {@code null} if there isn't one.
+   * @throws NullPointerException
+   *           If any parameter other than {@code imageReferenceIndex}, or any collection in {@code categories}, is
+   *           null.
+   */
+  CompactApplicationArtwork(SortedSet<File> allImageFiles,
+      SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles,
+      SortedMap<File, ImageMetrics> allImageFilesWithMetrics, Map<Category, ? extends Set<File>> categories,
+      ImageReferenceIndex imageReferenceIndex) {
+    if (allImageFiles == null)
+      throw new NullPointerException("The 'allImageFiles' parameter cannot be null.");
+    if (allImageFilesAndReferencingFiles == null)
+      throw new NullPointerException("The 'allImageFilesAndReferencingFiles' parameter cannot be null.");
+    if (allImageFilesWithMetrics == null)
+      throw new NullPointerException("The 'allImageFilesWithMetrics' parameter cannot be null.");
+    if (categories == null)
+      throw new NullPointerException("The 'categories' parameter cannot be null.");
+
+    // Categories are normally subsets of all image files, but nothing stops a caller from setting them otherwise
+    SortedSet<File> imageFiles = new TreeSet<File>(allImageFiles);
+    imageFiles.addAll(allImageFilesAndReferencingFiles.keySet());
+    imageFiles.addAll(allImageFilesWithMetrics.keySet());
+
+    for (Entry<Category, ? extends Set<File>> entry : categories.entrySet()) {
+      if (entry.getValue() == null)
+        throw new NullPointerException(format("The '%s' category cannot be null.", entry.getKey()));
+
+      imageFiles.addAll(entry.getValue());
+    }
+
+    SortedSet<File> referencingFiles = new TreeSet<File>();
+    int referenceCount = 0;
+
+    for (SortedSet<File> filesWhereImageIsReferenced : allImageFilesAndReferencingFiles.values()) {
+      referencingFiles.addAll(filesWhereImageIsReferenced);
+      referenceCount += filesWhereImageIsReferenced.size();
+    }
+
+    int indexedReferenceCount = 0;
+
+    if (imageReferenceIndex != null) {
+      referencingFiles.addAll(imageReferenceIndex.getScannedReferencingFilesToTokenFilters().keySet());
+
+      for (SortedSet<File> filesWhereImageNameIsReferenced : imageReferenceIndex.getImageNamesToReferencingFiles()
+        .values()) {
+        referencingFiles.addAll(filesWhereImageNameIsReferenced);
+        indexedReferenceCount += filesWhereImageNameIsReferenced.size();
+      }
+    }
+
+    this.imageFiles = imageFiles.toArray(new File[imageFiles.size()]);
+    this.referencingFiles = referencingFiles.toArray(new File[referencingFiles.size()]);
+    this.allImageFiles = toBitSet(this.imageFiles, allImageFiles);
+
+    this.categories = new EnumMap<Category, BitSet>(Category.class);
+
+    for (Entry<Category, ? extends Set<File>> entry : categories.entrySet())
+      this.categories.put(entry.getKey(), toBitSet(this.imageFiles, entry.getValue()));
+
+    // Metrics
+    imageFilesWithMetrics = toBitSet(this.imageFiles, allImageFilesWithMetrics.keySet());
+    imageFilesWithNonNullMetrics = new BitSet(this.imageFiles.length);
+    widths = new int[this.imageFiles.length];
+    heights = new int[this.imageFiles.length];
+    sizes = new int[this.imageFiles.length];
+    contentTypeIds = new int[this.imageFiles.length];
+
+    List<String> contentTypes = new ArrayList<String>();
+    Map<String, Integer> contentTypesToIds = new HashMap<String, Integer>();
+
+    for (Entry<File, ImageMetrics> entry : allImageFilesWithMetrics.entrySet()) {
+      ImageMetrics imageMetrics = entry.getValue();
+
+      if (imageMetrics == null)
+        continue;
+
+      Integer contentTypeId = contentTypesToIds.get(imageMetrics.getContentType());
+
+      if (contentTypeId == null) {
+        contentTypeId = contentTypes.size();
+        contentTypes.add(imageMetrics.getContentType());
+        contentTypesToIds.put(imageMetrics.getContentType(), contentTypeId);
+      }
+
+      int imageFileId = binarySearch(this.imageFiles, entry.getKey());
+      imageFilesWithNonNullMetrics.set(imageFileId);
+      widths[imageFileId] = imageMetrics.getWidth();
+      heights[imageFileId] = imageMetrics.getHeight();
+      sizes[imageFileId] = imageMetrics.getSize();
+      contentTypeIds[imageFileId] = contentTypeId;
+    }
+
+    this.contentTypes = contentTypes.toArray(new String[contentTypes.size()]);
+
+    // References, laid out in image id order
+    imageFilesWithReferencingFiles = toBitSet(this.imageFiles, allImageFilesAndReferencingFiles.keySet());
+    referencingFileOffsets = new int[this.imageFiles.length + 1];
+    referencingFileIds = new int[referenceCount];
+    int referencingFileIndex = 0;
+
+    for (int imageFileId = 0; imageFileId < this.imageFiles.length; imageFileId++) {
+      referencingFileOffsets[imageFileId] = referencingFileIndex;
+
+      if (!imageFilesWithReferencingFiles.get(imageFileId))
+        continue;
+
+      for (File referencingFile : allImageFilesAndReferencingFiles.get(this.imageFiles[imageFileId]))
+        referencingFileIds[referencingFileIndex++] = binarySearch(this.referencingFiles, referencingFile);
+    }
+
+    referencingFileOffsets[this.imageFiles.length] = referencingFileIndex;
+
+    // Reference index, laid out in image name order
+    hasImageReferenceIndex = imageReferenceIndex != null;
+    scannedReferencingFiles = new BitSet(this.referencingFiles.length);
+    tokenFilters = new TokenFilter[hasImageReferenceIndex ? this.referencingFiles.length : 0];
+
+    if (hasImageReferenceIndex) {
+      for (Entry<File, TokenFilter> entry : imageReferenceIndex.getScannedReferencingFilesToTokenFilters().entrySet()) {
+        int referencingFileId = binarySearch(this.referencingFiles, entry.getKey());
+        scannedReferencingFiles.set(referencingFileId);
+        tokenFilters[referencingFileId] = entry.getValue();
+      }
+    }
+
+    SortedMap<String, SortedSet<File>> imageNamesToReferencingFiles =
+        hasImageReferenceIndex ? new TreeMap<String, SortedSet<File>>(
+          imageReferenceIndex.getImageNamesToReferencingFiles()) : new TreeMap<String, SortedSet<File>>();
+
+    indexedImageNames = imageNamesToReferencingFiles.keySet().toArray(new String[imageNamesToReferencingFiles.size()]);
+    indexedImageNameOffsets = new int[indexedImageNames.length + 1];
+    indexedReferencingFileIds = new int[indexedReferenceCount];
+    int indexedReferencingFileIndex = 0;
+
+    for (int imageNameId = 0; imageNameId < indexedImageNames.length; imageNameId++) {
+      indexedImageNameOffsets[imageNameId] = indexedReferencingFileIndex;
+
+      for (File referencingFile : imageNamesToReferencingFiles.get(indexedImageNames[imageNameId]))
+        indexedReferencingFileIds[indexedReferencingFileIndex++] = binarySearch(this.referencingFiles, referencingFile);
+    }
+
+    indexedImageNameOffsets[indexedImageNames.length] = indexedReferencingFileIndex;
+  }
+
+  private static BitSet toBitSet(File[] files, Set<File> members) {
+    BitSet bitSet = new BitSet(files.length);
+
+    for (File member : members)
+      bitSet.set(binarySearch(files, member));
+
+    return bitSet;
+  }
+
+  private SortedSet<File> toSortedSet(BitSet imageFileIds) {
+    SortedSet<File> sortedSet = new TreeSet<File>();
+
+    for (int imageFileId = imageFileIds.nextSetBit(0); imageFileId >= 0; imageFileId =
+        imageFileIds.nextSetBit(imageFileId + 1))
+      sortedSet.add(imageFiles[imageFileId]);
+
+    return sortedSet;
+  }
+
+  /**
+   * @return A new, modifiable copy of all image files.
+   */
+  SortedSet<File> getAllImageFiles() {
+    return toSortedSet(allImageFiles);
+  }
+
+  /**
+   * @return A new, modifiable copy of the image files in {@code category}, empty if the category was never supplied.
+   */
+  SortedSet<File> getImageFiles(Category category) {
+    BitSet imageFileIds = categories.get(category);
+    return imageFileIds == null ? new TreeSet<File>() : toSortedSet(imageFileIds);
+  }
+
+  /**
+   * @return A new, modifiable copy of the image files which have metrics, along with those metrics - {@code null} for
+   *         images whose metrics couldn't be determined.
+   */
+  SortedMap<File, ImageMetrics> getAllImageFilesWithMetrics() {
+    SortedMap<File, ImageMetrics> allImageFilesWithMetrics = new TreeMap<File, ImageMetrics>();
+
+    for (int imageFileId = imageFilesWithMetrics.nextSetBit(0); imageFileId >= 0; imageFileId =
+        imageFilesWithMetrics.nextSetBit(imageFileId + 1))
+      allImageFilesWithMetrics.put(imageFiles[imageFileId], imageFilesWithNonNullMetrics.get(imageFileId)
+          ? new ImageMetrics(widths[imageFileId], heights[imageFileId], sizes[imageFileId],
+            contentTypes[contentTypeIds[imageFileId]]) : null);
+
+    return allImageFilesWithMetrics;
+  }
+
+  /**
+   * @return A new, modifiable copy of the referenced image files, along with the files which reference them.
+   */
+  SortedMap<File, SortedSet<File>> getAllImageFilesAndReferencingFiles() {
+    SortedMap<File, SortedSet<File>> allImageFilesAndReferencingFiles = new TreeMap<File, SortedSet<File>>();
+
+    for (int imageFileId = imageFilesWithReferencingFiles.nextSetBit(0); imageFileId >= 0; imageFileId =
+        imageFilesWithReferencingFiles.nextSetBit(imageFileId + 1)) {
+      SortedSet<File> filesWhereImageIsReferenced = new TreeSet<File>();
+
+      for (int i = referencingFileOffsets[imageFileId]; i < referencingFileOffsets[imageFileId + 1]; i++)
+        filesWhereImageIsReferenced.add(referencingFiles[referencingFileIds[i]]);
+
+      allImageFilesAndReferencingFiles.put(imageFiles[imageFileId], filesWhereImageIsReferenced);
+    }
+
+    return allImageFilesAndReferencingFiles;
+  }
+
+  /**
+   * @return A new copy of the compacted {@link ImageReferenceIndex}, or {@code null} if there wasn't one.
+   */
+  ImageReferenceIndex getImageReferenceIndex() {
+    if (!hasImageReferenceIndex)
+      return null;
+
+    ImageReferenceIndex imageReferenceIndex = new ImageReferenceIndex();
+
+    for (int referencingFileId = scannedReferencingFiles.nextSetBit(0); referencingFileId >= 0; referencingFileId =
+        scannedReferencingFiles.nextSetBit(referencingFileId + 1))
+      imageReferenceIndex.add(referencingFiles[referencingFileId], Collections.<File> emptySet(),
+        tokenFilters[referencingFileId]);
+
+    for (int imageNameId = 0; imageNameId < indexedImageNames.length; imageNameId++)
+      for (int i = indexedImageNameOffsets[imageNameId]; i < indexedImageNameOffsets[imageNameId + 1]; i++)
+        imageReferenceIndex.add(referencingFiles[indexedReferencingFileIds[i]], indexedImageNames[imageNameId]);
+
+    return imageReferenceIndex;
+  }
+}
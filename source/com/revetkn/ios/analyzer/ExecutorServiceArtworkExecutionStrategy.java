@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link ArtworkExecutionStrategy} which runs tasks on executors owned by the caller, for example an application's
+ * existing I/O and compute pools.
+ * <p>
+ * {@link ArtworkAnalyzer#shutdown()} leaves these executors running - shutting them down is up to their owner. Tasks
+ * never wait on each other, so any executor will do, even one which runs tasks on the submitting thread.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ExecutorServiceArtworkExecutionStrategy implements ArtworkExecutionStrategy {
+  private final ExecutorService ioExecutorService;
+  private final ExecutorService cpuExecutorService;
+
+  /**
+   * Runs all tasks on {@code executorService}.
+   * 
+   * @throws NullPointerException
+   *           If {@code executorService} is {@code null}.
+   */
+  public ExecutorServiceArtworkExecutionStrategy(ExecutorService executorService) {
+    this(executorService, executorService);
+  }
+
+  /**
+   * Runs I/O-bound tasks on {@code ioExecutorService} and CPU-bound tasks on {@code cpuExecutorService}.
+   * 
+   * @throws NullPointerException
+   *           If either executor is {@code null}.
+   */
+  public ExecutorServiceArtworkExecutionStrategy(ExecutorService ioExecutorService,
+      ExecutorService cpuExecutorService) {
+    if (ioExecutorService == null)
+      throw new NullPointerException("The 'ioExecutorService' parameter cannot be null.");
+    if (cpuExecutorService == null)
+      throw new NullPointerException("The 'cpuExecutorService' parameter cannot be null.");
+
+    this.ioExecutorService = ioExecutorService;
+    this.cpuExecutorService = cpuExecutorService;
+  }
+
+  @Override
+  public ExecutorService getExecutorService(ArtworkWorkload workload) {
+    if (workload == null)
+      throw new NullPointerException("The 'workload' parameter cannot be null.");
+
+    return workload == ArtworkWorkload.IO ? ioExecutorService : cpuExecutorService;
+  }
+
+  @Override
+  public void shutdown() {
+    // Not ours to shut down
+  }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of {@link ImageMetrics}, stored in a compact binary file so unchanged images don't need to be read
+ * again on subsequent scans.
+ * <p>
+ * Entries are keyed by the image file's absolute path and are only considered valid if the file's length and
+ * last-modified time still match what was recorded. Absolute rather than canonical paths are used so lookups don't
+ * cost a filesystem call - an image reached through a symbolic link is simply cached under each path it's found at.
+ * The cache holds at most {@code maximumEntries} entries - when it fills up, the least recently used entries are
+ * discarded.
+ * <p>
+ * Callers sample a file's length and last-modified time once, before reading it, and hand the same values to
+ * {@link #get(File, long, long)} and {@link #put(File, long, long, ImageMetrics)}. That way metrics read from a file
+ * that changed mid-read are filed under the old attributes and get discarded on the next lookup.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class ImageMetricsCache {
+  private static final Logger LOGGER = Logger.getLogger(ImageMetricsCache.class.getName());
+
+  /** Name of the cache file inside the cache directory. */
+  static final String CACHE_FILENAME = "image-metrics.cache";
+
+  /** Identifies our cache file format. Bump {@code CACHE_FORMAT_VERSION} whenever the layout changes. */
+  private static final int CACHE_FORMAT_MAGIC_NUMBER = 0x494d4d43;
+  private static final int CACHE_FORMAT_VERSION = 2;
+
+  private final File cacheFile;
+  private final Map<String, CacheEntry> entriesByAbsolutePath;
+  private boolean modified;
+
+  /**
+   * Creates an empty cache backed by {@code cacheDirectory}. Use {@link #load(File, int)} to pick up previously-saved
+   * entries.
+   * 
+   * @param cacheDirectory
+   *          Directory in which the cache file lives.
+   * @param maximumEntries
+   *          The most entries this cache will hold.
+   */
+  ImageMetricsCache(File cacheDirectory, final int maximumEntries) {
+    if (cacheDirectory == null)
+      throw new NullPointerException("The 'cacheDirectory' parameter cannot be null.");
+    if (maximumEntries < 1)
+      throw new IllegalArgumentException("The 'maximumEntries' parameter must be > 0.");
+
+    this.cacheFile = new File(cacheDirectory, CACHE_FILENAME);
+
+    // Access-ordered, so iteration goes from least- to most-recently used
+    this.entriesByAbsolutePath = new LinkedHashMap<String, CacheEntry>(16, 0.75F, true) {
+      @Override
+      protected boolean removeEldestEntry(Entry<String, CacheEntry> eldest) {
+        return size() > maximumEntries;
+      }
+    };
+  }
+
+  /**
+   * Loads the cache stored in {@code cacheDirectory}. A missing, unreadable or outdated cache file results in an empty
+   * cache rather than an error, since the cache can always be rebuilt.
+   * 
+   * @param cacheDirectory
+   *          Directory in which the cache file lives.
+   * @param maximumEntries
+   *          The most entries this cache will hold.
+   * @return The loaded cache.
+   */
+  static ImageMetricsCache load(File cacheDirectory, int maximumEntries) {
+    ImageMetricsCache imageMetricsCache = new ImageMetricsCache(cacheDirectory, maximumEntries);
+
+    if (!imageMetricsCache.cacheFile.isFile())
+      return imageMetricsCache;
+
+    DataInputStream inputStream = null;
+
+    try {
+      inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(imageMetricsCache.cacheFile)));
+
+      if (inputStream.readInt() != CACHE_FORMAT_MAGIC_NUMBER || inputStream.readInt() != CACHE_FORMAT_VERSION) {
+        LOGGER.info(format("Ignoring image metrics cache '%s' since it has an unknown format.",
+          imageMetricsCache.cacheFile));
+        return imageMetricsCache;
+      }
+
+      int entryCount = inputStream.readInt();
+
+      for (int i = 0; i < entryCount; i++) {
+        String absolutePath = inputStream.readUTF();
+        long length = inputStream.readLong();
+        long lastModified = inputStream.readLong();
+        int width = inputStream.readInt();
+        int height = inputStream.readInt();
+        int size = inputStream.readInt();
+        String contentType = inputStream.readUTF();
+
+        imageMetricsCache.entriesByAbsolutePath.put(absolutePath, new CacheEntry(length, lastModified,
+          new ImageMetrics(width, height, size, contentType)));
+      }
+    } catch (EOFException e) {
+      LOGGER.warning(format("Image metrics cache '%s' is truncated, discarding it.", imageMetricsCache.cacheFile));
+      imageMetricsCache.entriesByAbsolutePath.clear();
+    } catch (Exception e) {
+      LOGGER.warning(format("Unable to read image metrics cache '%s', discarding it: %s", imageMetricsCache.cacheFile,
+        e));
+      imageMetricsCache.entriesByAbsolutePath.clear();
+    } finally {
+      closeQuietly(inputStream);
+    }
+
+    return imageMetricsCache;
+  }
+
+  /**
+   * Gets cached metrics for {@code imageFile}.
+   * 
+   * @param imageFile
+   *          The image file to look up.
+   * @param length
+   *          The image file's current length.
+   * @param lastModified
+   *          The image file's current last-modified time.
+   * @return The cached metrics, or {@code null} if there are none or the file has changed since they were cached.
+   */
+  ImageMetrics get(File imageFile, long length, long lastModified) {
+    String absolutePath = imageFile.getAbsolutePath();
+
+    synchronized (this) {
+      CacheEntry cacheEntry = entriesByAbsolutePath.get(absolutePath);
+
+      if (cacheEntry == null)
+        return null;
+
+      if (cacheEntry.length != length || cacheEntry.lastModified != lastModified) {
+        entriesByAbsolutePath.remove(absolutePath);
+        modified = true;
+        return null;
+      }
+
+      return cacheEntry.imageMetrics;
+    }
+  }
+
+  /**
+   * Caches metrics for {@code imageFile}, replacing any existing entry.
+   * 
+   * @param imageFile
+   *          The image file the metrics belong to.
+   * @param length
+   *          The image file's length before the metrics were extracted.
+   * @param lastModified
+   *          The image file's last-modified time before the metrics were extracted.
+   * @param imageMetrics
+   *          The image file's metrics.
+   */
+  void put(File imageFile, long length, long lastModified, ImageMetrics imageMetrics) {
+    String absolutePath = imageFile.getAbsolutePath();
+    CacheEntry cacheEntry = new CacheEntry(length, lastModified, imageMetrics);
+
+    synchronized (this) {
+      entriesByAbsolutePath.put(absolutePath, cacheEntry);
+      modified = true;
+    }
+  }
+
+  /**
+   * Removes the cached metrics for {@code imageFile}, if any. Useful when the file is known to have changed, since a
+   * change which leaves its length alone can happen within the filesystem's last-modified time resolution.
+   * 
+   * @param imageFile
+   *          The image file whose metrics should be discarded.
+   */
+  void invalidate(File imageFile) {
+    String absolutePath = imageFile.getAbsolutePath();
+
+    synchronized (this) {
+      if (entriesByAbsolutePath.remove(absolutePath) != null)
+        modified = true;
+    }
+  }
+
+  /**
+   * Writes the cache to disk if anything changed since it was loaded or last saved. The cache file is written to a
+   * temporary file first and then moved into place so a crash can't leave a half-written cache behind.
+   * 
+   * @throws IOException
+   *           If the cache file can't be written.
+   */
+  synchronized void save() throws IOException {
+    if (!modified)
+      return;
+
+    File cacheDirectory = cacheFile.getParentFile();
+
+    if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs())
+      throw new IOException(format("Unable to create image metrics cache directory '%s'.", cacheDirectory));
+
+    File temporaryCacheFile = File.createTempFile(CACHE_FILENAME, ".tmp", cacheDirectory);
+    DataOutputStream outputStream = null;
+
+    try {
+      outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryCacheFile)));
+      outputStream.writeInt(CACHE_FORMAT_MAGIC_NUMBER);
+      outputStream.writeInt(CACHE_FORMAT_VERSION);
+      outputStream.writeInt(entriesByAbsolutePath.size());
+
+      // Least-recently used first, so reloading preserves eviction order
+      for (Entry<String, CacheEntry> entry : entriesByAbsolutePath.entrySet()) {
+        CacheEntry cacheEntry = entry.getValue();
+        outputStream.writeUTF(entry.getKey());
+        outputStream.writeLong(cacheEntry.length);
+        outputStream.writeLong(cacheEntry.lastModified);
+        outputStream.writeInt(cacheEntry.imageMetrics.getWidth());
+        outputStream.writeInt(cacheEntry.imageMetrics.getHeight());
+        outputStream.writeInt(cacheEntry.imageMetrics.getSize());
+        outputStream.writeUTF(cacheEntry.imageMetrics.getContentType());
+      }
+
+      outputStream.close();
+      outputStream = null;
+
+      Files.move(temporaryCacheFile.toPath(), cacheFile.toPath(), REPLACE_EXISTING);
+      modified = false;
+    } finally {
+      closeQuietly(outputStream);
+
+      if (temporaryCacheFile.exists() && !temporaryCacheFile.delete())
+        LOGGER.warning(format("Unable to delete temporary image metrics cache file '%s'.", temporaryCacheFile));
+    }
+  }
+
+  /**
+   * @return The number of entries currently in the cache.
+   */
+  synchronized int size() {
+    return entriesByAbsolutePath.size();
+  }
+
+  /**
+   * Cached metrics along with the file attributes they're valid for.
+   */
+  private static class CacheEntry {
+    private final long length;
+    private final long lastModified;
+    private final ImageMetrics imageMetrics;
+
+    private CacheEntry(long length, long lastModified, ImageMetrics imageMetrics) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.imageMetrics = imageMetrics;
+    }
+  }
+}
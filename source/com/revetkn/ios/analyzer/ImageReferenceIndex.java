@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Inverted index of image references: maps normalized image names to the files that reference them.
+ * <p>
+ * Image names are normalized the same way {@link ArtworkAnalyzer} matches references, so {@code about.png},
+ * {@code about@2x.png} and {@code about~ipad.png} all index under {@code about}. This makes it possible to answer
+ * questions like "who references {@code aboutBackground}?" after a scan without rescanning anything.
+ * <p>
+ * Instances are built once per scan and carried forward by {@link ArtworkAnalyzer#updateApplicationArtwork}, which only
+ * reindexes the referencing files that changed.
+ * <p>
+ * The index also remembers every referencing file that was scanned - whether or not it referenced anything - along with
+ * a {@link TokenFilter} of the tokens it contained, if one was recorded. When images are added, that's enough to find
+ * the handful of unchanged files that could mention them without walking the project or reading everything again.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ImageReferenceIndex {
+  private final Map<String, SortedSet<File>> imageNamesToReferencingFiles;
+  private final Map<File, SortedSet<String>> referencingFilesToImageNames;
+
+  /** Every referencing file that was scanned -> the tokens it contained, or {@code null} if they weren't recorded. */
+  private final Map<File, TokenFilter> scannedReferencingFilesToTokenFilters;
+
+  /**
+   * Creates an empty index.
+   */
+  public ImageReferenceIndex() {
+    imageNamesToReferencingFiles = new HashMap<String, SortedSet<File>>();
+    referencingFilesToImageNames = new HashMap<File, SortedSet<String>>();
+    scannedReferencingFilesToTokenFilters = new HashMap<File, TokenFilter>();
+  }
+
+  /**
+   * Creates an index with the same contents as {@code imageReferenceIndex}.
+   */
+  public ImageReferenceIndex(ImageReferenceIndex imageReferenceIndex) {
+    this();
+
+    if (imageReferenceIndex == null)
+      throw new NullPointerException("The 'imageReferenceIndex' parameter cannot be null.");
+
+    for (Entry<File, SortedSet<String>> entry : imageReferenceIndex.referencingFilesToImageNames.entrySet())
+      for (String imageName : entry.getValue())
+        add(entry.getKey(), imageName);
+
+    // Token filters are immutable, so they can be shared
+    scannedReferencingFilesToTokenFilters.putAll(imageReferenceIndex.scannedReferencingFilesToTokenFilters);
+  }
+
+  /**
+   * @return The normalized form of {@code imageName} - without its file extension, {@code @2x}, {@code ~ipad} or
+   *         {@code ~iphone}. For example, {@code ma@2x~ipad.png} normalizes to {@code ma}.
+   */
+  public static String normalizeImageName(String imageName) {
+    if (imageName == null)
+      throw new NullPointerException("The 'imageName' parameter cannot be null.");
+
+    int lastIndexOfDot = imageName.lastIndexOf(".");
+    if (lastIndexOfDot >= 0)
+      imageName = imageName.substring(0, lastIndexOfDot);
+
+    int lastIndexOf2x = imageName.lastIndexOf("@2x");
+    if (lastIndexOf2x >= 0)
+      imageName = imageName.substring(0, lastIndexOf2x);
+
+    int lastIndexOfIpad = imageName.lastIndexOf("~ipad");
+    if (lastIndexOfIpad >= 0)
+      imageName = imageName.substring(0, lastIndexOfIpad);
+
+    int lastIndexOfIphone = imageName.lastIndexOf("~iphone");
+    if (lastIndexOfIphone >= 0)
+      imageName = imageName.substring(0, lastIndexOfIphone);
+
+    return imageName;
+  }
+
+  /**
+   * Records that {@code referencingFile} was scanned and references each of {@code imageFiles}.
+   */
+  void add(File referencingFile, Collection<File> imageFiles) {
+    add(referencingFile, imageFiles, null);
+  }
+
+  /**
+   * Records that {@code referencingFile} was scanned, references each of {@code imageFiles} and contains the tokens
+   * in {@code tokenFilter}, which may be {@code null} if they weren't recorded. A file that is scanned again keeps its
+   * earlier token filter unless a new one is supplied.
+   */
+  void add(File referencingFile, Collection<File> imageFiles, TokenFilter tokenFilter) {
+    for (File imageFile : imageFiles)
+      add(referencingFile, normalizeImageName(imageFile.getName()));
+
+    if (tokenFilter != null || !scannedReferencingFilesToTokenFilters.containsKey(referencingFile))
+      scannedReferencingFilesToTokenFilters.put(referencingFile, tokenFilter);
+  }
+
+  /**
+   * Records that {@code referencingFile} references the image with normalized name {@code imageName}.
+   */
+  void add(File referencingFile, String imageName) {
+    SortedSet<File> referencingFiles = imageNamesToReferencingFiles.get(imageName);
+
+    if (referencingFiles == null) {
+      referencingFiles = new TreeSet<File>();
+      imageNamesToReferencingFiles.put(imageName, referencingFiles);
+    }
+
+    referencingFiles.add(referencingFile);
+
+    SortedSet<String> imageNames = referencingFilesToImageNames.get(referencingFile);
+
+    if (imageNames == null) {
+      imageNames = new TreeSet<String>();
+      referencingFilesToImageNames.put(referencingFile, imageNames);
+    }
+
+    imageNames.add(imageName);
+  }
+
+  /**
+   * Forgets everything {@code referencingFile} references, e.g. because it changed or was deleted.
+   */
+  void remove(File referencingFile) {
+    scannedReferencingFilesToTokenFilters.remove(referencingFile);
+
+    SortedSet<String> imageNames = referencingFilesToImageNames.remove(referencingFile);
+
+    if (imageNames == null)
+      return;
+
+    for (String imageName : imageNames) {
+      SortedSet<File> referencingFiles = imageNamesToReferencingFiles.get(imageName);
+      referencingFiles.remove(referencingFile);
+
+      if (referencingFiles.isEmpty())
+        imageNamesToReferencingFiles.remove(imageName);
+    }
+  }
+
+  /**
+   * Forgets references to any image whose normalized name isn't in {@code imageNames}, e.g. because every variant of
+   * the image was deleted.
+   */
+  void retainImageNames(Collection<String> imageNames) {
+    for (String imageName : new TreeSet<String>(imageNamesToReferencingFiles.keySet())) {
+      if (imageNames.contains(imageName))
+        continue;
+
+      for (File referencingFile : imageNamesToReferencingFiles.remove(imageName)) {
+        SortedSet<String> referencedImageNames = referencingFilesToImageNames.get(referencingFile);
+        referencedImageNames.remove(imageName);
+
+        if (referencedImageNames.isEmpty())
+          referencingFilesToImageNames.remove(referencingFile);
+      }
+    }
+  }
+
+  /**
+   * @return Normalized image names -> the files which reference them. The map is backed by this index.
+   */
+  Map<String, SortedSet<File>> getImageNamesToReferencingFiles() {
+    return Collections.unmodifiableMap(imageNamesToReferencingFiles);
+  }
+
+  /**
+   * @return Every referencing file that has been scanned -> the tokens it contained, or {@code null} if they weren't
+   *         recorded. The map is backed by this index.
+   */
+  Map<File, TokenFilter> getScannedReferencingFilesToTokenFilters() {
+    return Collections.unmodifiableMap(scannedReferencingFilesToTokenFilters);
+  }
+
+  /**
+   * @return Every referencing file that has been scanned, including those which don't reference any images.
+   */
+  SortedSet<File> getScannedReferencingFiles() {
+    return new TreeSet<File>(scannedReferencingFilesToTokenFilters.keySet());
+  }
+
+  /**
+   * @param tokens
+   *          Tokens to look for, e.g. every way an image's name could be spelled.
+   * @return Scanned referencing files which might contain any of {@code tokens} - every file whose token filter
+   *         matches one of them, plus every file whose tokens weren't recorded.
+   */
+  SortedSet<File> getScannedReferencingFilesWhichMightContain(Collection<String> tokens) {
+    SortedSet<File> referencingFiles = new TreeSet<File>();
+
+    for (Entry<File, TokenFilter> entry : scannedReferencingFilesToTokenFilters.entrySet()) {
+      TokenFilter tokenFilter = entry.getValue();
+
+      if (tokenFilter == null) {
+        referencingFiles.add(entry.getKey());
+        continue;
+      }
+
+      for (String token : tokens) {
+        if (tokenFilter.mightContain(token)) {
+          referencingFiles.add(entry.getKey());
+          break;
+        }
+      }
+    }
+
+    return referencingFiles;
+  }
+
+  /**
+   * @param imageName
+   *          An image name in any form - {@code about}, {@code about@2x.png} and {@code about~ipad.png} are equivalent.
+   * @return Files which reference the image, or an empty set if there are none.
+   */
+  public SortedSet<File> getReferencingFiles(String imageName) {
+    SortedSet<File> referencingFiles = imageNamesToReferencingFiles.get(normalizeImageName(imageName));
+    return referencingFiles == null ? Collections.unmodifiableSortedSet(new TreeSet<File>()) : Collections
+      .unmodifiableSortedSet(referencingFiles);
+  }
+
+  /**
+   * @return Normalized names of the images {@code referencingFile} references, or an empty set if there are none.
+   */
+  public SortedSet<String> getReferencedImageNames(File referencingFile) {
+    if (referencingFile == null)
+      throw new NullPointerException("The 'referencingFile' parameter cannot be null.");
+
+    SortedSet<String> imageNames = referencingFilesToImageNames.get(referencingFile);
+    return imageNames == null ? Collections.unmodifiableSortedSet(new TreeSet<String>()) : Collections
+      .unmodifiableSortedSet(imageNames);
+  }
+
+  /**
+   * @return Normalized names of every referenced image.
+   */
+  public SortedSet<String> getReferencedImageNames() {
+    return Collections.unmodifiableSortedSet(new TreeSet<String>(imageNamesToReferencingFiles.keySet()));
+  }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.revetkn.ios.analyzer;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE;
+import static java.lang.Math.ceil;
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+
+/**
+ * Resamples images by separable convolution directly on {@code int[]} ARGB pixel data.
+ * <p>
+ * Pixels are premultiplied by alpha while being filtered so transparent areas don't bleed color into their
+ * surroundings. Scaling down by large factors can optionally be done progressively - halving repeatedly and finishing
+ * with a single smaller step - which is faster for wide kernels and avoids aliasing.
+ * <p>
+ * The inner loops avoid per-pixel work that isn't filtering: source images are converted to premultiplied pixels by
+ * Java2D's native blit loops rather than {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}, each
+ * vertical tap's weight and row are hoisted out of the per-pixel loop, and unpremultiplying uses a reciprocal table
+ * instead of dividing.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class ImageResampler {
+  /** Kernel weights are stored as fixed-point numbers with this many fractional bits. */
+  private static final int WEIGHT_BITS = 14;
+
+  /** Added to fixed-point sums so shifting them back down rounds to nearest. */
+  private static final int WEIGHT_ROUNDING = 1 << (WEIGHT_BITS - 1);
+
+  /**
+   * Unpremultiplying a channel {@code c} by alpha {@code a} is {@code (c * UNPREMULTIPLY_FACTORS[a] +
+   * UNPREMULTIPLY_BIASES[a]) >>> 16}, which is exactly {@code (c * 255 + a / 2) / a} for every {@code c <= 255}. Sums
+   * can exceed {@link Integer#MAX_VALUE}, but never {@code 2^32}, hence the unsigned shift.
+   */
+  private static final int[] UNPREMULTIPLY_FACTORS = new int[256];
+  private static final int[] UNPREMULTIPLY_BIASES = new int[256];
+
+  static {
+    for (int alpha = 1; alpha < 256; alpha++) {
+      UNPREMULTIPLY_FACTORS[alpha] = ((255 << 16) + alpha - 1) / alpha;
+      UNPREMULTIPLY_BIASES[alpha] = ((alpha / 2) << 16) / alpha;
+    }
+  }
+
+  private ImageResampler() {}
+
+  /**
+   * Resamples {@code image} to exactly {@code width} x {@code height} pixels.
+   * 
+   * @param image
+   *          The image to resample.
+   * @param width
+   *          The width of the resampled image.
+   * @param height
+   *          The height of the resampled image.
+   * @param resamplingKernel
+   *          The reconstruction filter to use.
+   * @param progressive
+   *          Whether to scale down by large factors in multiple halving steps.
+   * @return The resampled image, of type {@link BufferedImage#TYPE_INT_ARGB}.
+   */
+  static BufferedImage resample(BufferedImage image, int width, int height, ResamplingKernel resamplingKernel,
+      boolean progressive) {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+    if (resamplingKernel == null)
+      throw new NullPointerException("Cannot supply a null resamplingKernel.");
+    if (width < 1 || height < 1)
+      throw new IllegalArgumentException("Resampled width and height must be > 0.");
+
+    int currentWidth = image.getWidth();
+    int currentHeight = image.getHeight();
+    int[] pixels = premultipliedPixels(image);
+
+    if (progressive) {
+      while (currentWidth > width * 2 || currentHeight > height * 2) {
+        int stepWidth = max(width, currentWidth / 2);
+        int stepHeight = max(height, currentHeight / 2);
+        pixels = resample(pixels, currentWidth, currentHeight, stepWidth, stepHeight, resamplingKernel);
+        currentWidth = stepWidth;
+        currentHeight = stepHeight;
+      }
+    }
+
+    pixels = resample(pixels, currentWidth, currentHeight, width, height, resamplingKernel);
+
+    BufferedImage resampledImage = new BufferedImage(width, height, TYPE_INT_ARGB);
+    int[] resampledPixels = ((DataBufferInt) resampledImage.getRaster().getDataBuffer()).getData();
+    unpremultiply(pixels, resampledPixels);
+
+    return resampledImage;
+  }
+
+  /**
+   * Resamples the first image available from {@code imageReader} to exactly {@code width} x {@code height} pixels,
+   * writing the result to {@code pngWriter} one horizontal band at a time.
+   * <p>
+   * Only the source rows needed for the current band are decoded - see
+   * {@link ImageReadParam#setSourceRegion(Rectangle)} - so peak memory use is governed by
+   * {@code maximumBandSizeInPixels} rather than by the size of the image. The tradeoff is that formats like PNG can't
+   * seek, so the reader may have to decode past earlier rows again for each band.
+   * 
+   * @param imageReader
+   *          Reader whose input has been set to the image to resample. Its input must allow seeking backwards.
+   * @param width
+   *          The width of the resampled image.
+   * @param height
+   *          The height of the resampled image.
+   * @param resamplingKernel
+   *          The reconstruction filter to use.
+   * @param maximumBandSizeInPixels
+   *          Roughly how many source plus resampled pixels to hold in memory at once.
+   * @param pngWriter
+   *          Receives the resampled rows.
+   * @throws IOException
+   *           If an error occurs while reading or writing.
+   */
+  static void resampleInBands(ImageReader imageReader, int width, int height, ResamplingKernel resamplingKernel,
+      long maximumBandSizeInPixels, StreamingPngWriter pngWriter) throws IOException {
+    if (imageReader == null)
+      throw new NullPointerException("Cannot supply a null imageReader.");
+    if (resamplingKernel == null)
+      throw new NullPointerException("Cannot supply a null resamplingKernel.");
+    if (pngWriter == null)
+      throw new NullPointerException("Cannot supply a null pngWriter.");
+    if (width < 1 || height < 1)
+      throw new IllegalArgumentException("Resampled width and height must be > 0.");
+
+    int sourceWidth = imageReader.getWidth(0);
+    int sourceHeight = imageReader.getHeight(0);
+    Contributions horizontalContributions = new Contributions(sourceWidth, width, resamplingKernel);
+    Contributions verticalContributions = new Contributions(sourceHeight, height, resamplingKernel);
+
+    // Each resampled row costs one row of output plus its share of source rows
+    double pixelsPerResampledRow = width + (double) sourceWidth * sourceHeight / height;
+    int rowsPerBand = (int) max(1, min(height, maximumBandSizeInPixels / pixelsPerResampledRow));
+
+    ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+    int[] unpremultipliedPixels = new int[width * rowsPerBand];
+
+    for (int firstResampledRow = 0; firstResampledRow < height; firstResampledRow += rowsPerBand) {
+      int resampledRowCount = min(rowsPerBand, height - firstResampledRow);
+      int firstRow = sourceHeight;
+      int lastRow = 0;
+
+      for (int y = firstResampledRow; y < firstResampledRow + resampledRowCount; y++) {
+        firstRow = min(firstRow, verticalContributions.starts[y]);
+        lastRow = max(lastRow, verticalContributions.starts[y] + verticalContributions.counts[y]);
+      }
+
+      lastRow = max(lastRow, firstRow + 1);
+
+      imageReadParam.setSourceRegion(new Rectangle(0, firstRow, sourceWidth, lastRow - firstRow));
+      BufferedImage band = imageReader.read(0, imageReadParam);
+      int[] pixels = premultipliedPixels(band);
+
+      pixels = resampleHorizontally(pixels, sourceWidth, lastRow - firstRow, width, horizontalContributions);
+      pixels =
+          resampleVertically(pixels, width, firstRow, firstResampledRow, resampledRowCount, verticalContributions);
+
+      unpremultiply(pixels, unpremultipliedPixels);
+      pngWriter.writeRows(unpremultipliedPixels, 0, resampledRowCount);
+    }
+  }
+
+  /**
+   * Resamples premultiplied ARGB pixels in two passes. Whichever pass order needs the smaller intermediate buffer is
+   * used.
+   */
+  private static int[] resample(int[] pixels, int width, int height, int resampledWidth, int resampledHeight,
+      ResamplingKernel resamplingKernel) {
+    if (width == resampledWidth && height == resampledHeight)
+      return pixels;
+
+    Contributions horizontalContributions = new Contributions(width, resampledWidth, resamplingKernel);
+    Contributions verticalContributions = new Contributions(height, resampledHeight, resamplingKernel);
+
+    if ((long) resampledWidth * height <= (long) width * resampledHeight) {
+      int[] intermediatePixels = resampleHorizontally(pixels, width, height, resampledWidth, horizontalContributions);
+      return resampleVertically(intermediatePixels, resampledWidth, height, resampledHeight, verticalContributions);
+    }
+
+    int[] intermediatePixels = resampleVertically(pixels, width, height, resampledHeight, verticalContributions);
+    return resampleHorizontally(intermediatePixels, width, resampledHeight, resampledWidth, horizontalContributions);
+  }
+
+  private static int[] resampleHorizontally(int[] pixels, int width, int height, int resampledWidth,
+      Contributions contributions) {
+    int[] resampledPixels = new int[resampledWidth * height];
+
+    for (int y = 0; y < height; y++) {
+      int rowOffset = y * width;
+      int resampledRowOffset = y * resampledWidth;
+
+      for (int x = 0; x < resampledWidth; x++) {
+        int pixelOffset = rowOffset + contributions.starts[x];
+        int weightOffset = x * contributions.maximumCount;
+        int count = contributions.counts[x];
+        int a = WEIGHT_ROUNDING, r = WEIGHT_ROUNDING, g = WEIGHT_ROUNDING, b = WEIGHT_ROUNDING;
+
+        for (int i = 0; i < count; i++) {
+          int pixel = pixels[pixelOffset + i];
+          int weight = contributions.weights[weightOffset + i];
+          a += weight * (pixel >>> 24);
+          r += weight * ((pixel >> 16) & 0xff);
+          g += weight * ((pixel >> 8) & 0xff);
+          b += weight * (pixel & 0xff);
+        }
+
+        resampledPixels[resampledRowOffset + x] = pack(a, r, g, b);
+      }
+    }
+
+    return resampledPixels;
+  }
+
+  private static int[] resampleVertically(int[] pixels, int width, int height, int resampledHeight,
+      Contributions contributions) {
+    return resampleVertically(pixels, width, 0, 0, resampledHeight, contributions);
+  }
+
+  /**
+   * Produces {@code resampledRowCount} resampled rows starting at {@code firstResampledRow}. {@code pixels} holds
+   * source rows starting at {@code firstRow}, which need not be the top of the image.
+   */
+  private static int[] resampleVertically(int[] pixels, int width, int firstRow, int firstResampledRow,
+      int resampledRowCount, Contributions contributions) {
+    int[] resampledPixels = new int[width * resampledRowCount];
+    int[] rowOffsets = new int[contributions.maximumCount];
+    int[] weights = new int[contributions.maximumCount];
+
+    for (int row = 0; row < resampledRowCount; row++) {
+      int y = firstResampledRow + row;
+      int count = contributions.counts[y];
+      int start = contributions.starts[y] - firstRow;
+      int weightOffset = y * contributions.maximumCount;
+      int resampledRowOffset = row * width;
+
+      for (int i = 0; i < count; i++) {
+        rowOffsets[i] = (start + i) * width;
+        weights[i] = contributions.weights[weightOffset + i];
+      }
+
+      // Sum each output pixel's column of taps in registers rather than accumulating whole rows in memory
+      for (int x = 0; x < width; x++) {
+        int a = WEIGHT_ROUNDING, r = WEIGHT_ROUNDING, g = WEIGHT_ROUNDING, b = WEIGHT_ROUNDING;
+
+        for (int i = 0; i < count; i++) {
+          int pixel = pixels[rowOffsets[i] + x];
+          int weight = weights[i];
+          a += weight * (pixel >>> 24);
+          r += weight * ((pixel >> 16) & 0xff);
+          g += weight * ((pixel >> 8) & 0xff);
+          b += weight * (pixel & 0xff);
+        }
+
+        resampledPixels[resampledRowOffset + x] = pack(a, r, g, b);
+      }
+    }
+
+    return resampledPixels;
+  }
+
+  /**
+   * Packs fixed-point premultiplied channels, keeping color channels from exceeding alpha as kernels with negative
+   * lobes can.
+   */
+  private static int pack(int a, int r, int g, int b) {
+    int alpha = clamp(a >> WEIGHT_BITS, 255);
+    return alpha << 24 | clamp(r >> WEIGHT_BITS, alpha) << 16 | clamp(g >> WEIGHT_BITS, alpha) << 8
+        | clamp(b >> WEIGHT_BITS, alpha);
+  }
+
+  /** Branch-free, since whether a sum overshoots depends on the image and doesn't predict well. */
+  private static int clamp(int value, int maximum) {
+    return max(0, min(value, maximum));
+  }
+
+  /**
+   * @return {@code image}'s pixels as premultiplied ARGB, in a new array.
+   */
+  private static int[] premultipliedPixels(BufferedImage image) {
+    BufferedImage premultipliedImage = new BufferedImage(image.getWidth(), image.getHeight(), TYPE_INT_ARGB_PRE);
+    Graphics2D graphics = premultipliedImage.createGraphics();
+
+    try {
+      graphics.setComposite(AlphaComposite.Src);
+      graphics.drawImage(image, 0, 0, null);
+    } finally {
+      graphics.dispose();
+    }
+
+    return ((DataBufferInt) premultipliedImage.getRaster().getDataBuffer()).getData();
+  }
+
+  private static void unpremultiply(int[] pixels, int[] unpremultipliedPixels) {
+    for (int i = 0; i < pixels.length; i++) {
+      int pixel = pixels[i];
+      int alpha = pixel >>> 24;
+
+      if (alpha == 255) {
+        unpremultipliedPixels[i] = pixel;
+      } else if (alpha == 0) {
+        unpremultipliedPixels[i] = 0;
+      } else {
+        int factor = UNPREMULTIPLY_FACTORS[alpha];
+        int bias = UNPREMULTIPLY_BIASES[alpha];
+        unpremultipliedPixels[i] =
+            alpha << 24 | min(255, (((pixel >> 16) & 0xff) * factor + bias) >>> 16) << 16
+                | min(255, (((pixel >> 8) & 0xff) * factor + bias) >>> 16) << 8
+                | min(255, ((pixel & 0xff) * factor + bias) >>> 16);
+      }
+    }
+  }
+
+  /**
+   * Precomputed, normalized kernel weights for every output pixel along one axis.
+   */
+  private static class Contributions {
+    private final int[] starts;
+    private final int[] counts;
+    private final int[] weights;
+    private final int maximumCount;
+
+    private Contributions(int size, int resampledSize, ResamplingKernel resamplingKernel) {
+      double scale = (double) resampledSize / size;
+
+      // When scaling down, stretch the kernel so every source pixel contributes
+      double kernelScale = scale < 1 ? 1 / scale : 1;
+      double support = resamplingKernel.getRadius() * kernelScale;
+
+      starts = new int[resampledSize];
+      counts = new int[resampledSize];
+      maximumCount = (int) ceil(support * 2) + 2;
+      weights = new int[resampledSize * maximumCount];
+
+      double[] kernelWeights = new double[maximumCount];
+
+      for (int i = 0; i < resampledSize; i++) {
+        double center = (i + 0.5) / scale;
+        int start = max(0, (int) floor(center - support));
+        int end = min(size - 1, (int) ceil(center + support));
+        double totalWeight = 0;
+        int count = 0;
+
+        for (int j = start; j <= end && count < maximumCount; j++) {
+          double weight = resamplingKernel.weight((j + 0.5 - center) / kernelScale);
+          kernelWeights[count++] = weight;
+          totalWeight += weight;
+        }
+
+        // Trim taps that don't contribute anything
+        while (count > 0 && kernelWeights[count - 1] == 0)
+          count--;
+
+        int leadingZeroWeights = 0;
+
+        while (leadingZeroWeights < count && kernelWeights[leadingZeroWeights] == 0)
+          leadingZeroWeights++;
+
+        start += leadingZeroWeights;
+        count -= leadingZeroWeights;
+
+        // Renormalize, since pixels past the image edges were left out, and convert to fixed point
+        int weightOffset = i * maximumCount;
+
+        for (int j = 0; j < count; j++)
+          weights[weightOffset + j] =
+              (int) round(kernelWeights[leadingZeroWeights + j] / totalWeight * (1 << WEIGHT_BITS));
+
+        starts[i] = start;
+        counts[i] = count;
+      }
+    }
+  }
+}
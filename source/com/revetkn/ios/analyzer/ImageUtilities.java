@@ -22,42 +22,74 @@
 
 package com.revetkn.ios.analyzer;
 
-import static java.awt.Color.WHITE;
-import static java.awt.Image.SCALE_SMOOTH;
-import static java.awt.RenderingHints.KEY_INTERPOLATION;
-import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.logging.Level.FINE;
 import static javax.imageio.ImageIO.read;
+import static org.apache.commons.io.FileUtils.copyFile;
+import static org.apache.commons.io.IOUtils.closeQuietly;
 
-import java.awt.AlphaComposite;
-import java.awt.Graphics2D;
-import java.awt.Image;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
 import java.util.Vector;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
-import javax.swing.ImageIcon;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  * Provides common image manipulation functionality.
  * <p>
- * Supports metadata extraction via {@link #extractImageMetrics(byte[])} and aspect-ratio-preserving smooth scaling via
- * {@link #scaleImageDownToFit(byte[], int, int)} and {@link #scaleImageUpToFit(byte[], int, int)}.
+ * Supports metadata extraction via {@link #extractImageMetrics(byte[])} and {@link #extractImageMetrics(File)} and
+ * aspect-ratio-preserving smooth scaling via {@link #scaleImageDownToFit(byte[], int, int)} and
+ * {@link #scaleImageUpToFit(byte[], int, int)}.
  * 
  * @author <a href="http://revetkn.com">Mark Allen</a>
  */
 class ImageUtilities {
   private static final Logger LOGGER = Logger.getLogger(ImageUtilities.class.getName());
 
+  /**
+   * How many bytes to read from the start of an image file when extracting metrics. This is enough to cover the PNG
+   * signature and {@code IHDR} chunk as well as GIF and BMP headers.
+   */
+  static final int IMAGE_HEADER_SIZE_IN_BYTES = 64;
+
+  /** Image files at least this big are memory-mapped rather than read onto the heap. */
+  static final int IMAGE_MEMORY_MAPPING_THRESHOLD_IN_BYTES = 64 * 1024;
+
+  /** Reconstruction filter used when none is specified. */
+  static final ResamplingKernel DEFAULT_RESAMPLING_KERNEL = ResamplingKernel.BICUBIC;
+
+  /** Whether large reductions are done in several halving steps when not specified - see {@link ImageResampler}. */
+  static final boolean DEFAULT_PROGRESSIVE_RESAMPLING = true;
+
+  /** Per-thread buffer for image headers so we don't allocate for every file we look at. */
+  private static final ThreadLocal<ByteBuffer> IMAGE_HEADER_BUFFER = new ThreadLocal<ByteBuffer>() {
+    @Override
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.allocate(IMAGE_HEADER_SIZE_IN_BYTES);
+    }
+  };
+
   private ImageUtilities() {}
 
   /**
@@ -73,15 +105,115 @@ class ImageUtilities {
     if (image == null)
       throw new NullPointerException("Cannot supply a null image.");
 
+    return extractImageMetrics(ByteBuffer.wrap(image));
+  }
+
+  /**
+   * Figures out image metadata information - width, height, content type - reading straight out of {@code image},
+   * which is typically a memory-mapped image file.
+   * 
+   * @param image
+   *          The image from which metadata is extracted, from its position up to its limit. Its position is not
+   *          modified.
+   * @return Image metadata, or {@code null} if the image format was not recognized.
+   * @throws NullPointerException
+   *           If the provided {@code image} was null.
+   */
+  static ImageMetrics extractImageMetrics(ByteBuffer image) {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+
     ImageInfo ii = new ImageInfo();
-    ii.setInput(new ByteArrayInputStream(image));
+    ii.setInput(new ByteBufferImageInputStream(image));
 
     if (!ii.check()) {
       LOGGER.info("Unsupported image file format.");
       return null;
     }
 
-    return new ImageMetrics(ii.getWidth(), ii.getHeight(), image.length, ii.getMimeType());
+    return new ImageMetrics(ii.getWidth(), ii.getHeight(), image.remaining(), ii.getMimeType());
+  }
+
+  /**
+   * Figures out image metadata information - width, height, content type - without reading the entire file.
+   * 
+   * @see #extractImageMetrics(File, LongAdder)
+   */
+  static ImageMetrics extractImageMetrics(File imageFile) throws IOException {
+    return extractImageMetrics(imageFile, new LongAdder());
+  }
+
+  /**
+   * Figures out image metadata information - width, height, content type - without reading the entire file.
+   * <p>
+   * Only the first few bytes of the file are read, which is all that's needed for PNGs. If the format keeps its
+   * dimensions further into the file (JPEG, for example) we fall back to reading the file - memory-mapped if it's large
+   * - until {@link ImageInfo} has what it needs. Image size is taken from the filesystem. {@link ImageMetrics} sizes
+   * are {@code int}s, so files of {@link Integer#MAX_VALUE} bytes or more are reported as {@link Integer#MAX_VALUE}
+   * bytes, and can only be recognized from their header.
+   * 
+   * @param imageFile
+   *          The image file from which metadata is extracted.
+   * @param bytesRead
+   *          How many bytes of the file were read is added to this.
+   * @return Image metadata, or {@code null} if the image format was not recognized.
+   * @throws NullPointerException
+   *           If the provided {@code imageFile} or {@code bytesRead} was null.
+   * @throws IOException
+   *           If an error occurs while reading the image file.
+   */
+  static ImageMetrics extractImageMetrics(File imageFile, LongAdder bytesRead) throws IOException {
+    if (imageFile == null)
+      throw new NullPointerException("Cannot supply a null image file.");
+    if (bytesRead == null)
+      throw new NullPointerException("Cannot supply a null bytesRead.");
+
+    long imageFileSize = imageFile.length();
+    ByteBuffer imageHeader = IMAGE_HEADER_BUFFER.get();
+    imageHeader.clear();
+
+    FileInputStream imageFileStream = new FileInputStream(imageFile);
+
+    try {
+      FileChannel imageFileChannel = imageFileStream.getChannel();
+
+      while (imageHeader.hasRemaining())
+        if (imageFileChannel.read(imageHeader) == -1)
+          break;
+
+      imageHeader.flip();
+      bytesRead.add(imageHeader.limit());
+
+      ImageInfo ii = new ImageInfo();
+      ii.setInput(new ByteBufferImageInputStream(imageHeader));
+
+      boolean recognized = ii.check();
+
+      if (!recognized && imageFileSize > imageHeader.limit()) {
+        if (imageFileSize > MAX_VALUE) {
+          LOGGER.info(format("Image file %s is too large to read past its header.", imageFile));
+          return null;
+        }
+
+        // Header wasn't enough - let ImageInfo pull as much as it needs
+        ByteBuffer imageContents = readImageFile(imageFileChannel, (int) imageFileSize);
+        ByteBufferImageInputStream imageContentsStream = new ByteBufferImageInputStream(imageContents);
+        ii.setInput(imageContentsStream);
+        recognized = ii.check();
+
+        // Mapped files are only read as far as ImageInfo got; heap copies were read in full
+        bytesRead.add(imageContents.isDirect() ? imageContentsStream.getStreamPosition() : imageContents.limit());
+      }
+
+      if (!recognized) {
+        LOGGER.info("Unsupported image file format.");
+        return null;
+      }
+
+      return new ImageMetrics(ii.getWidth(), ii.getHeight(), (int) min(imageFileSize, MAX_VALUE), ii.getMimeType());
+    } finally {
+      closeQuietly(imageFileStream);
+    }
   }
 
   /**
@@ -99,6 +231,39 @@ class ImageUtilities {
    * @return The scaled image (aspect ratio preserved).
    */
   static byte[] scaleImageDownToFit(byte[] image, int maxWidth, int maxHeight, ImageType scaledImageType) {
+    return scaleImageDownToFit(image, maxWidth, maxHeight, scaledImageType, DEFAULT_RESAMPLING_KERNEL);
+  }
+
+  /**
+   * Scales an image down to the bounds specified by {@code maxWidth} and {@code maxHeight} using the given resampling
+   * kernel - the scaled image's format is {@code scaledImageType}. The source image's aspect ratio is preserved.
+   * 
+   * @param image
+   *          The image to be scaled.
+   * @param maxWidth
+   *          The maximum width to scale to. If <= 0, defaults to {@code Integer.MAX_VALUE}.
+   * @param maxHeight
+   *          The maximum height to scale to. If <= 0, defaults to {@code Integer.MAX_VALUE}.
+   * @param scaledImageType
+   *          The image type of the scaled image.
+   * @param resamplingKernel
+   *          The reconstruction filter to scale with.
+   * @return The scaled image (aspect ratio preserved).
+   */
+  static byte[] scaleImageDownToFit(byte[] image, int maxWidth, int maxHeight, ImageType scaledImageType,
+      ResamplingKernel resamplingKernel) {
+    return scaleImageDownToFit(image, maxWidth, maxHeight, scaledImageType, resamplingKernel,
+      DEFAULT_PROGRESSIVE_RESAMPLING);
+  }
+
+  /**
+   * Scales an image down like {@link #scaleImageDownToFit(byte[], int, int, ImageType, ResamplingKernel)}.
+   * 
+   * @param progressive
+   *          Whether to scale down by large factors in multiple halving steps.
+   */
+  static byte[] scaleImageDownToFit(byte[] image, int maxWidth, int maxHeight, ImageType scaledImageType,
+      ResamplingKernel resamplingKernel, boolean progressive) {
     if (image == null)
       throw new NullPointerException("Cannot supply a null image.");
 
@@ -112,7 +277,7 @@ class ImageUtilities {
     maxHeight = maxHeight <= 0 ? MAX_VALUE : maxHeight;
 
     try {
-      BufferedImage inputImage = read(new ByteArrayInputStream(image));
+      BufferedImage inputImage = decodeImage(image);
 
       int inputWidth = inputImage.getWidth();
       int inputHeight = inputImage.getHeight();
@@ -146,13 +311,24 @@ class ImageUtilities {
           inputWidth, inputHeight, scaledWidth, scaledHeight, maxWidth == MAX_VALUE ? "Arbitrary" : maxWidth,
           maxHeight == MAX_VALUE ? "Arbitrary" : maxHeight, (1F / scaleRatio)));
 
-      return scaleImageInternal(inputImage, scaledWidth, scaledHeight, scaledImageType);
+      return scaleImageInternal(inputImage, scaledWidth, scaledHeight, scaledImageType, resamplingKernel, progressive);
     } catch (Exception e) {
       throw new ImageOperationException("Error scaling image", e);
     }
   }
 
   static byte[] scaleImageUpToFit(byte[] image, int minWidth, int minHeight, ImageType scaledImageType) {
+    return scaleImageUpToFit(image, minWidth, minHeight, scaledImageType, DEFAULT_RESAMPLING_KERNEL);
+  }
+
+  static byte[] scaleImageUpToFit(byte[] image, int minWidth, int minHeight, ImageType scaledImageType,
+      ResamplingKernel resamplingKernel) {
+    return scaleImageUpToFit(image, minWidth, minHeight, scaledImageType, resamplingKernel,
+      DEFAULT_PROGRESSIVE_RESAMPLING);
+  }
+
+  static byte[] scaleImageUpToFit(byte[] image, int minWidth, int minHeight, ImageType scaledImageType,
+      ResamplingKernel resamplingKernel, boolean progressive) {
     if (image == null)
       throw new NullPointerException("Cannot supply a null image.");
 
@@ -164,8 +340,153 @@ class ImageUtilities {
       throw new IllegalArgumentException(format("Illegal minWidth/minHeight: %d x %d", minWidth, minHeight));
 
     try {
-      BufferedImage inputImage = read(new ByteArrayInputStream(image));
+      BufferedImage inputImage = decodeImage(image);
+      BufferedImage scaledImage = scaleImageUpToFit(inputImage, minWidth, minHeight, resamplingKernel, progressive);
+
+      return scaledImage == inputImage ? image : encodeImage(scaledImage, scaledImageType);
+    } catch (ImageOperationException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ImageOperationException("Error scaling image", e);
+    }
+  }
+
+  /**
+   * Decodes an encoded image, for example the contents of a PNG file.
+   * 
+   * @throws IOException
+   *           If the image can't be decoded.
+   */
+  static BufferedImage decodeImage(byte[] image) throws IOException {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+
+    return decodeImage(ByteBuffer.wrap(image));
+  }
+
+  /**
+   * Decodes an encoded image straight out of {@code image}, which is typically a memory-mapped image file - nothing is
+   * copied onto the heap first.
+   * 
+   * @param image
+   *          The encoded image, from its position up to its limit. Its position is not modified.
+   * @throws IOException
+   *           If the image can't be decoded.
+   */
+  static BufferedImage decodeImage(ByteBuffer image) throws IOException {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+
+    ImageInputStream imageInputStream = new ByteBufferImageInputStream(image);
+
+    try {
+      BufferedImage decodedImage = read(imageInputStream);
+
+      if (decodedImage == null)
+        throw new IOException("Unsupported image format.");
+
+      return decodedImage;
+    } finally {
+      closeQuietly(imageInputStream);
+    }
+  }
+
+  /**
+   * Reads an image file for decoding. Files of at least {@link #IMAGE_MEMORY_MAPPING_THRESHOLD_IN_BYTES} are
+   * memory-mapped, so their contents stay off the heap; smaller ones are cheaper to just read.
+   * 
+   * @throws IOException
+   *           If the image file can't be read, or is too large to fit in a single buffer.
+   */
+  static ByteBuffer readImageFile(File imageFile) throws IOException {
+    if (imageFile == null)
+      throw new NullPointerException("Cannot supply a null image file.");
+
+    FileInputStream imageFileStream = new FileInputStream(imageFile);
+
+    try {
+      FileChannel imageFileChannel = imageFileStream.getChannel();
+      long imageFileSize = imageFileChannel.size();
+
+      if (imageFileSize > MAX_VALUE)
+        throw new IOException(format("Image file %s is too large to read.", imageFile));
+
+      return readImageFile(imageFileChannel, (int) imageFileSize);
+    } finally {
+      closeQuietly(imageFileStream);
+    }
+  }
+
+  /**
+   * Memory-maps the first {@code size} bytes of {@code imageFileChannel}, or reads them onto the heap if that's
+   * cheaper. The mapping outlives the channel.
+   */
+  private static ByteBuffer readImageFile(FileChannel imageFileChannel, int size) throws IOException {
+    if (size >= IMAGE_MEMORY_MAPPING_THRESHOLD_IN_BYTES)
+      return imageFileChannel.map(READ_ONLY, 0, size);
 
+    ByteBuffer contents = ByteBuffer.allocate(size);
+
+    while (contents.hasRemaining())
+      if (imageFileChannel.read(contents, contents.position()) == -1)
+        break;
+
+    contents.flip();
+    return contents;
+  }
+
+  /**
+   * Writes {@code image}, from its position up to its limit, to {@code imageFile}. Its position is not modified.
+   * 
+   * @throws IOException
+   *           If the image file can't be written.
+   */
+  static void writeImageFile(ByteBuffer image, File imageFile) throws IOException {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+    if (imageFile == null)
+      throw new NullPointerException("Cannot supply a null image file.");
+
+    ByteBuffer contents = image.duplicate();
+    FileChannel imageFileChannel = openImageFileChannel(imageFile);
+
+    try {
+      while (contents.hasRemaining())
+        imageFileChannel.write(contents);
+    } finally {
+      closeQuietly(imageFileChannel);
+    }
+  }
+
+  /**
+   * Scales a decoded image up so it's at least {@code minWidth} x {@code minHeight}, preserving its aspect ratio.
+   * 
+   * @return The scaled image, or {@code inputImage} itself if it's already big enough.
+   */
+  static BufferedImage scaleImageUpToFit(BufferedImage inputImage, int minWidth, int minHeight,
+      ResamplingKernel resamplingKernel) {
+    return scaleImageUpToFit(inputImage, minWidth, minHeight, resamplingKernel, DEFAULT_PROGRESSIVE_RESAMPLING);
+  }
+
+  /**
+   * Scales a decoded image up like {@link #scaleImageUpToFit(BufferedImage, int, int, ResamplingKernel)}.
+   * 
+   * @param progressive
+   *          Whether to scale down by large factors in multiple halving steps.
+   */
+  static BufferedImage scaleImageUpToFit(BufferedImage inputImage, int minWidth, int minHeight,
+      ResamplingKernel resamplingKernel, boolean progressive) {
+    if (inputImage == null)
+      throw new NullPointerException("Cannot supply a null inputImage.");
+
+    if (resamplingKernel == null)
+      throw new NullPointerException("Cannot supply a null resamplingKernel.");
+
+    // Enforce sensible sizes.
+    if (minWidth < 1 && minHeight < 1)
+      throw new IllegalArgumentException(format("Illegal minWidth/minHeight: %d x %d", minWidth, minHeight));
+
+    try {
       int inputWidth = inputImage.getWidth();
       int inputHeight = inputImage.getHeight();
       int scaledWidth = -1;
@@ -176,7 +497,7 @@ class ImageUtilities {
         if (LOGGER.isLoggable(FINE))
           LOGGER.fine(format("Image is already %d x %d, no need to scale up to %d x %d.", inputWidth, inputHeight,
             minWidth, minHeight));
-        return image;
+        return inputImage;
       }
 
       float widthRatio = (float) inputWidth / (float) minWidth;
@@ -192,30 +513,101 @@ class ImageUtilities {
             "Scaling image from %d x %d to %d x %d so it meets the specified minimum bounds requirement of %d x %d (scale factor of %.2f)...",
             inputWidth, inputHeight, scaledWidth, scaledHeight, minWidth, minHeight, (1F / scaleRatio)));
 
-      return scaleImageInternal(inputImage, scaledWidth, scaledHeight, scaledImageType);
+      return ImageResampler.resample(inputImage, scaledWidth, scaledHeight, resamplingKernel, progressive);
     } catch (Exception e) {
       throw new ImageOperationException("Error scaling image", e);
     }
   }
 
-  static byte[] scaleImageInternal(BufferedImage image, int width, int height, ImageType imageType) throws Exception {
-    ByteArrayOutputStream scaledImageStream = new ByteArrayOutputStream();
+  /**
+   * Encodes a decoded image in the given format.
+   * 
+   * @throws IOException
+   *           If the image can't be encoded.
+   */
+  static byte[] encodeImage(BufferedImage image, ImageType imageType) throws IOException {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+
+    if (imageType == null)
+      throw new NullPointerException("Cannot supply a null imageType.");
+
+    ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+    ImageIO.write(image, imageType.getJdkImageFormatName(), imageStream);
+
+    return imageStream.toByteArray();
+  }
+
+  /**
+   * Encodes a decoded image as a PNG, streaming it straight into {@code pngFile} rather than building it up in memory
+   * first. Parent directories are created as needed.
+   * 
+   * @param image
+   *          The image to encode.
+   * @param pngFile
+   *          Where to write the PNG. Replaced if it already exists.
+   * @param pngEncodingOptions
+   *          How to trade encoding time against output size.
+   * @throws IOException
+   *           If the PNG can't be written.
+   */
+  static void writePng(BufferedImage image, File pngFile, PngEncodingOptions pngEncodingOptions) throws IOException {
+    if (image == null)
+      throw new NullPointerException("Cannot supply a null image.");
+    if (pngFile == null)
+      throw new NullPointerException("Cannot supply a null pngFile.");
+    if (pngEncodingOptions == null)
+      throw new NullPointerException("Cannot supply a null pngEncodingOptions.");
+
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] argbPixels;
+
+    // Images straight out of ImageResampler can be read without copying
+    if (image.getType() == TYPE_INT_ARGB && image.getRaster().getDataBuffer().getSize() == width * height
+        && image.getRaster().getSampleModelTranslateX() == 0 && image.getRaster().getSampleModelTranslateY() == 0)
+      argbPixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    else
+      argbPixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+    int[] palette =
+        pngEncodingOptions.isPaletteReduction() ? StreamingPngWriter.extractPalette(argbPixels, 0, argbPixels.length)
+            : null;
+
+    StreamingPngWriter pngWriter =
+        new StreamingPngWriter(openImageFileChannel(pngFile), width, height, pngEncodingOptions, palette);
 
     try {
-      Image scaledImage = image.getScaledInstance(width, height, SCALE_SMOOTH);
-      Image tempImage = new ImageIcon(scaledImage).getImage();
+      pngWriter.writeRows(argbPixels, 0, height);
+    } finally {
+      pngWriter.close();
+    }
+  }
+
+  private static FileChannel openImageFileChannel(File imageFile) throws IOException {
+    File imageDirectory = imageFile.getAbsoluteFile().getParentFile();
+
+    if (!imageDirectory.isDirectory() && !imageDirectory.mkdirs())
+      throw new IOException(format("Unable to create directory '%s'.", imageDirectory));
 
-      BufferedImage bufferedImage =
-          new BufferedImage(tempImage.getWidth(null), tempImage.getHeight(null), TYPE_INT_ARGB);
+    return FileChannel.open(imageFile.toPath(), CREATE, TRUNCATE_EXISTING, WRITE);
+  }
+
+  static byte[] scaleImageInternal(BufferedImage image, int width, int height, ImageType imageType) throws Exception {
+    return scaleImageInternal(image, width, height, imageType, DEFAULT_RESAMPLING_KERNEL);
+  }
 
-      Graphics2D g = bufferedImage.createGraphics();
-      g.setComposite(AlphaComposite.Src);
-      g.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
-      g.setColor(WHITE);
-      g.fillRect(0, 0, tempImage.getWidth(null), tempImage.getHeight(null));
-      g.drawImage(tempImage, 0, 0, null);
-      g.dispose();
+  static byte[] scaleImageInternal(BufferedImage image, int width, int height, ImageType imageType,
+      ResamplingKernel resamplingKernel) throws Exception {
+    return scaleImageInternal(image, width, height, imageType, resamplingKernel, DEFAULT_PROGRESSIVE_RESAMPLING);
+  }
+
+  static byte[] scaleImageInternal(BufferedImage image, int width, int height, ImageType imageType,
+      ResamplingKernel resamplingKernel, boolean progressive) throws Exception {
+    ByteArrayOutputStream scaledImageStream = new ByteArrayOutputStream();
 
+    try {
+      BufferedImage bufferedImage = ImageResampler.resample(image, width, height, resamplingKernel, progressive);
       ImageIO.write(bufferedImage, imageType.getJdkImageFormatName(), scaledImageStream);
 
       return scaledImageStream.toByteArray();
@@ -228,6 +620,149 @@ class ImageUtilities {
     }
   }
 
+  /**
+   * Scales an image file up so it's at least {@code minWidth} x {@code minHeight}, writing the result to
+   * {@code scaledImageFile} as a PNG. The source image's aspect ratio is preserved.
+   * <p>
+   * Unlike {@link #scaleImageUpToFit(byte[], int, int, ImageType)}, the image is decoded, scaled and encoded in
+   * horizontal bands, so memory use is bounded by {@code maximumBandSizeInPixels} no matter how large the image is.
+   * 
+   * @param imageFile
+   *          The image to be scaled.
+   * @param scaledImageFile
+   *          Where to write the scaled image.
+   * @param minWidth
+   *          The minimum width to scale to.
+   * @param minHeight
+   *          The minimum height to scale to.
+   * @param resamplingKernel
+   *          The reconstruction filter to scale with.
+   * @param maximumBandSizeInPixels
+   *          Roughly how many pixels to hold in memory at once.
+   */
+  static void scaleImageUpToFitInBands(File imageFile, File scaledImageFile, int minWidth, int minHeight,
+      ResamplingKernel resamplingKernel, long maximumBandSizeInPixels) {
+    scaleImageUpToFitInBands(imageFile, scaledImageFile, minWidth, minHeight, resamplingKernel,
+      maximumBandSizeInPixels, PngEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Scales an image file up in bands, encoding the result with the given PNG encoding options. Palette reduction
+   * doesn't apply, since the scaled image's colors aren't known until it's been written.
+   * 
+   * @see #scaleImageUpToFitInBands(File, File, int, int, ResamplingKernel, long)
+   */
+  static void scaleImageUpToFitInBands(File imageFile, File scaledImageFile, int minWidth, int minHeight,
+      ResamplingKernel resamplingKernel, long maximumBandSizeInPixels, PngEncodingOptions pngEncodingOptions) {
+    if (minWidth < 1 && minHeight < 1)
+      throw new IllegalArgumentException(format("Illegal minWidth/minHeight: %d x %d", minWidth, minHeight));
+
+    scaleImageInBands(imageFile, scaledImageFile, minWidth, minHeight, true, resamplingKernel,
+      maximumBandSizeInPixels, pngEncodingOptions);
+  }
+
+  /**
+   * Scales an image file down so it fits inside {@code maxWidth} x {@code maxHeight}, writing the result to
+   * {@code scaledImageFile} as a PNG. The source image's aspect ratio is preserved.
+   * <p>
+   * Unlike {@link #scaleImageDownToFit(byte[], int, int, ImageType)}, the image is decoded, scaled and encoded in
+   * horizontal bands, so memory use is bounded by {@code maximumBandSizeInPixels} no matter how large the image is.
+   * 
+   * @param imageFile
+   *          The image to be scaled.
+   * @param scaledImageFile
+   *          Where to write the scaled image.
+   * @param maxWidth
+   *          The maximum width to scale to. If <= 0, defaults to {@code Integer.MAX_VALUE}.
+   * @param maxHeight
+   *          The maximum height to scale to. If <= 0, defaults to {@code Integer.MAX_VALUE}.
+   * @param resamplingKernel
+   *          The reconstruction filter to scale with.
+   * @param maximumBandSizeInPixels
+   *          Roughly how many pixels to hold in memory at once.
+   */
+  static void scaleImageDownToFitInBands(File imageFile, File scaledImageFile, int maxWidth, int maxHeight,
+      ResamplingKernel resamplingKernel, long maximumBandSizeInPixels) {
+    if (maxWidth < 1 && maxHeight < 1)
+      throw new IllegalArgumentException(format("Illegal maxWidth/maxHeight: %d x %d", maxWidth, maxHeight));
+
+    scaleImageInBands(imageFile, scaledImageFile, maxWidth <= 0 ? MAX_VALUE : maxWidth, maxHeight <= 0 ? MAX_VALUE
+        : maxHeight, false, resamplingKernel, maximumBandSizeInPixels, PngEncodingOptions.DEFAULT);
+  }
+
+  private static void scaleImageInBands(File imageFile, File scaledImageFile, int boundingWidth, int boundingHeight,
+      boolean scaleUp, ResamplingKernel resamplingKernel, long maximumBandSizeInPixels,
+      PngEncodingOptions pngEncodingOptions) {
+    if (imageFile == null)
+      throw new NullPointerException("Cannot supply a null imageFile.");
+    if (scaledImageFile == null)
+      throw new NullPointerException("Cannot supply a null scaledImageFile.");
+    if (resamplingKernel == null)
+      throw new NullPointerException("Cannot supply a null resamplingKernel.");
+    if (maximumBandSizeInPixels < 1)
+      throw new IllegalArgumentException("The 'maximumBandSizeInPixels' parameter must be > 0.");
+    if (pngEncodingOptions == null)
+      throw new NullPointerException("Cannot supply a null pngEncodingOptions.");
+
+    ImageInputStream imageInputStream = null;
+    ImageReader imageReader = null;
+
+    try {
+      imageInputStream =
+          imageFile.length() > MAX_VALUE ? ImageIO.createImageInputStream(imageFile) : new ByteBufferImageInputStream(
+            readImageFile(imageFile));
+      Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+
+      if (!imageReaders.hasNext())
+        throw new IOException(format("Unsupported image file format: %s", imageFile));
+
+      imageReader = imageReaders.next();
+      imageReader.setInput(imageInputStream, false, true);
+
+      int inputWidth = imageReader.getWidth(0);
+      int inputHeight = imageReader.getHeight(0);
+
+      if (scaleUp ? inputWidth >= boundingWidth && inputHeight >= boundingHeight : inputWidth <= boundingWidth
+          && inputHeight <= boundingHeight) {
+        if (LOGGER.isLoggable(FINE))
+          LOGGER.fine(format("Image is already %d x %d, no need to scale.", inputWidth, inputHeight));
+
+        copyFile(imageFile, scaledImageFile);
+        return;
+      }
+
+      float widthRatio = (float) inputWidth / (float) boundingWidth;
+      float heightRatio = (float) inputHeight / (float) boundingHeight;
+      float scaleRatio =
+          scaleUp ? (widthRatio < heightRatio ? widthRatio : heightRatio) : (widthRatio > heightRatio ? widthRatio
+              : heightRatio);
+      int scaledWidth = max(1, (int) (inputWidth / scaleRatio));
+      int scaledHeight = max(1, (int) (inputHeight / scaleRatio));
+
+      if (LOGGER.isLoggable(FINE))
+        LOGGER.fine(format("Scaling image from %d x %d to %d x %d in bands (scale factor of %.2f)...", inputWidth,
+          inputHeight, scaledWidth, scaledHeight, (1F / scaleRatio)));
+
+      StreamingPngWriter pngWriter =
+          new StreamingPngWriter(openImageFileChannel(scaledImageFile), scaledWidth, scaledHeight, pngEncodingOptions,
+            null);
+
+      try {
+        ImageResampler.resampleInBands(imageReader, scaledWidth, scaledHeight, resamplingKernel,
+          maximumBandSizeInPixels, pngWriter);
+      } finally {
+        pngWriter.close();
+      }
+    } catch (Exception e) {
+      throw new ImageOperationException("Error scaling image", e);
+    } finally {
+      if (imageReader != null)
+        imageReader.dispose();
+
+      closeQuietly(imageInputStream);
+    }
+  }
+
   private static class ImageOperationException extends RuntimeException {
     public ImageOperationException(String message, Throwable cause) {
       super(message, cause);
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.Math.min;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking allowance of memory, in bytes, shared between concurrent tasks that estimate their own footprints.
+ * <p>
+ * A task whose footprint exceeds the entire budget is charged the entire budget, so it only proceeds when nothing else
+ * holds any of it. Callers that reserve largest-first get large tasks which don't run alongside each other, while
+ * small tasks can still run many at a time.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class MemoryBudget {
+  private final long budgetInBytes;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private long chargedBytes;
+
+  /**
+   * @param budgetInBytes
+   *          The most memory, in bytes, that may be reserved at once.
+   */
+  MemoryBudget(long budgetInBytes) {
+    if (budgetInBytes < 1)
+      throw new IllegalArgumentException("The 'budgetInBytes' parameter must be > 0.");
+
+    this.budgetInBytes = budgetInBytes;
+  }
+
+  /**
+   * Blocks until {@code footprintInBytes} of the budget is free, then reserves it.
+   * 
+   * @return The amount actually charged, which must later be passed to {@link #release(long)}.
+   * @throws InterruptedException
+   *           If interrupted while waiting. Nothing is reserved.
+   */
+  long reserve(long footprintInBytes) throws InterruptedException {
+    if (footprintInBytes < 0)
+      throw new IllegalArgumentException("The 'footprintInBytes' parameter must be >= 0.");
+
+    long charge = min(budgetInBytes, footprintInBytes);
+
+    lock.lockInterruptibly();
+
+    try {
+      while (charge > budgetInBytes - chargedBytes)
+        released.await();
+
+      chargedBytes += charge;
+      return charge;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gives back a charge previously returned by {@link #reserve(long)}.
+   */
+  void release(long charge) {
+    lock.lock();
+
+    try {
+      chargedBytes -= charge;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
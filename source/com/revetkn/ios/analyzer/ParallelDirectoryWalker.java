@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static com.revetkn.ios.analyzer.ArtworkAnalyzer.hasSuffix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds a project's image files and referencing files by exploring subdirectories concurrently on a
+ * {@link ForkJoinPool}.
+ * <p>
+ * When every directory listing and {@code stat} is a round trip - network mounts, for example - walking one directory
+ * at a time leaves the walk waiting on latency. Here each directory is its own task, so many listings can be in flight
+ * at once. Results, and the rules for which files and directories are picked up, are the same as for the sequential
+ * walk in {@link ArtworkAnalyzer#extractProjectFiles(File)}.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class ParallelDirectoryWalker {
+  private final ArtworkAnalyzer artworkAnalyzer;
+  private final int parallelism;
+  private final Set<String> imageFileSuffixes;
+  private final Set<String> referencingFileSuffixes;
+
+  /**
+   * @param artworkAnalyzer
+   *          Decides which files are images or referencing files and which directories are skipped.
+   * @param parallelism
+   *          Maximum number of directories to explore at once.
+   */
+  ParallelDirectoryWalker(ArtworkAnalyzer artworkAnalyzer, int parallelism) {
+    if (artworkAnalyzer == null)
+      throw new NullPointerException("The 'artworkAnalyzer' parameter cannot be null.");
+    if (parallelism < 1)
+      throw new IllegalArgumentException("Parallelism must be > 0");
+
+    this.artworkAnalyzer = artworkAnalyzer;
+    this.parallelism = parallelism;
+    this.imageFileSuffixes = artworkAnalyzer.imageFileSuffixes();
+    this.referencingFileSuffixes = artworkAnalyzer.referencingFileSuffixes();
+  }
+
+  /**
+   * Walks the project rooted at {@code projectRootDirectory}. Unreadable directories are skipped.
+   * 
+   * @param filesTouched
+   *          Incremented for every non-directory entry encountered.
+   * @return The project's image files and referencing files.
+   * @throws IOException
+   *           If {@code projectRootDirectory} can't be read.
+   * @throws InterruptedIOException
+   *           If the calling thread is interrupted. Directories being listed at the time are finished, but no more are
+   *           started.
+   */
+  ProjectFiles walk(File projectRootDirectory, LongAdder filesTouched) throws IOException {
+    Path rootDirectory = projectRootDirectory.toPath();
+    Object rootFileKey = Files.readAttributes(rootDirectory, BasicFileAttributes.class).fileKey();
+    Set<File> imageFiles = new ConcurrentSkipListSet<File>();
+    Set<File> referencingFiles = new ConcurrentSkipListSet<File>();
+    ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+
+    try {
+      // Unlike invoke(), waiting on the result can be interrupted
+      forkJoinPool.submit(
+        new DirectoryWalkingTask(rootDirectory, new Ancestor(rootFileKey, null), imageFiles, referencingFiles,
+          filesTouched)).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while walking the project.");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      if (e.getCause() instanceof Error)
+        throw (Error) e.getCause();
+
+      throw new IOException(e.getCause());
+    } finally {
+      forkJoinPool.shutdownNow();
+    }
+
+    return new ProjectFiles(new TreeSet<File>(imageFiles), new TreeSet<File>(referencingFiles));
+  }
+
+  /**
+   * Lists a single directory, classifying its files and forking a task for each subdirectory.
+   */
+  private class DirectoryWalkingTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Path directory;
+    private final Ancestor ancestors;
+    private final Set<File> imageFiles;
+    private final Set<File> referencingFiles;
+    private final LongAdder filesTouched;
+
+    DirectoryWalkingTask(Path directory, Ancestor ancestors, Set<File> imageFiles, Set<File> referencingFiles,
+        LongAdder filesTouched) {
+      this.directory = directory;
+      this.ancestors = ancestors;
+      this.imageFiles = imageFiles;
+      this.referencingFiles = referencingFiles;
+      this.filesTouched = filesTouched;
+    }
+
+    @Override
+    protected void compute() {
+      // The walk was abandoned
+      if (getPool().isShutdown())
+        return;
+
+      List<DirectoryWalkingTask> subdirectoryTasks = new ArrayList<DirectoryWalkingTask>();
+      DirectoryStream<Path> entries;
+
+      try {
+        entries = Files.newDirectoryStream(directory);
+      } catch (IOException e) {
+        // Unreadable or vanished mid-walk - nothing we can analyze
+        return;
+      }
+
+      try {
+        for (Path entry : entries) {
+          BasicFileAttributes attributes;
+
+          try {
+            // Follows links, like the sequential walk does
+            attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+          } catch (IOException e) {
+            // Broken link or vanished mid-walk
+            filesTouched.increment();
+            continue;
+          }
+
+          if (attributes.isDirectory()) {
+            if (artworkAnalyzer.isPrunedDirectoryName(entry.getFileName().toString()))
+              continue;
+
+            Object fileKey = attributes.fileKey();
+
+            // A link back up the tree would have us walking forever
+            if (fileKey != null && ancestors.contains(fileKey))
+              continue;
+
+            subdirectoryTasks.add(new DirectoryWalkingTask(entry, new Ancestor(fileKey, ancestors), imageFiles,
+              referencingFiles, filesTouched));
+          } else {
+            filesTouched.increment();
+
+            if (!attributes.isRegularFile())
+              continue;
+
+            String filename = entry.getFileName().toString();
+
+            if (hasSuffix(filename, imageFileSuffixes))
+              imageFiles.add(entry.toFile());
+            if (attributes.size() > 0 && hasSuffix(filename, referencingFileSuffixes))
+              referencingFiles.add(entry.toFile());
+          }
+        }
+      } finally {
+        try {
+          entries.close();
+        } catch (IOException e) {
+          // Nothing useful to do
+        }
+      }
+
+      invokeAll(subdirectoryTasks);
+    }
+  }
+
+  /**
+   * Identity of a directory between the root and the one being walked, used to spot link loops.
+   */
+  private static class Ancestor {
+    private final Object fileKey;
+    private final Ancestor parent;
+
+    Ancestor(Object fileKey, Ancestor parent) {
+      this.fileKey = fileKey;
+      this.parent = parent;
+    }
+
+    boolean contains(Object fileKey) {
+      for (Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent)
+        if (fileKey.equals(ancestor.fileKey))
+          return true;
+
+      return false;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.util.zip.Deflater.BEST_COMPRESSION;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+import static java.util.zip.Deflater.NO_COMPRESSION;
+
+/**
+ * Settings for encoding generated PNG images, trading encoding time against output size.
+ * <p>
+ * Instances of this class are immutable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class PngEncodingOptions {
+  /**
+   * Deflate level 4 with adaptive filtering and no palette reduction. Levels above 4 cost much more time on
+   * photographic artwork for very little further size reduction.
+   */
+  public static final PngEncodingOptions DEFAULT = new PngEncodingOptions(4, PngFilterStrategy.ADAPTIVE, false);
+
+  private final int deflateLevel;
+  private final PngFilterStrategy filterStrategy;
+  private final boolean paletteReduction;
+
+  /**
+   * Constructs an immutable {@code PngEncodingOptions} instance.
+   * 
+   * @param deflateLevel
+   *          Deflate compression level, from {@code 0} (store only, fastest) to {@code 9} (smallest, slowest), or
+   *          {@code -1} for deflate's default.
+   * @param filterStrategy
+   *          How image rows are filtered before they're deflated.
+   * @param paletteReduction
+   *          If {@code true}, images with no more than 256 distinct colors are written as palette images, which are
+   *          typically much smaller. This is lossless. Only applies to images encoded in one piece - images scaled in
+   *          bands are always written as truecolor, since their colors aren't known up front.
+   */
+  public PngEncodingOptions(int deflateLevel, PngFilterStrategy filterStrategy, boolean paletteReduction) {
+    if (deflateLevel != DEFAULT_COMPRESSION && (deflateLevel < NO_COMPRESSION || deflateLevel > BEST_COMPRESSION))
+      throw new IllegalArgumentException(format("Deflate level must be between %d and %d, or %d for the default.",
+        NO_COMPRESSION, BEST_COMPRESSION, DEFAULT_COMPRESSION));
+    if (filterStrategy == null)
+      throw new NullPointerException("The 'filterStrategy' parameter cannot be null.");
+
+    this.deflateLevel = deflateLevel;
+    this.filterStrategy = filterStrategy;
+    this.paletteReduction = paletteReduction;
+  }
+
+  /**
+   * @return Deflate compression level, from {@code 0} to {@code 9}, or {@code -1} for deflate's default.
+   */
+  public int getDeflateLevel() {
+    return deflateLevel;
+  }
+
+  /**
+   * @return How image rows are filtered before they're deflated.
+   */
+  public PngFilterStrategy getFilterStrategy() {
+    return filterStrategy;
+  }
+
+  /**
+   * @return {@code true} if images with no more than 256 distinct colors are written as palette images.
+   */
+  public boolean isPaletteReduction() {
+    return paletteReduction;
+  }
+
+  /**
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other)
+      return true;
+    if (!(other instanceof PngEncodingOptions))
+      return false;
+
+    PngEncodingOptions otherOptions = (PngEncodingOptions) other;
+    return otherOptions.getDeflateLevel() == getDeflateLevel()
+        && otherOptions.getFilterStrategy() == getFilterStrategy()
+        && otherOptions.isPaletteReduction() == isPaletteReduction();
+  }
+
+  /**
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    int hash = 1;
+    hash = hash * 31 + getDeflateLevel();
+    hash = hash * 29 + getFilterStrategy().hashCode();
+    hash = hash * 17 + (isPaletteReduction() ? 1 : 0);
+    return hash;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return format("%s{deflateLevel=%d, filterStrategy=%s, paletteReduction=%s}", getClass().getSimpleName(),
+      deflateLevel, filterStrategy, paletteReduction);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+/**
+ * How rows of a PNG image are filtered before they're deflated. Filtering turns pixels into differences from their
+ * neighbors, which usually compress much better.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public enum PngFilterStrategy {
+  /** Rows are deflated as-is. Fastest, and usually best for palette images. */
+  NONE,
+
+  /** Each byte is stored as the difference from the corresponding byte of the pixel to its left. */
+  SUB,
+
+  /** Each byte is stored as the difference from the corresponding byte of the pixel above it. */
+  UP,
+
+  /** Each byte is stored as the difference from the average of the pixels to its left and above it. */
+  AVERAGE,
+
+  /** Each byte is stored as the difference from whichever of its left, upper and upper-left neighbors predicts best. */
+  PAETH,
+
+  /**
+   * Every filter is tried on each row and the one with the smallest sum of absolute differences is kept. Usually gives
+   * the smallest output, at the cost of filtering each row five times. Palette images are never filtered, since
+   * differences between palette indices don't mean anything.
+   */
+  ADAPTIVE
+}
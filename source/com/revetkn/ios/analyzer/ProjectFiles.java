@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import java.io.File;
+import java.util.SortedSet;
+
+/**
+ * The files in a project that matter to artwork analysis, as found by a single walk over the project.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ProjectFiles {
+  private final SortedSet<File> imageFiles;
+  private final SortedSet<File> referencingFiles;
+
+  /**
+   * Constructs a {@code ProjectFiles} instance.
+   * 
+   * @param imageFiles
+   *          The project's image files.
+   * @param referencingFiles
+   *          The project's non-empty files which could potentially include image references.
+   */
+  public ProjectFiles(SortedSet<File> imageFiles, SortedSet<File> referencingFiles) {
+    if (imageFiles == null)
+      throw new NullPointerException("The 'imageFiles' parameter cannot be null.");
+    if (referencingFiles == null)
+      throw new NullPointerException("The 'referencingFiles' parameter cannot be null.");
+
+    this.imageFiles = imageFiles;
+    this.referencingFiles = referencingFiles;
+  }
+
+  /**
+   * @return The project's image files.
+   */
+  public SortedSet<File> getImageFiles() {
+    return imageFiles;
+  }
+
+  /**
+   * @return The project's non-empty files which could potentially include image references.
+   */
+  public SortedSet<File> getReferencingFiles() {
+    return referencingFiles;
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Finds references to a fixed set of names by lexing text once, rather than searching the text for each name.
+ * <p>
+ * Two kinds of token are recognized: the text between a pair of double quotes - which covers Objective-C string
+ * literals like {@code @"background"} and plain {@code "background"} strings in plists and project files - and the
+ * text between {@code >} and the next {@code <}, i.e. an XML text node like {@code <string>background.png</string>}.
+ * Each token is looked up in a hash table of names, so the cost of a scan depends on the length of the text and not on
+ * how many names there are.
+ * <p>
+ * Tokens are delimited exactly the way a search for {@code "name"} or {@code >name<} would find them: every quote
+ * character closes the current quoted token and opens the next one, and escapes are not interpreted. Names containing
+ * {@code "}, {@code <} or {@code >} can't be told apart from their delimiters and are never found.
+ * <p>
+ * Scanning can be done all at once via {@link #findReferences(CharSequence)}, in chunks via
+ * {@link #findReferences(Reader)}, or one character at a time via {@link #newScan()}. Text in an ASCII-compatible
+ * encoding can also be scanned as raw bytes via {@link #findReferences(ByteBuffer)}, skipping decoding entirely - the
+ * delimiters are ASCII, so they can't occur inside a multibyte character.
+ * <p>
+ * Each way of scanning can also record every token it sees in a {@link TokenFilter}, so a later question like "could
+ * this text reference {@code newImage}?" can be answered without scanning the text again.
+ * <p>
+ * This class is threadsafe and immutable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class ReferenceTokenizer<T> {
+  /** How many characters {@link #findReferences(Reader)} reads at a time. */
+  private static final int CHUNK_SIZE_IN_CHARACTERS = 64 * 1024;
+
+  /** How many bytes {@link #findReferences(ByteBuffer)} copies at a time out of buffers with no backing array. */
+  private static final int CHUNK_SIZE_IN_BYTES = 64 * 1024;
+
+  private final Map<String, Set<T>> namesToValues;
+
+  /**
+   * Names as they appear when encoded in {@code byteCharset}, one byte per character -> values. {@code null} if
+   * {@code byteCharset} isn't ASCII-compatible.
+   */
+  private final Map<String, Set<T>> encodedNamesToValues;
+
+  /** Tokens longer than this can't be a name, so we stop collecting them. */
+  private final int maximumNameLength;
+
+  /**
+   * Builds a tokenizer which recognizes the given names.
+   * 
+   * @param namesToValues
+   *          Names to look for -> values to report when that name is found.
+   * @param byteCharset
+   *          Encoding of text passed to {@link #findReferences(ByteBuffer)}.
+   * @throws NullPointerException
+   *           If {@code namesToValues} or {@code byteCharset} is null.
+   */
+  ReferenceTokenizer(Map<String, ? extends Collection<T>> namesToValues, Charset byteCharset) {
+    if (namesToValues == null)
+      throw new NullPointerException("The 'namesToValues' parameter cannot be null.");
+    if (byteCharset == null)
+      throw new NullPointerException("The 'byteCharset' parameter cannot be null.");
+
+    this.namesToValues = new HashMap<String, Set<T>>(namesToValues.size() * 2);
+    this.encodedNamesToValues = isAsciiCompatible(byteCharset) ? new HashMap<String, Set<T>>() : null;
+    int maximumNameLength = 0;
+
+    for (Entry<String, ? extends Collection<T>> entry : namesToValues.entrySet()) {
+      Set<T> values = new HashSet<T>(entry.getValue());
+      this.namesToValues.put(entry.getKey(), values);
+      maximumNameLength = max(maximumNameLength, entry.getKey().length());
+
+      if (encodedNamesToValues != null) {
+        String encodedName = encodeName(entry.getKey(), byteCharset);
+        encodedNamesToValues.put(encodedName, values);
+        maximumNameLength = max(maximumNameLength, encodedName.length());
+      }
+    }
+
+    this.maximumNameLength = maximumNameLength;
+  }
+
+  /**
+   * @return {@code name} the way {@link #findReferences(ByteBuffer)} sees it when encoded in {@code byteCharset} -
+   *         each byte becomes one character.
+   */
+  static String encodeName(String name, Charset byteCharset) {
+    return new String(name.getBytes(byteCharset), ISO_8859_1);
+  }
+
+  /**
+   * @return {@code true} if {@code charset} encodes ASCII characters as single ASCII bytes, so delimiters can be
+   *         spotted without decoding.
+   */
+  static boolean isAsciiCompatible(Charset charset) {
+    String ascii = "\"<>azAZ09@.~";
+
+    try {
+      return Arrays.equals(ascii.getBytes(charset), ascii.getBytes(US_ASCII));
+    } catch (UnsupportedOperationException e) {
+      // Decode-only charset
+      return false;
+    }
+  }
+
+  /**
+   * @return A new scan, ready to accept the first character of some text.
+   */
+  Scan newScan() {
+    return new Scan(namesToValues, null);
+  }
+
+  /**
+   * @return {@code true} if {@link #findReferences(ByteBuffer)} is supported.
+   */
+  boolean canScanBytes() {
+    return encodedNamesToValues != null;
+  }
+
+  /**
+   * @param text
+   *          The text to scan.
+   * @return Values of all names referenced in {@code text}.
+   * @throws NullPointerException
+   *           If {@code text} is null.
+   */
+  Set<T> findReferences(CharSequence text) {
+    return findReferences(text, null);
+  }
+
+  /**
+   * @param text
+   *          The text to scan.
+   * @param tokenFilterBuilder
+   *          Records every token in {@code text}. May be {@code null}.
+   * @return Values of all names referenced in {@code text}.
+   * @throws NullPointerException
+   *           If {@code text} is null.
+   */
+  Set<T> findReferences(CharSequence text, TokenFilter.Builder tokenFilterBuilder) {
+    if (text == null)
+      throw new NullPointerException("The 'text' parameter cannot be null.");
+
+    Scan scan = new Scan(namesToValues, tokenFilterBuilder);
+
+    for (int i = 0; i < text.length(); i++)
+      scan.accept(text.charAt(i));
+
+    return scan.getReferences();
+  }
+
+  /**
+   * Scans the contents of {@code reader} in fixed-size chunks. Tokens which straddle a chunk boundary are found too.
+   * <p>
+   * The caller is responsible for closing {@code reader}.
+   * 
+   * @param reader
+   *          The text to scan.
+   * @return Values of all names referenced in the text.
+   * @throws NullPointerException
+   *           If {@code reader} is null.
+   * @throws IOException
+   *           If an error occurs while reading.
+   */
+  Set<T> findReferences(Reader reader) throws IOException {
+    return findReferences(reader, null);
+  }
+
+  /**
+   * Scans the contents of {@code reader} in fixed-size chunks, like {@link #findReferences(Reader)}.
+   * 
+   * @param reader
+   *          The text to scan.
+   * @param tokenFilterBuilder
+   *          Records every token in the text. May be {@code null}.
+   * @return Values of all names referenced in the text.
+   * @throws NullPointerException
+   *           If {@code reader} is null.
+   * @throws IOException
+   *           If an error occurs while reading.
+   */
+  Set<T> findReferences(Reader reader, TokenFilter.Builder tokenFilterBuilder) throws IOException {
+    if (reader == null)
+      throw new NullPointerException("The 'reader' parameter cannot be null.");
+
+    Scan scan = new Scan(namesToValues, tokenFilterBuilder);
+    char[] chunk = new char[CHUNK_SIZE_IN_CHARACTERS];
+    int charactersRead;
+
+    while ((charactersRead = reader.read(chunk)) != -1)
+      for (int i = 0; i < charactersRead; i++)
+        scan.accept(chunk[i]);
+
+    return scan.getReferences();
+  }
+
+  /**
+   * Scans raw bytes of text encoded in the charset this tokenizer was built with, from {@code bytes}' position to its
+   * limit. The position of {@code bytes} is left unchanged.
+   * 
+   * @param bytes
+   *          The text to scan.
+   * @return Values of all names referenced in the text.
+   * @throws NullPointerException
+   *           If {@code bytes} is null.
+   * @throws IllegalStateException
+   *           If the charset isn't ASCII-compatible - see {@link #canScanBytes()}.
+   */
+  Set<T> findReferences(ByteBuffer bytes) {
+    return findReferences(bytes, null);
+  }
+
+  /**
+   * Scans raw bytes of text, like {@link #findReferences(ByteBuffer)}. Tokens are recorded the way they're encoded,
+   * one byte per character - see {@link #encodeName(String, Charset)}.
+   * 
+   * @param bytes
+   *          The text to scan.
+   * @param tokenFilterBuilder
+   *          Records every token in the text. May be {@code null}.
+   * @return Values of all names referenced in the text.
+   * @throws NullPointerException
+   *           If {@code bytes} is null.
+   * @throws IllegalStateException
+   *           If the charset isn't ASCII-compatible - see {@link #canScanBytes()}.
+   */
+  Set<T> findReferences(ByteBuffer bytes, TokenFilter.Builder tokenFilterBuilder) {
+    if (bytes == null)
+      throw new NullPointerException("The 'bytes' parameter cannot be null.");
+    if (!canScanBytes())
+      throw new IllegalStateException("Byte scanning requires an ASCII-compatible charset.");
+
+    Scan scan = new Scan(encodedNamesToValues, tokenFilterBuilder);
+
+    if (bytes.hasArray()) {
+      scanBytes(scan, bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    } else {
+      // Direct or mapped buffer - bulk-copy chunks out rather than paying for a bounds-checked get() per byte
+      ByteBuffer view = bytes.duplicate();
+      byte[] chunk = new byte[CHUNK_SIZE_IN_BYTES];
+
+      while (view.hasRemaining()) {
+        int length = min(chunk.length, view.remaining());
+        view.get(chunk, 0, length);
+        scanBytes(scan, chunk, 0, length);
+      }
+    }
+
+    return scan.getReferences();
+  }
+
+  private void scanBytes(Scan scan, byte[] bytes, int offset, int length) {
+    for (int i = offset, end = offset + length; i < end; i++)
+      scan.accept((char) (bytes[i] & 0xFF));
+  }
+
+  /**
+   * Lexer state for a single piece of text, fed one character at a time.
+   * <p>
+   * This class is not threadsafe.
+   */
+  class Scan {
+    private final Map<String, Set<T>> namesToValues;
+    private final Set<T> references = new HashSet<T>();
+    private final Token quotedToken = new Token();
+    private final Token textNodeToken = new Token();
+    private final TokenFilter.Builder tokenFilterBuilder;
+
+    private Scan(Map<String, Set<T>> namesToValues, TokenFilter.Builder tokenFilterBuilder) {
+      this.namesToValues = namesToValues;
+      this.tokenFilterBuilder = tokenFilterBuilder;
+    }
+
+    /**
+     * Feeds the next character of the text to the lexer.
+     */
+    void accept(char character) {
+      if (character == '"') {
+        // The closing quote of one token is also the opening quote of the next
+        if (quotedToken.isOpen())
+          lookUp(quotedToken);
+
+        quotedToken.open();
+      } else {
+        quotedToken.append(character);
+      }
+
+      if (character == '>') {
+        textNodeToken.open();
+      } else if (character == '<') {
+        if (textNodeToken.isOpen())
+          lookUp(textNodeToken);
+
+        textNodeToken.close();
+      } else {
+        textNodeToken.append(character);
+      }
+    }
+
+    /**
+     * @return Values of all names referenced in the text so far.
+     */
+    Set<T> getReferences() {
+      return references;
+    }
+
+    private void lookUp(Token token) {
+      if (tokenFilterBuilder != null)
+        tokenFilterBuilder.add(token.tokenHashCode());
+
+      if (token.isTooLong())
+        return;
+
+      Set<T> values = namesToValues.get(token.toString());
+
+      if (values != null)
+        references.addAll(values);
+    }
+  }
+
+  /**
+   * Characters of the token currently being lexed. Once a token gets longer than the longest name, its characters are
+   * no longer kept, but its hash code still covers all of them.
+   */
+  private class Token {
+    private final char[] characters = new char[maximumNameLength];
+    private int length = -1;
+    private int hashCode;
+
+    boolean isOpen() {
+      return length >= 0;
+    }
+
+    boolean isTooLong() {
+      return length > maximumNameLength;
+    }
+
+    void open() {
+      length = 0;
+      hashCode = 0;
+    }
+
+    void close() {
+      length = -1;
+    }
+
+    void append(char character) {
+      if (length < 0)
+        return;
+
+      hashCode = 31 * hashCode + character;
+
+      if (length > maximumNameLength)
+        return;
+
+      if (length < maximumNameLength)
+        characters[length] = character;
+
+      length++;
+    }
+
+    /** @return The same value as {@link String#hashCode()} of the whole token. */
+    int tokenHashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return new String(characters, 0, length);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.abs;
+import static java.lang.Math.sin;
+
+/**
+ * Reconstruction filters available when resampling images.
+ * <p>
+ * Listed roughly from fastest/softest to slowest/sharpest.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public enum ResamplingKernel {
+  /** Linear interpolation between the two nearest pixels. Fast, but soft. */
+  BILINEAR(1) {
+    @Override
+    double weight(double x) {
+      x = abs(x);
+      return x < 1 ? 1 - x : 0;
+    }
+  },
+
+  /** Catmull-Rom cubic interpolation. A good balance between sharpness and ringing. */
+  BICUBIC(2) {
+    @Override
+    double weight(double x) {
+      x = abs(x);
+
+      if (x < 1)
+        return (1.5 * x - 2.5) * x * x + 1;
+      if (x < 2)
+        return ((-0.5 * x + 2.5) * x - 4) * x + 2;
+
+      return 0;
+    }
+  },
+
+  /** Three-lobed Lanczos windowed sinc. Sharpest, at the cost of some ringing around hard edges. */
+  LANCZOS3(3) {
+    @Override
+    double weight(double x) {
+      x = abs(x);
+
+      if (x == 0)
+        return 1;
+      if (x >= 3)
+        return 0;
+
+      double piX = PI * x;
+      return 3 * sin(piX) * sin(piX / 3) / (piX * piX);
+    }
+  };
+
+  private double radius;
+
+  private ResamplingKernel(double radius) {
+    this.radius = radius;
+  }
+
+  /**
+   * How far from the sample point, in source pixels, this kernel reaches when scaling up.
+   * 
+   * @return This kernel's radius.
+   */
+  double getRadius() {
+    return radius;
+  }
+
+  /**
+   * Evaluates this kernel.
+   * 
+   * @param x
+   *          Distance from the sample point, in source pixels.
+   * @return The kernel's weight at {@code x}.
+   */
+  abstract double weight(double x);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+/**
+ * The stages each image passes through in {@link ArtworkAnalyzer#generateRetinaImages(java.io.File, java.io.File,
+ * java.util.Set)}. Each stage runs on its own threads, so disk and CPU work overlap - see
+ * {@link ArtworkAnalyzer#retinaImageGenerationConcurrency(RetinaImageGenerationStage)}.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public enum RetinaImageGenerationStage {
+  /** Reading nonretina image files from disk. */
+  READ,
+
+  /** Decoding nonretina images into pixels. */
+  DECODE,
+
+  /**
+   * Scaling pixels up to retina size. Images large enough to be scaled in bands are read, scaled, encoded and written
+   * entirely in this stage, a band at a time.
+   */
+  SCALE,
+
+  /** Encoding retina images as PNG, streamed straight into their destination files. */
+  ENCODE,
+
+  /**
+   * Finishing up - copying images that were already retina-sized as-is, recording generated images and reporting
+   * progress.
+   */
+  WRITE
+}
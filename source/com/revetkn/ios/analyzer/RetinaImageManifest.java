@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Logger;
+
+/**
+ * Record of the retina images generated into an output directory, stored alongside them in a compact binary file, so
+ * retina images whose nonretina sources haven't changed can be skipped on subsequent runs.
+ * <p>
+ * Each entry remembers the length, last-modified time, metrics and - optionally - a SHA-256 hash of the nonretina
+ * source it was generated from, the {@link PngEncodingOptions} it was encoded with, and the length and last-modified
+ * time of the retina image itself. A retina image is up to date if it hasn't been touched since it was generated, it
+ * would still be encoded the same way, and its source still has the same length and last-modified time, or, if hashes
+ * are being compared, the same contents. The whole manifest is discarded if it was written with different generation
+ * settings, for example a different {@link ResamplingKernel}.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class RetinaImageManifest {
+  private static final Logger LOGGER = Logger.getLogger(RetinaImageManifest.class.getName());
+
+  /** Name of the manifest file inside the output directory. */
+  static final String MANIFEST_FILENAME = ".retina-images.manifest";
+
+  /** Identifies our manifest file format. Bump {@code MANIFEST_FORMAT_VERSION} whenever the layout changes. */
+  private static final int MANIFEST_FORMAT_MAGIC_NUMBER = 0x52494d46;
+  private static final int MANIFEST_FORMAT_VERSION = 2;
+
+  private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+
+  private final File outputDirectory;
+  private final File manifestFile;
+  private final String generationSettings;
+  private final Map<String, ManifestEntry> entriesByRetinaImagePath = new HashMap<String, ManifestEntry>();
+  private boolean modified;
+
+  /**
+   * Creates an empty manifest for {@code outputDirectory}. Use {@link #load(File, String)} to pick up previously-saved
+   * entries.
+   * 
+   * @param outputDirectory
+   *          Directory into which retina images are generated and in which the manifest file lives.
+   * @param generationSettings
+   *          Description of the settings retina images are generated with. Entries recorded under other settings are
+   *          discarded.
+   */
+  RetinaImageManifest(File outputDirectory, String generationSettings) {
+    if (outputDirectory == null)
+      throw new NullPointerException("The 'outputDirectory' parameter cannot be null.");
+    if (generationSettings == null)
+      throw new NullPointerException("The 'generationSettings' parameter cannot be null.");
+
+    this.outputDirectory = outputDirectory.getAbsoluteFile();
+    this.manifestFile = new File(this.outputDirectory, MANIFEST_FILENAME);
+    this.generationSettings = generationSettings;
+  }
+
+  /**
+   * Loads the manifest stored in {@code outputDirectory}. A missing, unreadable or outdated manifest file results in an
+   * empty manifest rather than an error - everything is simply regenerated.
+   * 
+   * @param outputDirectory
+   *          Directory into which retina images are generated and in which the manifest file lives.
+   * @param generationSettings
+   *          Description of the settings retina images are generated with.
+   * @return The loaded manifest.
+   */
+  static RetinaImageManifest load(File outputDirectory, String generationSettings) {
+    RetinaImageManifest retinaImageManifest = new RetinaImageManifest(outputDirectory, generationSettings);
+
+    if (!retinaImageManifest.manifestFile.isFile())
+      return retinaImageManifest;
+
+    DataInputStream inputStream = null;
+
+    try {
+      inputStream =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(retinaImageManifest.manifestFile)));
+
+      if (inputStream.readInt() != MANIFEST_FORMAT_MAGIC_NUMBER || inputStream.readInt() != MANIFEST_FORMAT_VERSION) {
+        LOGGER.info(format("Ignoring retina image manifest '%s' since it has an unknown format.",
+          retinaImageManifest.manifestFile));
+        return retinaImageManifest;
+      }
+
+      if (!generationSettings.equals(inputStream.readUTF())) {
+        LOGGER.info(format("Ignoring retina image manifest '%s' since it was written with different settings.",
+          retinaImageManifest.manifestFile));
+        retinaImageManifest.modified = true;
+        return retinaImageManifest;
+      }
+
+      int entryCount = inputStream.readInt();
+
+      for (int i = 0; i < entryCount; i++) {
+        String retinaImagePath = inputStream.readUTF();
+        String sourceImagePath = inputStream.readUTF();
+        long sourceLength = inputStream.readLong();
+        long sourceLastModified = inputStream.readLong();
+        byte[] sourceContentHash = new byte[inputStream.readUnsignedByte()];
+        inputStream.readFully(sourceContentHash);
+        ImageMetrics sourceImageMetrics =
+            new ImageMetrics(inputStream.readInt(), inputStream.readInt(), inputStream.readInt(),
+              inputStream.readUTF());
+        PngEncodingOptions pngEncodingOptions =
+            new PngEncodingOptions(inputStream.readByte(), PngFilterStrategy.valueOf(inputStream.readUTF()),
+              inputStream.readBoolean());
+        long retinaLength = inputStream.readLong();
+        long retinaLastModified = inputStream.readLong();
+
+        retinaImageManifest.entriesByRetinaImagePath.put(retinaImagePath, new ManifestEntry(sourceImagePath,
+          sourceLength, sourceLastModified, sourceContentHash, sourceImageMetrics, pngEncodingOptions, retinaLength,
+          retinaLastModified));
+      }
+    } catch (EOFException e) {
+      LOGGER.warning(format("Retina image manifest '%s' is truncated, discarding it.",
+        retinaImageManifest.manifestFile));
+      retinaImageManifest.entriesByRetinaImagePath.clear();
+    } catch (Exception e) {
+      LOGGER.warning(format("Unable to read retina image manifest '%s', discarding it: %s",
+        retinaImageManifest.manifestFile, e));
+      retinaImageManifest.entriesByRetinaImagePath.clear();
+    } finally {
+      closeQuietly(inputStream);
+    }
+
+    return retinaImageManifest;
+  }
+
+  /**
+   * @param retinaImageFile
+   *          A retina image.
+   * @return Metrics of the nonretina image {@code retinaImageFile} was last generated from, or {@code null} if it
+   *         isn't in the manifest. They only describe the source as it is now if {@link #isUpToDate} says so, which
+   *         makes them good enough for working out the {@link PngEncodingOptions} to pass to it.
+   */
+  synchronized ImageMetrics getSourceImageMetrics(File retinaImageFile) {
+    ManifestEntry manifestEntry = entriesByRetinaImagePath.get(retinaImagePath(retinaImageFile));
+    return manifestEntry == null ? null : manifestEntry.sourceImageMetrics;
+  }
+
+  /**
+   * Determines whether {@code retinaImageFile} was generated from {@code sourceImageFile} as it is now, encoded with
+   * {@code pngEncodingOptions}, and hasn't been touched since.
+   * 
+   * @param sourceImageFile
+   *          The nonretina image.
+   * @param retinaImageFile
+   *          The retina image that would be generated from it.
+   * @param pngEncodingOptions
+   *          How the retina image would be encoded now.
+   * @param compareContentHashes
+   *          If {@code true}, a source whose last-modified time changed but whose contents didn't is still up to date.
+   * @return {@code true} if the retina image doesn't need to be generated again.
+   * @throws IOException
+   *           If the source has to be hashed and can't be read.
+   */
+  boolean isUpToDate(File sourceImageFile, File retinaImageFile, PngEncodingOptions pngEncodingOptions,
+      boolean compareContentHashes) throws IOException {
+    String retinaImagePath = retinaImagePath(retinaImageFile);
+    ManifestEntry manifestEntry;
+
+    synchronized (this) {
+      manifestEntry = entriesByRetinaImagePath.get(retinaImagePath);
+    }
+
+    if (manifestEntry == null || !manifestEntry.sourceImagePath.equals(sourceImageFile.getAbsolutePath())
+        || !manifestEntry.pngEncodingOptions.equals(pngEncodingOptions))
+      return false;
+
+    if (manifestEntry.retinaLength != retinaImageFile.length()
+        || manifestEntry.retinaLastModified != retinaImageFile.lastModified())
+      return false;
+
+    long sourceLength = sourceImageFile.length();
+    long sourceLastModified = sourceImageFile.lastModified();
+
+    if (manifestEntry.sourceLength != sourceLength)
+      return false;
+
+    if (manifestEntry.sourceLastModified == sourceLastModified)
+      return true;
+
+    if (!compareContentHashes || manifestEntry.sourceContentHash.length == 0
+        || !Arrays.equals(manifestEntry.sourceContentHash, hashContents(sourceImageFile)))
+      return false;
+
+    // Same contents, just touched - remember the new time so we don't need to hash it again next time
+    synchronized (this) {
+      entriesByRetinaImagePath.put(retinaImagePath, new ManifestEntry(manifestEntry.sourceImagePath, sourceLength,
+        sourceLastModified, manifestEntry.sourceContentHash, manifestEntry.sourceImageMetrics,
+        manifestEntry.pngEncodingOptions, manifestEntry.retinaLength, manifestEntry.retinaLastModified));
+      modified = true;
+    }
+
+    return true;
+  }
+
+  /**
+   * Records that {@code retinaImageFile} was just generated from {@code sourceImageFile}.
+   * 
+   * @param sourceImageFile
+   *          The nonretina image.
+   * @param sourceLength
+   *          The nonretina image's length when it was read.
+   * @param sourceLastModified
+   *          The nonretina image's last-modified time when it was read.
+   * @param sourceContentHash
+   *          Hash of the nonretina image's contents as returned by {@link #hashContents(ByteBuffer)}, or {@code null}
+   *          if hashes aren't being compared.
+   * @param sourceImageMetrics
+   *          The nonretina image's metrics.
+   * @param pngEncodingOptions
+   *          How the retina image was encoded.
+   * @param retinaImageFile
+   *          The generated retina image.
+   */
+  void put(File sourceImageFile, long sourceLength, long sourceLastModified, byte[] sourceContentHash,
+      ImageMetrics sourceImageMetrics, PngEncodingOptions pngEncodingOptions, File retinaImageFile) {
+    ManifestEntry manifestEntry =
+        new ManifestEntry(sourceImageFile.getAbsolutePath(), sourceLength, sourceLastModified,
+          sourceContentHash == null ? new byte[0] : sourceContentHash, sourceImageMetrics, pngEncodingOptions,
+          retinaImageFile.length(), retinaImageFile.lastModified());
+
+    synchronized (this) {
+      entriesByRetinaImagePath.put(retinaImagePath(retinaImageFile), manifestEntry);
+      modified = true;
+    }
+  }
+
+  /**
+   * Writes the manifest to disk if anything changed since it was loaded or last saved. The manifest file is written to
+   * a temporary file first and then moved into place so a crash can't leave a half-written manifest behind.
+   * 
+   * @throws IOException
+   *           If the manifest file can't be written.
+   */
+  synchronized void save() throws IOException {
+    if (!modified)
+      return;
+
+    if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+      throw new IOException(format("Unable to create output directory '%s'.", outputDirectory));
+
+    File temporaryManifestFile = File.createTempFile(MANIFEST_FILENAME, ".tmp", outputDirectory);
+    DataOutputStream outputStream = null;
+
+    try {
+      outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryManifestFile)));
+      outputStream.writeInt(MANIFEST_FORMAT_MAGIC_NUMBER);
+      outputStream.writeInt(MANIFEST_FORMAT_VERSION);
+      outputStream.writeUTF(generationSettings);
+      outputStream.writeInt(entriesByRetinaImagePath.size());
+
+      for (Entry<String, ManifestEntry> entry : entriesByRetinaImagePath.entrySet()) {
+        ManifestEntry manifestEntry = entry.getValue();
+        outputStream.writeUTF(entry.getKey());
+        outputStream.writeUTF(manifestEntry.sourceImagePath);
+        outputStream.writeLong(manifestEntry.sourceLength);
+        outputStream.writeLong(manifestEntry.sourceLastModified);
+        outputStream.writeByte(manifestEntry.sourceContentHash.length);
+        outputStream.write(manifestEntry.sourceContentHash);
+        outputStream.writeInt(manifestEntry.sourceImageMetrics.getWidth());
+        outputStream.writeInt(manifestEntry.sourceImageMetrics.getHeight());
+        outputStream.writeInt(manifestEntry.sourceImageMetrics.getSize());
+        outputStream.writeUTF(manifestEntry.sourceImageMetrics.getContentType());
+        outputStream.writeByte(manifestEntry.pngEncodingOptions.getDeflateLevel());
+        outputStream.writeUTF(manifestEntry.pngEncodingOptions.getFilterStrategy().name());
+        outputStream.writeBoolean(manifestEntry.pngEncodingOptions.isPaletteReduction());
+        outputStream.writeLong(manifestEntry.retinaLength);
+        outputStream.writeLong(manifestEntry.retinaLastModified);
+      }
+
+      outputStream.close();
+      outputStream = null;
+
+      Files.move(temporaryManifestFile.toPath(), manifestFile.toPath(), REPLACE_EXISTING);
+      modified = false;
+    } finally {
+      closeQuietly(outputStream);
+
+      if (temporaryManifestFile.exists() && !temporaryManifestFile.delete())
+        LOGGER.warning(format("Unable to delete temporary retina image manifest file '%s'.", temporaryManifestFile));
+    }
+  }
+
+  /**
+   * @return The number of entries currently in the manifest.
+   */
+  synchronized int size() {
+    return entriesByRetinaImagePath.size();
+  }
+
+  /**
+   * @return SHA-256 hash of {@code contents}.
+   */
+  static byte[] hashContents(byte[] contents) {
+    return createMessageDigest().digest(contents);
+  }
+
+  /**
+   * @return SHA-256 hash of {@code contents}, from its position up to its limit. Its position is not modified.
+   */
+  static byte[] hashContents(ByteBuffer contents) {
+    MessageDigest messageDigest = createMessageDigest();
+    messageDigest.update(contents.duplicate());
+    return messageDigest.digest();
+  }
+
+  /**
+   * @return SHA-256 hash of the contents of {@code file}.
+   * @throws IOException
+   *           If {@code file} can't be read.
+   */
+  static byte[] hashContents(File file) throws IOException {
+    MessageDigest messageDigest = createMessageDigest();
+    InputStream inputStream = new FileInputStream(file);
+
+    try {
+      byte[] buffer = new byte[64 * 1024];
+
+      for (int bytesRead = inputStream.read(buffer); bytesRead != -1; bytesRead = inputStream.read(buffer))
+        messageDigest.update(buffer, 0, bytesRead);
+
+      return messageDigest.digest();
+    } finally {
+      closeQuietly(inputStream);
+    }
+  }
+
+  private static MessageDigest createMessageDigest() {
+    try {
+      return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Retina images are keyed relative to the output directory so the whole directory can be moved around. */
+  private String retinaImagePath(File retinaImageFile) {
+    String outputDirectoryPath = outputDirectory.getPath() + File.separator;
+    String retinaImagePath = retinaImageFile.getAbsolutePath();
+
+    return retinaImagePath.startsWith(outputDirectoryPath) ? retinaImagePath.substring(outputDirectoryPath.length())
+        : retinaImagePath;
+  }
+
+  /**
+   * What a retina image was generated from and how, along with the file attributes it was generated with.
+   */
+  private static class ManifestEntry {
+    private final String sourceImagePath;
+    private final long sourceLength;
+    private final long sourceLastModified;
+    private final byte[] sourceContentHash;
+    private final ImageMetrics sourceImageMetrics;
+    private final PngEncodingOptions pngEncodingOptions;
+    private final long retinaLength;
+    private final long retinaLastModified;
+
+    private ManifestEntry(String sourceImagePath, long sourceLength, long sourceLastModified,
+        byte[] sourceContentHash, ImageMetrics sourceImageMetrics, PngEncodingOptions pngEncodingOptions,
+        long retinaLength, long retinaLastModified) {
+      this.sourceImagePath = sourceImagePath;
+      this.sourceLength = sourceLength;
+      this.sourceLastModified = sourceLastModified;
+      this.sourceContentHash = sourceContentHash;
+      this.sourceImageMetrics = sourceImageMetrics;
+      this.pngEncodingOptions = pngEncodingOptions;
+      this.retinaLength = retinaLength;
+      this.retinaLastModified = retinaLastModified;
+    }
+  }
+}
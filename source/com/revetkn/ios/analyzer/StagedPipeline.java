@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes items through a fixed sequence of stages, each with its own threads and a bounded queue in front of it.
+ * <p>
+ * This lets stages with different bottlenecks overlap - while one item is being read from disk, others can be decoding
+ * or encoding on the CPU - and the bounded queues stop a fast stage from running arbitrarily far ahead of a slow one.
+ * Each item passes through every stage in order; items are otherwise processed in no particular order.
+ * <p>
+ * Stages are added via {@link #addStage(int, Stage)} and the pipeline is run via {@link #process(Iterable)}, which
+ * can be called more than once.
+ * <p>
+ * This class is not threadsafe while stages are being added, but {@link #process(Iterable)} may be called from any
+ * number of threads afterwards.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class StagedPipeline<T> {
+  /** Queued after the last item so each stage's workers know when to stop. */
+  private static final Object END_OF_INPUT = new Object();
+
+  private final int queueCapacity;
+  private final List<Stage<T>> stages = new ArrayList<Stage<T>>();
+  private final List<Integer> concurrencies = new ArrayList<Integer>();
+
+  /**
+   * A step applied to each item passing through the pipeline.
+   */
+  interface Stage<T> {
+    /**
+     * Applies this stage to {@code item}. Called concurrently from as many threads as the stage's concurrency.
+     * 
+     * @throws Exception
+     *           If processing fails, which aborts the whole pipeline.
+     */
+    void process(T item) throws Exception;
+  }
+
+  /**
+   * Creates an empty pipeline.
+   * 
+   * @param queueCapacity
+   *          How many items may wait in front of each stage.
+   */
+  StagedPipeline(int queueCapacity) {
+    if (queueCapacity < 1)
+      throw new IllegalArgumentException("The 'queueCapacity' parameter must be > 0.");
+
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Adds a stage to the end of the pipeline.
+   * 
+   * @param concurrency
+   *          How many items this stage may process at once.
+   * @param stage
+   *          The stage to add.
+   * @return This pipeline.
+   */
+  StagedPipeline<T> addStage(int concurrency, Stage<T> stage) {
+    if (concurrency < 1)
+      throw new IllegalArgumentException("The 'concurrency' parameter must be > 0.");
+    if (stage == null)
+      throw new NullPointerException("The 'stage' parameter cannot be null.");
+
+    stages.add(stage);
+    concurrencies.add(concurrency);
+
+    return this;
+  }
+
+  /**
+   * Pushes each of {@code items} through every stage, blocking until all of them have made it through. Items are fed
+   * into the first stage in iteration order. If any stage fails, remaining work is abandoned - threads are interrupted
+   * and no further items are fed in - and the failure is thrown.
+   * 
+   * @throws ExecutionException
+   *           If a stage failed. The cause is the first failure encountered.
+   * @throws InterruptedException
+   *           If interrupted while waiting. Remaining work is abandoned.
+   */
+  void process(final Iterable<? extends T> items) throws InterruptedException, ExecutionException {
+    if (items == null)
+      throw new NullPointerException("The 'items' parameter cannot be null.");
+    if (stages.isEmpty())
+      throw new IllegalStateException("The pipeline has no stages.");
+
+    final List<BlockingQueue<Object>> queues = new ArrayList<BlockingQueue<Object>>();
+    int threadCount = 1;
+
+    for (int i = 0; i < stages.size(); i++) {
+      queues.add(new ArrayBlockingQueue<Object>(queueCapacity));
+      threadCount += concurrencies.get(i);
+    }
+
+    // Workers block on each other through the queues, so they can't share a pool with anything else
+    final ExecutorService executorService = newFixedThreadPool(threadCount);
+    final CountDownLatch threadsFinished = new CountDownLatch(threadCount);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    try {
+      executorService.execute(new PipelineRunnable(executorService, threadsFinished, failure) {
+        @Override
+        protected void runInPipeline() throws Exception {
+          for (T item : items)
+            queues.get(0).put(item);
+
+          endInput(queues.get(0), concurrencies.get(0));
+        }
+      });
+
+      for (int i = 0; i < stages.size(); i++) {
+        final Stage<T> stage = stages.get(i);
+        final BlockingQueue<Object> inputQueue = queues.get(i);
+        final BlockingQueue<Object> outputQueue = i + 1 < stages.size() ? queues.get(i + 1) : null;
+        final int outputConcurrency = i + 1 < stages.size() ? concurrencies.get(i + 1) : 0;
+        final AtomicInteger runningWorkers = new AtomicInteger(concurrencies.get(i));
+
+        for (int j = 0; j < concurrencies.get(i); j++)
+          executorService.execute(new PipelineRunnable(executorService, threadsFinished, failure) {
+            @Override
+            @SuppressWarnings("unchecked")
+            protected void runInPipeline() throws Exception {
+              for (Object item = inputQueue.take(); item != END_OF_INPUT; item = inputQueue.take()) {
+                stage.process((T) item);
+
+                if (outputQueue != null)
+                  outputQueue.put(item);
+              }
+
+              // The last worker out tells the next stage there's nothing more coming
+              if (runningWorkers.decrementAndGet() == 0 && outputQueue != null)
+                endInput(outputQueue, outputConcurrency);
+            }
+          });
+      }
+
+      threadsFinished.await();
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    if (failure.get() != null)
+      throw new ExecutionException(failure.get());
+  }
+
+  private static void endInput(BlockingQueue<Object> queue, int concurrency) throws InterruptedException {
+    for (int i = 0; i < concurrency; i++)
+      queue.put(END_OF_INPUT);
+  }
+
+  /** Pipeline thread body which records the first failure and tears everything down when it happens. */
+  private static abstract class PipelineRunnable implements Runnable {
+    private final ExecutorService executorService;
+    private final CountDownLatch threadsFinished;
+    private final AtomicReference<Throwable> failure;
+
+    private PipelineRunnable(ExecutorService executorService, CountDownLatch threadsFinished,
+        AtomicReference<Throwable> failure) {
+      this.executorService = executorService;
+      this.threadsFinished = threadsFinished;
+      this.failure = failure;
+    }
+
+    protected abstract void runInPipeline() throws Exception;
+
+    @Override
+    public void run() {
+      try {
+        runInPipeline();
+      } catch (Throwable throwable) {
+        // Threads interrupted because of an earlier failure don't get to replace it
+        if (failure.compareAndSet(null, throwable))
+          executorService.shutdownNow();
+      } finally {
+        threadsFinished.countDown();
+      }
+    }
+  }
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.revetkn.ios.analyzer;
+
+import static com.revetkn.ios.analyzer.PngFilterStrategy.ADAPTIVE;
+import static com.revetkn.ios.analyzer.PngFilterStrategy.NONE;
+import static java.lang.Math.abs;
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a non-interlaced, 8-bit PNG image a few rows at a time, so the full image never needs to be in memory.
+ * <p>
+ * Images are written as RGBA, or - if the caller supplies a palette, see {@link #extractPalette(int[], int, int)} - as
+ * palette images with transparency. Rows are filtered according to the {@link PngFilterStrategy} in effect, then
+ * deflated and written straight to the destination channel in {@code IDAT} chunks as compressed data becomes
+ * available.
+ * <p>
+ * Instances of this class are not threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class StreamingPngWriter implements Closeable {
+  private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+  /** Largest amount of compressed data we'll buffer before emitting an {@code IDAT} chunk. */
+  private static final int MAXIMUM_IDAT_CHUNK_SIZE_IN_BYTES = 64 * 1024;
+
+  /** Most colors a PNG palette can hold. */
+  static final int MAXIMUM_PALETTE_SIZE = 256;
+
+  private static final int TRUECOLOR_BYTES_PER_PIXEL = 4;
+
+  private static final int FILTER_NONE = 0;
+  private static final int FILTER_SUB = 1;
+  private static final int FILTER_UP = 2;
+  private static final int FILTER_AVERAGE = 3;
+  private static final int FILTER_PAETH = 4;
+
+  private final WritableByteChannel channel;
+  private final int width;
+  private final int height;
+  private final int bytesPerPixel;
+  private final PngFilterStrategy filterStrategy;
+
+  /** Palette colors as ARGB with the sign bit flipped, sorted, so pixels can be looked up by binary search. */
+  private final int[] paletteKeys;
+
+  private final Deflater deflater;
+  private final CRC32 crc = new CRC32();
+  private final ByteBuffer chunkHeader = ByteBuffer.allocate(8);
+  private final ByteBuffer chunkTrailer = ByteBuffer.allocate(4);
+  private final byte[] idatBuffer = new byte[MAXIMUM_IDAT_CHUNK_SIZE_IN_BYTES];
+  private int idatBufferLength;
+  private byte[] previousRow;
+  private byte[] currentRow;
+  private final byte[][] filteredRows = new byte[5][];
+  private final long[] filterCosts = new long[5];
+  private int rowsWritten;
+  private boolean closed;
+
+  /**
+   * Starts writing an RGBA PNG image of the given size with default encoding options.
+   * 
+   * @see #StreamingPngWriter(WritableByteChannel, int, int, PngEncodingOptions, int[])
+   */
+  StreamingPngWriter(OutputStream outputStream, int width, int height) throws IOException {
+    this(outputStream, width, height, PngEncodingOptions.DEFAULT);
+  }
+
+  /**
+   * Starts writing an RGBA PNG image of the given size to a stream.
+   * 
+   * @see #StreamingPngWriter(WritableByteChannel, int, int, PngEncodingOptions, int[])
+   */
+  StreamingPngWriter(OutputStream outputStream, int width, int height, PngEncodingOptions pngEncodingOptions)
+      throws IOException {
+    this(Channels.newChannel(checkNotNull(outputStream)), width, height, pngEncodingOptions, null);
+  }
+
+  /**
+   * Starts writing a PNG image of the given size, emitting the PNG signature and header chunks right away.
+   * 
+   * @param channel
+   *          Where the PNG image is written. Closed when this writer is closed.
+   * @param width
+   *          The image's width in pixels.
+   * @param height
+   *          The image's height in pixels.
+   * @param pngEncodingOptions
+   *          Deflate level and filter strategy to use. Palette reduction is up to the caller, via {@code palette}.
+   * @param palette
+   *          Every ARGB color the image contains, as returned by {@link #extractPalette(int[], int, int)}, to write a
+   *          palette image, or {@code null} to write an RGBA image.
+   * @throws IOException
+   *           If an error occurs while writing.
+   */
+  StreamingPngWriter(WritableByteChannel channel, int width, int height, PngEncodingOptions pngEncodingOptions,
+      int[] palette) throws IOException {
+    if (channel == null)
+      throw new NullPointerException("The 'channel' parameter cannot be null.");
+    if (width < 1 || height < 1)
+      throw new IllegalArgumentException("Image width and height must be > 0.");
+    if (pngEncodingOptions == null)
+      throw new NullPointerException("The 'pngEncodingOptions' parameter cannot be null.");
+    if (palette != null && (palette.length < 1 || palette.length > MAXIMUM_PALETTE_SIZE))
+      throw new IllegalArgumentException(String.format("Palettes must have between 1 and %d colors.",
+        MAXIMUM_PALETTE_SIZE));
+
+    this.channel = channel;
+    this.width = width;
+    this.height = height;
+    this.bytesPerPixel = palette == null ? TRUECOLOR_BYTES_PER_PIXEL : 1;
+    this.paletteKeys = palette == null ? null : toPaletteKeys(palette);
+
+    // Differences between palette indices are meaningless, so adaptive filtering just wastes time on them
+    this.filterStrategy =
+        palette != null && pngEncodingOptions.getFilterStrategy() == ADAPTIVE ? NONE : pngEncodingOptions
+          .getFilterStrategy();
+
+    this.deflater = new Deflater(pngEncodingOptions.getDeflateLevel());
+
+    int rowLength = width * bytesPerPixel;
+    previousRow = new byte[rowLength];
+    currentRow = new byte[rowLength];
+
+    for (int i = 0; i < filteredRows.length; i++)
+      filteredRows[i] = new byte[rowLength + 1];
+
+    write(ByteBuffer.wrap(PNG_SIGNATURE));
+
+    byte[] header = new byte[13];
+    writeInt(header, 0, width);
+    writeInt(header, 4, height);
+    header[8] = 8; // Bit depth
+    header[9] = (byte) (paletteKeys == null ? 6 : 3); // Color type: truecolor with alpha, or indexed
+    header[10] = 0; // Compression method: deflate
+    header[11] = 0; // Filter method: adaptive
+    header[12] = 0; // Interlace method: none
+    writeChunk("IHDR", header, header.length);
+
+    if (paletteKeys != null)
+      writePalette();
+  }
+
+  private static OutputStream checkNotNull(OutputStream outputStream) {
+    if (outputStream == null)
+      throw new NullPointerException("The 'outputStream' parameter cannot be null.");
+
+    return outputStream;
+  }
+
+  /**
+   * Finds the distinct colors in some ARGB pixels, for writing them as a palette image.
+   * 
+   * @param argbPixels
+   *          Non-premultiplied ARGB pixels.
+   * @param offset
+   *          Index of the first pixel to look at.
+   * @param length
+   *          How many pixels to look at.
+   * @return The distinct colors, or {@code null} if there are more than a palette can hold.
+   */
+  static int[] extractPalette(int[] argbPixels, int offset, int length) {
+    int[] paletteKeys = new int[MAXIMUM_PALETTE_SIZE];
+    int paletteSize = 0;
+    int previousPixel = 0;
+
+    for (int i = offset; i < offset + length; i++) {
+      int pixel = argbPixels[i];
+
+      // Neighboring pixels are usually the same color, so this skips most lookups
+      if (pixel == previousPixel && paletteSize > 0)
+        continue;
+
+      previousPixel = pixel;
+      int key = pixel ^ Integer.MIN_VALUE;
+      int index = binarySearch(paletteKeys, 0, paletteSize, key);
+
+      if (index >= 0)
+        continue;
+
+      if (paletteSize == MAXIMUM_PALETTE_SIZE)
+        return null;
+
+      // Insertion sort - the palette is tiny
+      index = -index - 1;
+      System.arraycopy(paletteKeys, index, paletteKeys, index + 1, paletteSize - index);
+      paletteKeys[index] = key;
+      paletteSize++;
+    }
+
+    int[] palette = new int[paletteSize];
+
+    for (int i = 0; i < paletteSize; i++)
+      palette[i] = paletteKeys[i] ^ Integer.MIN_VALUE;
+
+    return palette;
+  }
+
+  /**
+   * Flipping the sign bit sorts colors by alpha as an unsigned value, so translucent colors come first and the
+   * {@code tRNS} chunk - which must list alpha for every entry up to the last translucent one - stays short.
+   */
+  private static int[] toPaletteKeys(int[] palette) {
+    int[] paletteKeys = copyOf(palette, palette.length);
+
+    for (int i = 0; i < paletteKeys.length; i++)
+      paletteKeys[i] ^= Integer.MIN_VALUE;
+
+    sort(paletteKeys);
+    return paletteKeys;
+  }
+
+  private void writePalette() throws IOException {
+    byte[] plte = new byte[paletteKeys.length * 3];
+    byte[] trns = new byte[paletteKeys.length];
+    int trnsLength = 0;
+
+    for (int i = 0; i < paletteKeys.length; i++) {
+      int color = paletteKeys[i] ^ Integer.MIN_VALUE;
+      plte[i * 3] = (byte) (color >> 16);
+      plte[i * 3 + 1] = (byte) (color >> 8);
+      plte[i * 3 + 2] = (byte) color;
+      trns[i] = (byte) (color >>> 24);
+
+      if (color >>> 24 != 0xff)
+        trnsLength = i + 1;
+    }
+
+    writeChunk("PLTE", plte, plte.length);
+
+    if (trnsLength > 0)
+      writeChunk("tRNS", trns, trnsLength);
+  }
+
+  /**
+   * Writes the next {@code rowCount} rows of the image.
+   * 
+   * @param argbPixels
+   *          Non-premultiplied ARGB pixels, {@code width} per row. When writing a palette image, every pixel must be in
+   *          the palette.
+   * @param offset
+   *          Index of the first pixel of the first row in {@code argbPixels}.
+   * @param rowCount
+   *          How many rows to write.
+   * @throws IOException
+   *           If an error occurs while writing.
+   * @throws IllegalStateException
+   *           If this would write more rows than the image has.
+   * @throws IllegalArgumentException
+   *           If a pixel isn't in the palette.
+   */
+  void writeRows(int[] argbPixels, int offset, int rowCount) throws IOException {
+    if (closed)
+      throw new IllegalStateException("This writer has been closed.");
+    if (rowsWritten + rowCount > height)
+      throw new IllegalStateException("Attempted to write more rows than the image has.");
+
+    for (int row = 0; row < rowCount; row++) {
+      int pixelOffset = offset + row * width;
+
+      if (paletteKeys == null) {
+        for (int x = 0, i = 0; x < width; x++) {
+          int pixel = argbPixels[pixelOffset + x];
+          currentRow[i++] = (byte) (pixel >> 16);
+          currentRow[i++] = (byte) (pixel >> 8);
+          currentRow[i++] = (byte) pixel;
+          currentRow[i++] = (byte) (pixel >>> 24);
+        }
+      } else {
+        for (int x = 0; x < width; x++) {
+          int index = binarySearch(paletteKeys, argbPixels[pixelOffset + x] ^ Integer.MIN_VALUE);
+
+          if (index < 0)
+            throw new IllegalArgumentException(String.format("Pixel color %08x is not in the palette.",
+              argbPixels[pixelOffset + x]));
+
+          currentRow[x] = (byte) index;
+        }
+      }
+
+      byte[] filteredRow = filterRow();
+      deflate(filteredRow, filteredRow.length);
+
+      byte[] swap = previousRow;
+      previousRow = currentRow;
+      currentRow = swap;
+      rowsWritten++;
+    }
+  }
+
+  /**
+   * Finishes the image and closes the underlying channel.
+   * 
+   * @throws IOException
+   *           If an error occurs while writing, or if fewer rows were written than the image has.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed)
+      return;
+
+    closed = true;
+
+    try {
+      if (rowsWritten != height)
+        throw new IOException(String.format("Only %d of %d image rows were written.", rowsWritten, height));
+
+      deflater.finish();
+
+      while (!deflater.finished())
+        drainDeflater();
+
+      flushIdatBuffer();
+      writeChunk("IEND", new byte[0], 0);
+    } finally {
+      deflater.end();
+      channel.close();
+    }
+  }
+
+  /** @return {@code currentRow}, filtered according to {@code filterStrategy}, prefixed by filter type. */
+  private byte[] filterRow() {
+    switch (filterStrategy) {
+      case NONE:
+        return filterRow(FILTER_NONE);
+      case SUB:
+        return filterRow(FILTER_SUB);
+      case UP:
+        return filterRow(FILTER_UP);
+      case AVERAGE:
+        return filterRow(FILTER_AVERAGE);
+      case PAETH:
+        return filterRow(FILTER_PAETH);
+      default:
+        return filterRowAdaptively();
+    }
+  }
+
+  /** @return {@code currentRow}, filtered with {@code filter}, prefixed by filter type. */
+  private byte[] filterRow(int filter) {
+    int rowLength = currentRow.length;
+    byte[] filteredRow = filteredRows[filter];
+    filteredRow[0] = (byte) filter;
+
+    if (filter == FILTER_NONE) {
+      System.arraycopy(currentRow, 0, filteredRow, 1, rowLength);
+      return filteredRow;
+    }
+
+    for (int i = 0; i < rowLength; i++) {
+      int current = currentRow[i] & 0xff;
+      int left = i >= bytesPerPixel ? currentRow[i - bytesPerPixel] & 0xff : 0;
+      int above = rowsWritten > 0 ? previousRow[i] & 0xff : 0;
+
+      if (filter == FILTER_SUB) {
+        filteredRow[i + 1] = (byte) (current - left);
+      } else if (filter == FILTER_UP) {
+        filteredRow[i + 1] = (byte) (current - above);
+      } else if (filter == FILTER_AVERAGE) {
+        filteredRow[i + 1] = (byte) (current - ((left + above) >> 1));
+      } else {
+        int aboveLeft = rowsWritten > 0 && i >= bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xff : 0;
+        filteredRow[i + 1] = (byte) (current - paethPredictor(left, above, aboveLeft));
+      }
+    }
+
+    return filteredRow;
+  }
+
+  /** @return {@code currentRow}, filtered with whichever filter is likely to compress best, prefixed by filter type. */
+  private byte[] filterRowAdaptively() {
+    int rowLength = currentRow.length;
+    byte[] none = filteredRows[FILTER_NONE];
+    byte[] sub = filteredRows[FILTER_SUB];
+    byte[] up = filteredRows[FILTER_UP];
+    byte[] average = filteredRows[FILTER_AVERAGE];
+    byte[] paeth = filteredRows[FILTER_PAETH];
+    long[] costs = filterCosts;
+
+    for (int filter = FILTER_NONE; filter <= FILTER_PAETH; filter++)
+      costs[filter] = 0;
+
+    for (int i = 0; i < rowLength; i++) {
+      int current = currentRow[i] & 0xff;
+      int left = i >= bytesPerPixel ? currentRow[i - bytesPerPixel] & 0xff : 0;
+      int above = rowsWritten > 0 ? previousRow[i] & 0xff : 0;
+      int aboveLeft = rowsWritten > 0 && i >= bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xff : 0;
+
+      none[i + 1] = (byte) current;
+      sub[i + 1] = (byte) (current - left);
+      up[i + 1] = (byte) (current - above);
+      average[i + 1] = (byte) (current - ((left + above) >> 1));
+      paeth[i + 1] = (byte) (current - paethPredictor(left, above, aboveLeft));
+
+      costs[FILTER_NONE] += abs(none[i + 1]);
+      costs[FILTER_SUB] += abs(sub[i + 1]);
+      costs[FILTER_UP] += abs(up[i + 1]);
+      costs[FILTER_AVERAGE] += abs(average[i + 1]);
+      costs[FILTER_PAETH] += abs(paeth[i + 1]);
+    }
+
+    int bestFilter = FILTER_NONE;
+
+    for (int filter = FILTER_SUB; filter <= FILTER_PAETH; filter++)
+      if (costs[filter] < costs[bestFilter])
+        bestFilter = filter;
+
+    filteredRows[bestFilter][0] = (byte) bestFilter;
+    return filteredRows[bestFilter];
+  }
+
+  private static int paethPredictor(int left, int above, int aboveLeft) {
+    int estimate = left + above - aboveLeft;
+    int leftDistance = abs(estimate - left);
+    int aboveDistance = abs(estimate - above);
+    int aboveLeftDistance = abs(estimate - aboveLeft);
+
+    if (leftDistance <= aboveDistance && leftDistance <= aboveLeftDistance)
+      return left;
+    if (aboveDistance <= aboveLeftDistance)
+      return above;
+
+    return aboveLeft;
+  }
+
+  private void deflate(byte[] data, int length) throws IOException {
+    deflater.setInput(data, 0, length);
+
+    while (!deflater.needsInput())
+      drainDeflater();
+  }
+
+  private void drainDeflater() throws IOException {
+    idatBufferLength += deflater.deflate(idatBuffer, idatBufferLength, idatBuffer.length - idatBufferLength);
+
+    if (idatBufferLength == idatBuffer.length)
+      flushIdatBuffer();
+  }
+
+  private void flushIdatBuffer() throws IOException {
+    if (idatBufferLength == 0)
+      return;
+
+    writeChunk("IDAT", idatBuffer, idatBufferLength);
+    idatBufferLength = 0;
+  }
+
+  private void writeChunk(String type, byte[] data, int length) throws IOException {
+    byte[] typeBytes = type.getBytes("US-ASCII");
+
+    crc.reset();
+    crc.update(typeBytes);
+    crc.update(data, 0, length);
+
+    chunkHeader.clear();
+    chunkHeader.putInt(length).put(typeBytes).flip();
+    write(chunkHeader);
+    write(ByteBuffer.wrap(data, 0, length));
+
+    chunkTrailer.clear();
+    chunkTrailer.putInt((int) crc.getValue()).flip();
+    write(chunkTrailer);
+  }
+
+  private void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+  }
+
+  private static void writeInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Interrupts tasks which run for longer than a fixed timeout.
+ * <p>
+ * Wrap each task like so:
+ * 
+ * <pre>
+ * TaskTimeouts.Timer timer = taskTimeouts.start();
+ * 
+ * try {
+ *   // Do the work
+ * } finally {
+ *   timer.stop();
+ * }
+ * </pre>
+ * 
+ * If the timeout passes first, the thread running the task is interrupted, which stops interruptible I/O and anything
+ * else that checks for it, and {@link Timer#stop()} throws a {@link TimeoutException} in place of whatever the task
+ * failed with.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class TaskTimeouts {
+  private final ScheduledExecutorService scheduledExecutorService;
+  private final long timeoutInMillis;
+
+  /**
+   * @param scheduledExecutorService
+   *          Runs the interrupts. Should have a thread of its own, so interrupts aren't held up behind tasks.
+   * @param timeoutInMillis
+   *          How long each task may run for.
+   */
+  TaskTimeouts(ScheduledExecutorService scheduledExecutorService, long timeoutInMillis) {
+    if (scheduledExecutorService == null)
+      throw new NullPointerException("The 'scheduledExecutorService' parameter cannot be null.");
+    if (timeoutInMillis < 1)
+      throw new IllegalArgumentException("The 'timeoutInMillis' parameter must be > 0.");
+
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.timeoutInMillis = timeoutInMillis;
+  }
+
+  /**
+   * Starts timing a task running on the current thread.
+   * 
+   * @return A timer which must be stopped once the task is finished, whether or not it succeeded.
+   */
+  Timer start() {
+    Timer timer = new Timer(Thread.currentThread());
+    timer.scheduledInterrupt = scheduledExecutorService.schedule(timer, timeoutInMillis, MILLISECONDS);
+    return timer;
+  }
+
+  /**
+   * Times a single task.
+   */
+  class Timer implements Runnable {
+    private final Thread thread;
+    private ScheduledFuture<?> scheduledInterrupt;
+    private boolean stopped;
+    private boolean timedOut;
+
+    private Timer(Thread thread) {
+      this.thread = thread;
+    }
+
+    /**
+     * Interrupts the task, unless it has already finished.
+     */
+    @Override
+    public synchronized void run() {
+      if (stopped)
+        return;
+
+      timedOut = true;
+      thread.interrupt();
+    }
+
+    /**
+     * Stops timing the task. Must be called from the thread running it.
+     * 
+     * @throws TimeoutException
+     *           If the task ran past the timeout and was interrupted.
+     */
+    void stop() throws TimeoutException {
+      scheduledInterrupt.cancel(false);
+
+      synchronized (this) {
+        stopped = true;
+
+        if (!timedOut)
+          return;
+      }
+
+      // The interrupt was ours, so don't leave it lying around for whatever runs on this thread next
+      Thread.interrupted();
+
+      throw new TimeoutException(format("Task took longer than %d ms.", timeoutInMillis));
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.revetkn.ios.analyzer;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Level.FINE;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * {@link ArtworkExecutionStrategy} which owns separate executors for I/O-bound and CPU-bound tasks, each sized for its
+ * own workload.
+ * <p>
+ * CPU-bound tasks run on a thread pool. I/O-bound tasks run on a second pool or, on JDKs which have them and if asked,
+ * on a new virtual thread per task - still no more than {@code ioConcurrency} at once, so the number of open files
+ * stays bounded. Virtual threads are looked up reflectively, so this class runs on older JDKs too, where it falls back
+ * to the pool. Idle pool threads are let go after a few seconds.
+ * <p>
+ * This class is threadsafe.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+public class ThreadPoolArtworkExecutionStrategy implements ArtworkExecutionStrategy {
+  private static final Logger LOGGER = Logger.getLogger(ThreadPoolArtworkExecutionStrategy.class.getName());
+
+  /** How long pool threads are kept around with nothing to do. */
+  private static final long IDLE_THREAD_TIMEOUT_IN_SECONDS = 5;
+
+  /** {@code Executors.newVirtualThreadPerTaskExecutor()}, or {@code null} if this JDK can't run virtual threads. */
+  private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR_METHOD = findNewVirtualThreadPerTaskExecutorMethod();
+
+  private final ExecutorService ioExecutorService;
+  private final ExecutorService cpuExecutorService;
+  private final boolean usingVirtualThreadsForIo;
+
+  /**
+   * @param ioConcurrency
+   *          How many I/O-bound tasks to run at once.
+   * @param cpuConcurrency
+   *          How many CPU-bound tasks to run at once - usually the number of cores.
+   * @param useVirtualThreadsForIo
+   *          If {@code true} and virtual threads are supported, each I/O-bound task gets its own virtual thread
+   *          instead of a pool thread.
+   * @throws IllegalArgumentException
+   *           If either concurrency is < 1.
+   */
+  public ThreadPoolArtworkExecutionStrategy(int ioConcurrency, int cpuConcurrency, boolean useVirtualThreadsForIo) {
+    if (ioConcurrency < 1)
+      throw new IllegalArgumentException("The 'ioConcurrency' parameter must be > 0.");
+    if (cpuConcurrency < 1)
+      throw new IllegalArgumentException("The 'cpuConcurrency' parameter must be > 0.");
+
+    this.usingVirtualThreadsForIo = useVirtualThreadsForIo && isVirtualThreadSupported();
+    this.ioExecutorService =
+        usingVirtualThreadsForIo ? new ConcurrencyLimitedExecutorService(createVirtualThreadPerTaskExecutorService(),
+          ioConcurrency) : createThreadPool(ioConcurrency);
+    this.cpuExecutorService = createThreadPool(cpuConcurrency);
+  }
+
+  /**
+   * @return {@code true} if this JDK can run virtual threads.
+   */
+  public static boolean isVirtualThreadSupported() {
+    return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR_METHOD != null;
+  }
+
+  /**
+   * @return {@code true} if I/O-bound tasks get their own virtual threads, {@code false} if they run on a pool.
+   */
+  public boolean isUsingVirtualThreadsForIo() {
+    return usingVirtualThreadsForIo;
+  }
+
+  @Override
+  public ExecutorService getExecutorService(ArtworkWorkload workload) {
+    if (workload == null)
+      throw new NullPointerException("The 'workload' parameter cannot be null.");
+
+    return workload == ArtworkWorkload.IO ? ioExecutorService : cpuExecutorService;
+  }
+
+  @Override
+  public void shutdown() {
+    ioExecutorService.shutdown();
+    cpuExecutorService.shutdown();
+  }
+
+  private static ExecutorService createThreadPool(int threadCount) {
+    ThreadPoolExecutor threadPoolExecutor =
+        new ThreadPoolExecutor(threadCount, threadCount, IDLE_THREAD_TIMEOUT_IN_SECONDS, SECONDS,
+          new LinkedBlockingQueue<Runnable>());
+
+    threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+    return threadPoolExecutor;
+  }
+
+  private static ExecutorService createVirtualThreadPerTaskExecutorService() {
+    try {
+      return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR_METHOD.invoke(null);
+    } catch (Exception e) {
+      // Worked when we checked at startup, so this shouldn't happen
+      throw new IllegalStateException("Unable to create virtual thread executor", e);
+    }
+  }
+
+  private static Method findNewVirtualThreadPerTaskExecutorMethod() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+      // JDKs 19 and 20 have the method, but it throws unless preview features are enabled
+      ((ExecutorService) method.invoke(null)).shutdown();
+
+      return method;
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (Exception e) {
+      if (LOGGER.isLoggable(FINE))
+        LOGGER.fine("Virtual threads aren't available: " + e);
+
+      return null;
+    }
+  }
+
+  /**
+   * Runs tasks on another executor, but no more than a fixed number at once. Tasks beyond that wait for a turn on their
+   * own threads, which is cheap when they're virtual. A task that's interrupted while waiting - because of
+   * {@link #shutdownNow()}, for example - never runs, and its future is cancelled.
+   */
+  private static class ConcurrencyLimitedExecutorService extends AbstractExecutorService {
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+
+    private ConcurrencyLimitedExecutorService(ExecutorService executorService, int concurrency) {
+      this.executorService = executorService;
+      this.permits = new Semaphore(concurrency);
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+      if (command == null)
+        throw new NullPointerException("The 'command' parameter cannot be null.");
+
+      executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            permits.acquire();
+          } catch (InterruptedException e) {
+            // We're being shut down or cancelled. Running the task without a permit would let every waiting task
+            // through at once, so cancel it instead - anyone waiting on its future sees a CancellationException
+            Thread.currentThread().interrupt();
+
+            if (command instanceof Future)
+              ((Future<?>) command).cancel(false);
+
+            return;
+          }
+
+          try {
+            command.run();
+          } finally {
+            permits.release();
+          }
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      executorService.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return executorService.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return executorService.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return executorService.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return executorService.awaitTermination(timeout, unit);
+    }
+  }
+}
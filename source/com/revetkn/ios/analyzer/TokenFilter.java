@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2013 Mark Allen.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.revetkn.ios.analyzer;
+
+/**
+ * Approximate record of the tokens {@link ReferenceTokenizer} saw in a piece of text - a Bloom filter over the tokens'
+ * hash codes, at about ten bits per distinct token.
+ * <p>
+ * {@link #mightContain(String)} never answers {@code false} for a token that was recorded, and only rarely answers
+ * {@code true} for one that wasn't. That's enough to tell which files can't possibly reference a name without reading
+ * them again.
+ * <p>
+ * This class is threadsafe and immutable.
+ * 
+ * @author <a href="http://revetkn.com">Mark Allen</a>
+ */
+class TokenFilter {
+  private static final int BITS_PER_TOKEN = 10;
+  private static final int MINIMUM_SIZE_IN_BITS = 64;
+  private static final int MAXIMUM_SIZE_IN_BITS = 1 << 30;
+  private static final int PROBES = 3;
+
+  private final long[] bits;
+  private final int mask;
+
+  private TokenFilter(int sizeInBits) {
+    this.bits = new long[sizeInBits / 64];
+    this.mask = sizeInBits - 1;
+  }
+
+  /**
+   * @return {@code true} if {@code token} may have been recorded, {@code false} if it definitely wasn't.
+   * @throws NullPointerException
+   *           If {@code token} is null.
+   */
+  boolean mightContain(String token) {
+    if (token == null)
+      throw new NullPointerException("The 'token' parameter cannot be null.");
+
+    int hash = mix(token.hashCode());
+    int step = mix(hash) | 1;
+
+    for (int i = 0; i < PROBES; i++, hash += step) {
+      int bit = hash & mask;
+
+      if ((bits[bit >>> 6] & (1L << bit)) == 0)
+        return false;
+    }
+
+    return true;
+  }
+
+  private void add(int tokenHashCode) {
+    int hash = mix(tokenHashCode);
+    int step = mix(hash) | 1;
+
+    for (int i = 0; i < PROBES; i++, hash += step) {
+      int bit = hash & mask;
+      bits[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  /** Spreads {@link String#hashCode()}, whose low bits are poorly distributed for short strings. */
+  private static int mix(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Collects the distinct token hash codes - as computed by {@link String#hashCode()} - seen while a scan is under way,
+   * then sizes the filter to fit. Repeated tokens are dropped as they're added, so a file that mentions the same few
+   * thousand identifiers millions of times only costs a few thousand entries.
+   * <p>
+   * This class is not threadsafe.
+   */
+  static class Builder {
+    /** Open-addressed set of token hash codes, kept at most half full. {@code 0} marks an empty slot. */
+    private int[] tokenHashCodes = new int[64];
+    private int size;
+
+    /** {@code 0} can't be stored in {@link #tokenHashCodes}, so we track it separately. */
+    private boolean containsZero;
+
+    void add(int tokenHashCode) {
+      if (tokenHashCode == 0) {
+        containsZero = true;
+        return;
+      }
+
+      int mask = tokenHashCodes.length - 1;
+
+      for (int slot = mix(tokenHashCode) & mask;; slot = (slot + 1) & mask) {
+        if (tokenHashCodes[slot] == tokenHashCode)
+          return;
+
+        if (tokenHashCodes[slot] == 0) {
+          tokenHashCodes[slot] = tokenHashCode;
+          break;
+        }
+      }
+
+      if (++size * 2 > tokenHashCodes.length)
+        grow();
+    }
+
+    private void grow() {
+      int[] oldTokenHashCodes = tokenHashCodes;
+      tokenHashCodes = new int[oldTokenHashCodes.length * 2];
+      int mask = tokenHashCodes.length - 1;
+
+      for (int tokenHashCode : oldTokenHashCodes) {
+        if (tokenHashCode == 0)
+          continue;
+
+        int slot = mix(tokenHashCode) & mask;
+
+        while (tokenHashCodes[slot] != 0)
+          slot = (slot + 1) & mask;
+
+        tokenHashCodes[slot] = tokenHashCode;
+      }
+    }
+
+    TokenFilter build() {
+      long distinctTokens = size + (containsZero ? 1 : 0);
+
+      // A power of two, so probes can be masked rather than divided
+      int sizeInBits = MINIMUM_SIZE_IN_BITS;
+
+      while (sizeInBits < MAXIMUM_SIZE_IN_BITS && sizeInBits < distinctTokens * BITS_PER_TOKEN)
+        sizeInBits <<= 1;
+
+      TokenFilter tokenFilter = new TokenFilter(sizeInBits);
+
+      for (int tokenHashCode : tokenHashCodes)
+        if (tokenHashCode != 0)
+          tokenFilter.add(tokenHashCode);
+
+      if (containsZero)
+        tokenFilter.add(0);
+
+      return tokenFilter;
+    }
+  }
+}